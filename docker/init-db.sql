@@ -87,7 +87,8 @@
 --     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 --     INDEX idx_entity (entity_id, entity_type),
 --     INDEX idx_status (status),
---     INDEX idx_create_time (create_time)
+--     INDEX idx_create_time (create_time),
+--     INDEX idx_update_time (update_time)
 -- );
 
 -- -- Insert sample data for testing
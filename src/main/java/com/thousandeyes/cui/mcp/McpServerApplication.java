@@ -1,8 +1,13 @@
 package com.thousandeyes.cui.mcp;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Arrays;
 
 /**
  * Main application class for the CUI Integration MCP Server.
@@ -10,12 +15,36 @@ import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
  * This server provides Model Context Protocol (MCP) tools for interacting
  * with the CUI Integration Service, enabling AI assistants and other tools
  * to manage users, organizations, and synchronization operations.
+ * 
+ * Started with {@code --stdio}, or with {@code mcp.server.transport=stdio}
+ * from any property source ({@code MCP_TRANSPORT=stdio}), the server speaks
+ * MCP over stdin/stdout instead of HTTP, so local clients can launch it
+ * directly.
  */
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class McpServerApplication {
 
+    private static final String STDIO_FLAG = "--stdio";
+
     public static void main(String[] args) {
-        SpringApplication.run(McpServerApplication.class, args);
+        SpringApplication application = new SpringApplication(McpServerApplication.class);
+        
+        if (Arrays.asList(args).contains(STDIO_FLAG)) {
+            args = Arrays.copyOf(args, args.length + 1);
+            args[args.length - 1] = "--mcp.server.transport=stdio";
+        }
+        application.addListeners(event -> {
+            // Runs before the banner; console logging looks up System.out on every write
+            if (event instanceof ApplicationEnvironmentPreparedEvent prepared
+                    && "stdio".equalsIgnoreCase(prepared.getEnvironment().getProperty("mcp.server.transport"))) {
+                // stdout carries the JSON-RPC stream, so keep banner and logs on stderr
+                System.setOut(System.err);
+                prepared.getSpringApplication().setWebApplicationType(WebApplicationType.NONE);
+            }
+        });
+        
+        application.run(args);
     }
 }
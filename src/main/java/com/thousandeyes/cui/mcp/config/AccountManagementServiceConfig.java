@@ -2,9 +2,12 @@ package com.thousandeyes.cui.mcp.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import lombok.RequiredArgsConstructor;
+import com.thousandeyes.cui.mcp.metrics.GrpcClientMetricsInterceptor;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
 import com.thousandeyes.ams.api.v1.account.RegionApiGrpc;
 
 @Configuration
@@ -24,7 +27,8 @@ public class AccountManagementServiceConfig {
     }
 
     @Bean
-    public ManagedChannel getManagedChannel() {
+    @Primary
+    public ManagedChannel getManagedChannel(ToolMetrics toolMetrics) {
         String endpoint = accountManagementServiceProperties.getGrpcEndpoint();
         boolean useTls = accountManagementServiceProperties.isGrpcUseTls();
         
@@ -45,6 +49,7 @@ public class AccountManagementServiceConfig {
                 .keepAliveTimeout(5, java.util.concurrent.TimeUnit.SECONDS)
                 .keepAliveWithoutCalls(true)
                 .maxInboundMessageSize(4 * 1024 * 1024) // 4MB
+                .intercept(new GrpcClientMetricsInterceptor(toolMetrics))
                 .build();
     }
 }
@@ -1,5 +1,7 @@
 package com.thousandeyes.cui.mcp.config;
 
+import com.thousandeyes.cui.mcp.metrics.TimedJdbcTemplate;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.Data;
@@ -22,6 +24,8 @@ public class DatabaseConfig {
     private String username;
     private String password;
     private String driverClassName = "com.mysql.cj.jdbc.Driver";
+    // Fetch size of full-table scans; Integer.MIN_VALUE makes Connector/J stream rows instead of buffering the result
+    private int streamFetchSize = Integer.MIN_VALUE;
     private ConnectionPool connectionPool = new ConnectionPool();
     
     @Data
@@ -56,7 +60,7 @@ public class DatabaseConfig {
     }
     
     @Bean
-    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
-        return new NamedParameterJdbcTemplate(dataSource);
+    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource, ToolMetrics toolMetrics) {
+        return new NamedParameterJdbcTemplate(new TimedJdbcTemplate(dataSource, toolMetrics));
     }
 }
@@ -1,11 +1,18 @@
 package com.thousandeyes.cui.mcp.config;
 
+import com.thousandeyes.cui.mcp.metrics.GrpcClientMetricsInterceptor;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.health.v1.HealthGrpc;
 import lombok.Data;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.net.URI;
 import java.time.Duration;
 
 /**
@@ -34,26 +41,55 @@ public class ExternalServiceConfig {
     }
     
     @Bean("cuiIntegrationServiceClient")
-    public WebClient cuiIntegrationServiceClient() {
+    public WebClient cuiIntegrationServiceClient(ToolMetrics toolMetrics) {
         return WebClient.builder()
                 .baseUrl(cuiIntegrationService.getBaseUrl())
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .filter(toolMetrics.webClientFilter())
                 .build();
     }
     
     @Bean("idpProxyClient")
-    public WebClient idpProxyClient() {
+    public WebClient idpProxyClient(ToolMetrics toolMetrics) {
         return WebClient.builder()
                 .baseUrl(idpProxy.getBaseUrl())
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .filter(toolMetrics.webClientFilter())
                 .build();
     }
     
+    /**
+     * The IdP proxy serves gRPC at {@code base-url}: TLS for https, plain text
+     * otherwise, on the URL's port or the scheme's default.
+     */
+    @Bean("idpProxyChannel")
+    public ManagedChannel idpProxyChannel(ToolMetrics toolMetrics) {
+        URI uri = URI.create(idpProxy.getBaseUrl());
+        boolean useTls = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : useTls ? 443 : 80;
+        
+        ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder.forAddress(uri.getHost(), port);
+        if (useTls) {
+            channelBuilder.useTransportSecurity();
+        } else {
+            channelBuilder.usePlaintext();
+        }
+        return channelBuilder
+                .intercept(new GrpcClientMetricsInterceptor(toolMetrics))
+                .build();
+    }
+    
+    @Bean("idpProxyHealthStub")
+    public HealthGrpc.HealthStub idpProxyHealthStub(@Qualifier("idpProxyChannel") ManagedChannel channel) {
+        return HealthGrpc.newStub(channel);
+    }
+    
     @Bean("accountManagementClient")
-    public WebClient accountManagementClient() {
+    public WebClient accountManagementClient(ToolMetrics toolMetrics) {
         return WebClient.builder()
                 .baseUrl(accountManagement.getBaseUrl())
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .filter(toolMetrics.webClientFilter())
                 .build();
     }
 }
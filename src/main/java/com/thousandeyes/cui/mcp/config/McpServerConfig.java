@@ -4,6 +4,12 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Configuration properties for the MCP server.
  */
@@ -15,20 +21,199 @@ public class McpServerConfig {
     private String name = "CUI Integration MCP Server";
     private String version = "1.0.0";
     private int port = 8080;
-    private String transport = "stdio";
+    private String transport = "http";
     
     private Tools tools = new Tools();
+    private Stdio stdio = new Stdio();
+    private Streaming streaming = new Streaming();
+    private FeatureFlags featureFlags = new FeatureFlags();
+    private TenantMappings tenantMappings = new TenantMappings();
+    private Rollups syncRollups = new Rollups();
+    private ChangeFeed changeFeed = new ChangeFeed();
+    private HealthProbe healthProbe = new HealthProbe();
+    
+    @Data
+    public static class FeatureFlags {
+        // Keep tb_organization_feature_flags in memory; false queries the table per lookup
+        private boolean enabled = true;
+        private Duration refreshInterval = Duration.ofSeconds(60);
+    }
+    
+    @Data
+    public static class TenantMappings {
+        // Serve tenant mapping lookups from memory; false queries the table per lookup
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(10);
+        // Deletes are only picked up by a full reload
+        private Duration fullReloadInterval = Duration.ofMinutes(15);
+        // Older snapshots are bypassed in favour of the database
+        private Duration maxStaleness = Duration.ofMinutes(2);
+    }
+    
+    @Data
+    public static class Streaming {
+        private int chunkSize = 50;
+        private long emitterTimeout = 120000;
+        private int maxStreams = 64;
+        private long sessionTimeout = 1800000;
+        // Lifetime of a /export download; rows per chunk written to the response
+        private long exportTimeout = 1800000;
+        private int exportChunkSize = 500;
+        // Exports running at once; each holds a database connection, so keep this well below the pool size
+        private int maxConcurrentExports = 2;
+    }
+    
+    @Data
+    public static class Rollups {
+        // Answer sync metrics from in-memory buckets; false queries the table per call
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(15);
+        // Deletes are only picked up by a rebuild
+        private Duration rebuildInterval = Duration.ofHours(1);
+        private Duration maxStaleness = Duration.ofMinutes(2);
+        private Duration minuteRetention = Duration.ofHours(24);
+        private Duration hourRetention = Duration.ofDays(30);
+    }
+    
+    @Data
+    public static class ChangeFeed {
+        // Tail tb_cui_entity_sync_retry_status for resources/subscribe; the table is only polled while someone is subscribed
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(5);
+        // Rows read per poll; a larger backlog is drained over the following polls
+        private int batchSize = 1000;
+        // Recent changes kept for resources/read
+        private int bufferSize = 1000;
+        // Changes per notifications/resources/updated; the rest are counted as dropped
+        private int maxEventsPerNotification = 100;
+        private int maxSubscriptionsPerSession = 20;
+    }
+    
+    @Data
+    public static class HealthProbe {
+        // Probe dependencies in the background; false probes when a health tool is called
+        private boolean enabled = true;
+        private Duration interval = Duration.ofSeconds(30);
+        private Duration timeout = Duration.ofSeconds(5);
+        // Older results make the health tools probe first
+        private Duration maxStaleness = Duration.ofMinutes(2);
+        // Results kept per dependency for latency percentiles and trends
+        private int historySize = 120;
+        private String httpPath = "/actuator/health";
+        // Reported, but not counted in the overall status
+        private List<String> optional = new ArrayList<>(List.of("account-management", "idp-proxy"));
+        // User looked up by the RegionApi probe; any answer from the server counts as up
+        private String grpcProbeEmail = "health-probe@thousandeyes.invalid";
+    }
+    
+    @Data
+    public static class Stdio {
+        private int workers = 16;
+        private int queueCapacity = 256;
+    }
     
     @Data
     public static class Tools {
         private boolean enabled = true;
         private long timeout = 30000;
+        private String resultFormat = "text";
+        private boolean coalesce = true;
+        private List<String> disabled = new ArrayList<>();
         private RateLimit rateLimit = new RateLimit();
-        
+        private Executor executor = new Executor();
+        private Batch batch = new Batch();
+        private Cache cache = new Cache();
+        private Pipeline pipeline = new Pipeline();
+        private Bulk bulk = new Bulk();
+        private Pagination pagination = new Pagination();
+        private ErrorSummary errorSummary = new ErrorSummary();
+        private BulkRetry bulkRetry = new BulkRetry();
+        private Purge purge = new Purge();
+
         @Data
         public static class RateLimit {
             private int requestsPerMinute = 100;
             private int burstSize = 10;
         }
+
+        @Data
+        public static class Executor {
+            private int queueCapacity = 200;
+            private int downstreamPermits = 64;
+        }
+
+        @Data
+        public static class Batch {
+            private int maxSize = 50;
+            private int maxConcurrency = 8;
+        }
+
+        @Data
+        public static class Bulk {
+            private int maxIdentifiers = 1000;
+            // Values per IN (...) list
+            private int chunkSize = 500;
+        }
+
+        @Data
+        public static class Pagination {
+            private int maxPageSize = 500;
+            // How long include_total counts are reused
+            private Duration countCacheTtl = Duration.ofSeconds(60);
+        }
+
+        @Data
+        public static class ErrorSummary {
+            // Error templates tracked at once; counts are exact while fewer distinct templates are seen
+            private int capacity = 1000;
+            private int maxTopN = 100;
+            private int samplesPerCluster = 5;
+        }
+
+        @Data
+        public static class BulkRetry {
+            // Sync calls in flight and started per second, per job; rate 0 means unthrottled
+            private int maxConcurrency = 4;
+            private double ratePerSecond = 10;
+            private int maxEntities = 10000;
+            private int maxRunningJobs = 1;
+            // Finished jobs are forgotten after this
+            private Duration jobRetention = Duration.ofHours(24);
+        }
+
+        @Data
+        public static class Purge {
+            // Rows deleted per statement, and the pause between statements that lets the sync pipeline's writes through
+            private int chunkSize = 1000;
+            private Duration pause = Duration.ofMillis(200);
+            private long maxRows = 1000000;
+        }
+
+        @Data
+        public static class Pipeline {
+            private int maxSteps = 20;
+            private int maxFanOut = 100;
+            private int fanOutConcurrency = 8;
+            // Deadline for the whole pipeline; each step is still bounded by tools.timeout
+            private Duration timeout = Duration.ofMinutes(2);
+        }
+
+        /**
+         * Result caching for read-only tools; only tools listed under
+         * {@code policies} are cached. Policies live in mcp-tools-config.yml.
+         */
+        @Data
+        public static class Cache {
+            private boolean enabled = true;
+            private Map<String, Policy> policies = new LinkedHashMap<>();
+
+            @Data
+            public static class Policy {
+                private Duration ttl = Duration.ofSeconds(30);
+                private long maxSize = 1000;
+                // write: entries expire ttl after they were stored; access: ttl after the last hit
+                private String expireAfter = "write";
+            }
+        }
     }
 }
@@ -0,0 +1,84 @@
+package com.thousandeyes.cui.mcp.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration for the executors used to run MCP requests off the request thread.
+ *
+ * With {@code spring.threads.virtual.enabled} the executors hand out a virtual
+ * thread per task and concurrency is bounded by permits instead of pool sizes
+ * (see {@code ToolPermits}); otherwise bounded platform-thread pools are used.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ToolExecutionConfig {
+
+    private final McpServerConfig mcpServerConfig;
+    private final DatabaseConfig databaseConfig;
+
+    /**
+     * Bounded scheduler for blocking JDBC work in the reactive execution path.
+     * Sized to the connection pool: more threads would only wait on Hikari.
+     */
+    @Bean(name = "jdbcScheduler", destroyMethod = "dispose")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Scheduler platformJdbcScheduler() {
+        return Schedulers.newBoundedElastic(
+                databaseConfig.getConnectionPool().getMaximumPoolSize(),
+                mcpServerConfig.getTools().getExecutor().getQueueCapacity(),
+                "mcp-jdbc");
+    }
+
+    /**
+     * Virtual-thread scheduler for blocking JDBC work. Not bounded itself;
+     * callers take a JDBC permit sized to the connection pool.
+     */
+    @Bean(name = "jdbcScheduler", destroyMethod = "dispose")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Scheduler virtualJdbcScheduler() {
+        return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "mcp-jdbc");
+    }
+
+    /**
+     * Runs requests answered over a streaming transport (SSE). These wait on
+     * their tool calls, so they get their own threads rather than blocking
+     * request or scheduler threads.
+     */
+    @Bean("mcpStreamExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformStreamExecutor() {
+        McpServerConfig.Streaming streaming = mcpServerConfig.getStreaming();
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(streaming.getMaxStreams());
+        taskExecutor.setMaxPoolSize(streaming.getMaxStreams());
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.setThreadNamePrefix("mcp-stream-");
+        return taskExecutor;
+    }
+
+    /**
+     * Virtual-thread variant of the stream executor. The concurrency limit
+     * holds the submitting request thread (itself virtual) until a stream
+     * slot frees up, instead of rejecting.
+     */
+    @Bean("mcpStreamExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualStreamExecutor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("mcp-stream-");
+        taskExecutor.setVirtualThreads(true);
+        taskExecutor.setConcurrencyLimit(mcpServerConfig.getStreaming().getMaxStreams());
+        return taskExecutor;
+    }
+}
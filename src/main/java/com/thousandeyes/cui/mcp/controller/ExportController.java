@@ -0,0 +1,121 @@
+package com.thousandeyes.cui.mcp.controller;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.service.RetryTableScanner;
+import com.thousandeyes.cui.mcp.service.SyncRetryExporter;
+import com.thousandeyes.cui.mcp.service.ToolPermits;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk downloads that are too large for a tool result.
+ *
+ * The export runs on the stream executor and writes each chunk to the
+ * response as it is produced. A write blocks until the client has taken the
+ * previous data, so a slow client slows the database scan down instead of
+ * letting rows pile up in memory. The scan holds a database connection
+ * throughout, so each export takes a JDBC permit from {@link ToolPermits};
+ * requests past {@code mcp.server.streaming.max-concurrent-exports} get 503.
+ */
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final SyncRetryExporter syncRetryExporter;
+    private final McpServerConfig mcpServerConfig;
+    private final AsyncTaskExecutor mcpStreamExecutor;
+    private final ToolPermits toolPermits;
+
+    /**
+     * All rows of {@code tb_cui_entity_sync_retry_status} matching the
+     * filters, as NDJSON (one object per line) or CSV with a header row.
+     * {@code from} is inclusive and {@code to} exclusive on the create time.
+     */
+    @GetMapping("/sync-retry-status")
+    public ResponseEntity<ResponseBodyEmitter> exportSyncRetryStatus(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(value = "entity_type", required = false) String entityType,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        SyncRetryExporter.Format exportFormat = SyncRetryExporter.Format.of(format);
+        MediaType mediaType = MediaType.parseMediaType(exportFormat.mediaType());
+        RetryTableScanner.Filter filter = new RetryTableScanner.Filter(entityType, status,
+                from == null ? null : Timestamp.valueOf(from), to == null ? null : Timestamp.valueOf(to));
+        log.info("Exporting sync retry status as {} - entityType: {}, status: {}, from: {}, to: {}",
+                exportFormat, entityType, status, from, to);
+
+        if (!toolPermits.tryAcquireExport()) {
+            log.warn("Too many concurrent exports or no database connection free, rejecting export");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(mcpServerConfig.getStreaming().getExportTimeout());
+        try {
+            mcpStreamExecutor.execute(() -> {
+                try {
+                    syncRetryExporter.export(filter, exportFormat, chunk -> send(emitter, chunk, mediaType));
+                    emitter.complete();
+                } catch (UncheckedIOException e) {
+                    log.debug("Export client disconnected: {}", e.getMessage());
+                    emitter.completeWithError(e.getCause());
+                } catch (Exception e) {
+                    // Headers are already sent; the client sees a truncated body
+                    log.error("Error exporting sync retry status", e);
+                    emitter.completeWithError(e);
+                } finally {
+                    toolPermits.releaseExport();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            toolPermits.releaseExport();
+            log.warn("Too many concurrent streams, rejecting export");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"sync-retry-status." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(emitter);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * Write one chunk. A failed write means the client is gone; it is
+     * rethrown so the scan stops early.
+     */
+    private void send(ResponseBodyEmitter emitter, String chunk, MediaType mediaType) {
+        try {
+            emitter.send(chunk, mediaType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.thousandeyes.cui.mcp.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.thousandeyes.cui.mcp.model.mcp.McpRequest;
 import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
-import com.thousandeyes.cui.mcp.model.mcp.McpTool;
+import com.thousandeyes.cui.mcp.service.McpRequestDispatcher;
 import com.thousandeyes.cui.mcp.service.McpToolService;
+import com.thousandeyes.cui.mcp.tool.ToolCatalog;
+import com.thousandeyes.cui.mcp.transport.SseTransport;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
 
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,74 +28,107 @@ import java.util.Map;
 @Slf4j
 public class McpController {
     
+    private final McpRequestDispatcher mcpRequestDispatcher;
     private final McpToolService mcpToolService;
+    private final SseTransport sseTransport;
+    
+    /**
+     * Single JSON-RPC 2.0 endpoint. Accepts either one request object or a
+     * batch array and dispatches on the request method. The request thread
+     * is released while tools run; the response is written on completion.
+     * 
+     * A single {@code tools/list} request is answered with the catalog ETag,
+     * and with 304 when {@code If-None-Match} already matches it. The
+     * {@code Mcp-Session-Id} of a {@code GET /mcp} stream identifies the
+     * session for {@code resources/subscribe}.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Object>> handle(@RequestBody JsonNode body,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = SseTransport.SESSION_ID_HEADER, required = false) String sessionId) {
+        if (body.isObject() && "tools/list".equals(body.path("method").asText())) {
+            ToolCatalog catalog = mcpToolService.getToolCatalog();
+            if (catalog.matches(ifNoneMatch)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalog.etag()).build());
+            }
+            return mcpRequestDispatcher.dispatchMessageAsync(body)
+                    .map(response -> ResponseEntity.ok().eTag(catalog.etag()).body(response))
+                    .defaultIfEmpty(ResponseEntity.accepted().build());
+        }
+        
+        return mcpRequestDispatcher.dispatchMessageAsync(body, sessionId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.accepted().build());
+    }
+    
+    /**
+     * Streamable HTTP endpoint for clients that accept {@code text/event-stream}.
+     * Progress, partial tool output and the final response are sent as SSE events.
+     */
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter handleStreaming(@RequestBody JsonNode body,
+            @RequestHeader(value = SseTransport.SESSION_ID_HEADER, required = false) String sessionId) {
+        return sseTransport.stream(body, sessionId);
+    }
+    
+    /**
+     * Server-to-client notification stream. The response carries an
+     * {@code Mcp-Session-Id} header identifying the session.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> listen() {
+        return sseTransport.listen();
+    }
     
     /**
      * Handle MCP initialization request.
      */
     @PostMapping("/initialize")
-    public ResponseEntity<McpResponse> initialize(@RequestBody McpRequest request) {
-        log.info("MCP initialization request received");
-        
-        Map<String, Object> result = Map.of(
-            "protocolVersion", "2024-11-05",
-            "capabilities", Map.of(
-                "tools", Map.of("listChanged", true)
-            ),
-            "serverInfo", Map.of(
-                "name", "CUI Integration MCP Server",
-                "version", "1.0.0"
-            )
-        );
-        
-        return ResponseEntity.ok(McpResponse.success(request.getId(), result));
+    public Mono<ResponseEntity<McpResponse>> initialize(@RequestBody McpRequest request) {
+        request.setMethod("initialize");
+        return mcpRequestDispatcher.dispatchAsync(request)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.accepted().build());
     }
     
     /**
      * List available MCP tools.
      */
     @PostMapping("/tools/list")
-    public ResponseEntity<McpResponse> listTools(@RequestBody McpRequest request) {
-        log.info("MCP tools list request received");
-        
-        try {
-            List<McpTool> tools = mcpToolService.getAvailableTools();
-            Map<String, Object> result = Map.of("tools", tools);
-            
-            return ResponseEntity.ok(McpResponse.success(request.getId(), result));
-        } catch (Exception e) {
-            log.error("Error listing tools", e);
-            return ResponseEntity.ok(McpResponse.error(request.getId(), -1, "Failed to list tools: " + e.getMessage()));
+    public Mono<ResponseEntity<McpResponse>> listTools(@RequestBody McpRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ToolCatalog catalog = mcpToolService.getToolCatalog();
+        if (catalog.matches(ifNoneMatch)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalog.etag()).build());
         }
+        
+        request.setMethod("tools/list");
+        return mcpRequestDispatcher.dispatchAsync(request)
+                .map(response -> ResponseEntity.ok().eTag(catalog.etag()).body(response))
+                .defaultIfEmpty(ResponseEntity.accepted().build());
     }
     
     /**
      * Execute an MCP tool.
      */
     @PostMapping("/tools/call")
-    public ResponseEntity<McpResponse> callTool(@RequestBody McpRequest request) {
-        log.info("MCP tool call request received: {}", request.getParams().getName());
-        
-        try {
-            String toolName = request.getParams().getName();
-            Map<String, Object> arguments = request.getParams().getArguments();
-            
-            McpResponse.ToolResult result = mcpToolService.executeTool(toolName, arguments);
-            
-            return ResponseEntity.ok(McpResponse.success(request.getId(), result));
-        } catch (Exception e) {
-            log.error("Error executing tool", e);
-            return ResponseEntity.ok(McpResponse.error(request.getId(), -1, "Tool execution failed: " + e.getMessage()));
-        }
+    public Mono<ResponseEntity<McpResponse>> callTool(@RequestBody McpRequest request) {
+        request.setMethod("tools/call");
+        return mcpRequestDispatcher.dispatchAsync(request)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.accepted().build());
     }
     
     /**
      * Handle ping requests for connection testing.
      */
     @PostMapping("/ping")
-    public ResponseEntity<McpResponse> ping(@RequestBody McpRequest request) {
+    public Mono<ResponseEntity<McpResponse>> ping(@RequestBody McpRequest request) {
         log.debug("MCP ping request received");
-        return ResponseEntity.ok(McpResponse.success(request.getId(), Map.of()));
+        request.setMethod("ping");
+        return mcpRequestDispatcher.dispatchAsync(request)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.accepted().build());
     }
     
     /**
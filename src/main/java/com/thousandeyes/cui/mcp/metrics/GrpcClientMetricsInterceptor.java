@@ -0,0 +1,46 @@
+package com.thousandeyes.cui.mcp.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Times each gRPC call from start to close as a {@code grpc} dependency of
+ * the tool that started it.
+ */
+public class GrpcClientMetricsInterceptor implements ClientInterceptor {
+
+    private final ToolMetrics toolMetrics;
+
+    public GrpcClientMetricsInterceptor(ToolMetrics toolMetrics) {
+        this.toolMetrics = toolMetrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions, Channel next) {
+        String tool = ToolMetrics.currentTool();
+        String operation = method.getFullMethodName();
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long start = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        toolMetrics.recordDependency(tool, "grpc", operation,
+                                status.isOk() ? "success" : "error", System.nanoTime() - start);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
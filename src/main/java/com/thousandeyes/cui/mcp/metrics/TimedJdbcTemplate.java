@@ -0,0 +1,73 @@
+package com.thousandeyes.cui.mcp.metrics;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JdbcTemplate that times every prepared query and update as a {@code jdbc}
+ * dependency of the current tool. {@code NamedParameterJdbcTemplate} routes
+ * all its queries and updates through the two overridden methods.
+ *
+ * The operation tag is the statement verb and first table, e.g.
+ * {@code select te_admin.tb_users}, which keeps cardinality bounded by the
+ * statements in the code base.
+ */
+public class TimedJdbcTemplate extends JdbcTemplate {
+
+    private static final Pattern STATEMENT = Pattern.compile(
+            "^\\s*(select|update|insert|delete)\\b(?:.*?\\b(?:from|update|into)\\s+([\\w.]+))?",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final ToolMetrics toolMetrics;
+
+    public TimedJdbcTemplate(DataSource dataSource, ToolMetrics toolMetrics) {
+        super(dataSource);
+        this.toolMetrics = toolMetrics;
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss, ResultSetExtractor<T> rse)
+            throws DataAccessException {
+        return timed(psc, () -> super.query(psc, pss, rse));
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss) throws DataAccessException {
+        return timed(psc, () -> super.update(psc, pss));
+    }
+
+    private <T> T timed(PreparedStatementCreator psc, Supplier<T> statement) {
+        String tool = ToolMetrics.currentTool();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = statement.get();
+            outcome = "success";
+            return result;
+        } finally {
+            toolMetrics.recordDependency(tool, "jdbc", operation(psc), outcome, System.nanoTime() - start);
+        }
+    }
+
+    static String operation(Object psc) {
+        if (psc instanceof SqlProvider provider && provider.getSql() != null) {
+            Matcher matcher = STATEMENT.matcher(provider.getSql());
+            if (matcher.find()) {
+                String verb = matcher.group(1).toLowerCase(Locale.ROOT);
+                return matcher.group(2) == null ? verb : verb + " " + matcher.group(2).toLowerCase(Locale.ROOT);
+            }
+        }
+        return "other";
+    }
+}
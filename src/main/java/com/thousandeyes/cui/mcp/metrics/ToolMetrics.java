@@ -0,0 +1,272 @@
+package com.thousandeyes.cui.mcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tool Micrometer instrumentation.
+ *
+ * <ul>
+ *   <li>{@code mcp.tool.calls} - timer tagged by tool and outcome
+ *       ({@code success}, {@code error}, {@code timeout}, {@code cancelled})</li>
+ *   <li>{@code mcp.tool.active} - in-flight calls per tool</li>
+ *   <li>{@code mcp.tool.errors} - failures per tool and exception type</li>
+ *   <li>{@code mcp.tool.arguments.size} - approximate argument size in characters</li>
+ *   <li>{@code mcp.tool.result.items} - rows/elements returned, including streamed chunks</li>
+ *   <li>{@code mcp.tool.coalesced} - calls answered by joining an identical in-flight call</li>
+ *   <li>{@code mcp.tool.dependency} - timer for each JDBC query, gRPC call and
+ *       WebClient exchange, tagged with the tool that made it</li>
+ * </ul>
+ *
+ * The calling tool is tracked in a thread-local that is set while a blocking
+ * handler runs and while a reactive handler's {@code Mono} is subscribed,
+ * which is when the JDBC template, gRPC stub and WebClient start their calls.
+ * A Reactor schedule hook carries it over {@code subscribeOn}/{@code publishOn}
+ * hops, e.g. onto the JDBC scheduler.
+ */
+@Component
+@RequiredArgsConstructor
+public class ToolMetrics {
+
+    public static final String CALLS = "mcp.tool.calls";
+    public static final String ACTIVE = "mcp.tool.active";
+    public static final String ERRORS = "mcp.tool.errors";
+    public static final String ARGUMENTS_SIZE = "mcp.tool.arguments.size";
+    public static final String RESULT_ITEMS = "mcp.tool.result.items";
+    public static final String DEPENDENCY = "mcp.tool.dependency";
+    public static final String COALESCED = "mcp.tool.coalesced";
+
+    private static final String NO_TOOL = "none";
+    private static final String SCHEDULE_HOOK = ToolMetrics.class.getName();
+    private static final String URI_TEMPLATE_ATTRIBUTE = WebClient.class.getName() + ".uriTemplate";
+    private static final ThreadLocal<String> CURRENT_TOOL = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void propagateAcrossSchedulers() {
+        Schedulers.onScheduleHook(SCHEDULE_HOOK, task -> {
+            String tool = CURRENT_TOOL.get();
+            if (tool == null) {
+                return task;
+            }
+            return () -> {
+                String previous = CURRENT_TOOL.get();
+                CURRENT_TOOL.set(tool);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        });
+    }
+
+    @PreDestroy
+    void removeScheduleHook() {
+        Schedulers.resetOnScheduleHook(SCHEDULE_HOOK);
+    }
+
+    /**
+     * Start timing a call to a registered tool.
+     */
+    public Call start(String tool, Map<String, Object> arguments) {
+        DistributionSummary.builder(ARGUMENTS_SIZE)
+                .baseUnit("chars")
+                .tag("tool", tool)
+                .register(meterRegistry)
+                .record(argumentSize(arguments));
+        return new Call(tool);
+    }
+
+    /**
+     * Run blocking tool work with {@code tool} as the current tool.
+     */
+    public <T> T callAs(String tool, Callable<T> work) throws Exception {
+        String previous = CURRENT_TOOL.get();
+        CURRENT_TOOL.set(tool);
+        try {
+            return work.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Subscribe to {@code source} with {@code tool} as the current tool, so
+     * calls started during subscription are attributed to it.
+     */
+    public <T> Mono<T> subscribeAs(String tool, Mono<T> source) {
+        return new MonoOperator<T, T>(source) {
+            @Override
+            public void subscribe(CoreSubscriber<? super T> actual) {
+                String previous = CURRENT_TOOL.get();
+                CURRENT_TOOL.set(tool);
+                try {
+                    source.subscribe(actual);
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * The tool on whose behalf the current thread is working, or {@code none}.
+     */
+    public static String currentTool() {
+        String tool = CURRENT_TOOL.get();
+        return tool != null ? tool : NO_TOOL;
+    }
+
+    /**
+     * Record one dependency call made by {@code tool}.
+     *
+     * @param type      {@code jdbc}, {@code grpc} or {@code http}
+     * @param operation low-cardinality name of the call (statement, RPC method, URI template)
+     */
+    public void recordDependency(String tool, String type, String operation, String outcome, long nanos) {
+        Timer.builder(DEPENDENCY)
+                .tags(Tags.of("tool", tool, "type", type, "operation", operation, "outcome", outcome))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count a call that joined an identical call already in flight.
+     */
+    public void recordCoalesced(String tool) {
+        Counter.builder(COALESCED)
+                .tag("tool", tool)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * WebClient filter timing each exchange as an {@code http} dependency.
+     */
+    public ExchangeFilterFunction webClientFilter() {
+        return (request, next) -> {
+            String tool = currentTool();
+            String operation = request.method().name() + " " + request.attribute(URI_TEMPLATE_ATTRIBUTE)
+                    .map(template -> stripQuery(template.toString()))
+                    .orElse(request.url().getPath());
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnSuccess(response -> recordDependency(tool, "http", operation,
+                            response.statusCode().isError() ? "error" : "success", System.nanoTime() - start))
+                    .doOnError(e -> recordDependency(tool, "http", operation, "error", System.nanoTime() - start));
+        };
+    }
+
+    private AtomicInteger active(String tool) {
+        return active.computeIfAbsent(tool, name ->
+                meterRegistry.gauge(ACTIVE, Tags.of("tool", name), new AtomicInteger()));
+    }
+
+    private static long argumentSize(Map<String, Object> arguments) {
+        long size = 0;
+        for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+            size += entry.getKey().length() + String.valueOf(entry.getValue()).length();
+        }
+        return size;
+    }
+
+    private static String stripQuery(String template) {
+        int query = template.indexOf('?');
+        return query < 0 ? template : template.substring(0, query);
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT_TOOL.remove();
+        } else {
+            CURRENT_TOOL.set(previous);
+        }
+    }
+
+    /**
+     * One in-flight tool call. Exactly one of {@link #success()},
+     * {@link #failure(Throwable)} or {@link #cancel()} ends it.
+     */
+    public final class Call {
+
+        private final String tool;
+        private final Timer.Sample sample;
+        private final AtomicInteger inFlight;
+        private final AtomicLong items = new AtomicLong();
+
+        private Call(String tool) {
+            this.tool = tool;
+            this.inFlight = active(tool);
+            this.inFlight.incrementAndGet();
+            this.sample = Timer.start(meterRegistry);
+        }
+
+        /**
+         * Count the elements of a result or streamed chunk.
+         */
+        public void addResult(Object result) {
+            if (result instanceof Collection<?> collection) {
+                items.addAndGet(collection.size());
+            } else if (result instanceof Map<?, ?> map) {
+                items.addAndGet(map.size());
+            } else if (result != null && result.getClass().isArray()) {
+                items.addAndGet(Array.getLength(result));
+            } else if (result != null) {
+                items.incrementAndGet();
+            }
+        }
+
+        public void success() {
+            DistributionSummary.builder(RESULT_ITEMS)
+                    .tag("tool", tool)
+                    .register(meterRegistry)
+                    .record(items.get());
+            finish("success");
+        }
+
+        public void failure(Throwable error) {
+            Counter.builder(ERRORS)
+                    .tags("tool", tool, "exception", error.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            finish(error instanceof TimeoutException ? "timeout" : "error");
+        }
+
+        public void cancel() {
+            finish("cancelled");
+        }
+
+        private void finish(String outcome) {
+            inFlight.decrementAndGet();
+            sample.stop(Timer.builder(CALLS)
+                    .tags("tool", tool, "outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.thousandeyes.cui.mcp.model.mcp;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a server-initiated MCP notification (a JSON-RPC message without an id).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class McpNotification {
+    
+    @JsonProperty("jsonrpc")
+    @Builder.Default
+    private String jsonrpc = "2.0";
+    
+    private String method;
+    private Object params;
+    
+    public static McpNotification of(String method, Object params) {
+        return McpNotification.builder()
+                .method(method)
+                .params(params)
+                .build();
+    }
+}
@@ -21,7 +21,7 @@ public class McpRequest {
     @Builder.Default
     private String jsonrpc = "2.0";
     
-    private String id;
+    private Object id;
     private String method;
     private McpParams params;
     
@@ -32,5 +32,27 @@ public class McpRequest {
     public static class McpParams {
         private String name;
         private Map<String, Object> arguments;
+        
+        // Resource methods (resources/read, resources/subscribe)
+        private String uri;
+        
+        @JsonProperty("_meta")
+        private Map<String, Object> meta;
+        
+        /**
+         * Progress token supplied by the client, if it wants progress notifications.
+         */
+        public Object progressToken() {
+            return meta != null ? meta.get("progressToken") : null;
+        }
+        
+        /**
+         * Whether the client asked for rows as {@code notifications/tools/output}
+         * chunks with {@code _meta.partialOutput: true}. Clients that did not
+         * get every row in the final result.
+         */
+        public boolean partialOutput() {
+            return meta != null && Boolean.TRUE.equals(meta.get("partialOutput"));
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.thousandeyes.cui.mcp.model.mcp;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -23,7 +24,7 @@ public class McpResponse {
     @Builder.Default
     private String jsonrpc = "2.0";
     
-    private String id;
+    private Object id;
     private Object result;
     private McpError error;
     
@@ -32,6 +33,12 @@ public class McpResponse {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class McpError {
+        public static final int PARSE_ERROR = -32700;
+        public static final int INVALID_REQUEST = -32600;
+        public static final int METHOD_NOT_FOUND = -32601;
+        public static final int INVALID_PARAMS = -32602;
+        public static final int INTERNAL_ERROR = -32603;
+        
         private int code;
         private String message;
         private Object data;
@@ -41,9 +48,15 @@ public class McpResponse {
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class ToolResult {
         private List<Content> content;
+        private Object structuredContent;
+        @JsonProperty("isError")
         private boolean isError;
+        // Handler return value, for in-process callers such as pipelines; never serialized
+        @JsonIgnore
+        private Object value;
         
         @Data
         @Builder
@@ -55,14 +68,14 @@ public class McpResponse {
         }
     }
     
-    public static McpResponse success(String id, Object result) {
+    public static McpResponse success(Object id, Object result) {
         return McpResponse.builder()
                 .id(id)
                 .result(result)
                 .build();
     }
     
-    public static McpResponse error(String id, int code, String message) {
+    public static McpResponse error(Object id, int code, String message) {
         return McpResponse.builder()
                 .id(id)
                 .error(McpError.builder()
@@ -1,6 +1,7 @@
 package com.thousandeyes.cui.mcp.model.mcp;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,6 +28,7 @@ public class McpTool {
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class InputSchema {
         @Builder.Default
         private String type = "object";
@@ -37,11 +39,16 @@ public class McpTool {
         @Builder
         @NoArgsConstructor
         @AllArgsConstructor
+        @JsonInclude(JsonInclude.Include.NON_NULL)
         public static class Property {
             private String type;
             private String description;
+            @JsonProperty("default")
             private Object defaultValue;
+            @JsonProperty("enum")
             private List<String> enumValues;
+            // Element schema of array properties
+            private Map<String, Object> items;
         }
     }
 }
@@ -4,11 +4,14 @@ import com.thousandeyes.models.account.v1.GetUserRegionRequestOuterClass.GetUser
 import com.thousandeyes.models.account.v1.GetUserRegionResponseOuterClass.GetUserRegionResponse;
 import com.thousandeyes.ams.api.v1.account.RegionApiGrpc;
 
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
+import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 import java.util.List;
-import java.util.Map;
 import com.thousandeyes.cui.mcp.model.dto.UserRegionsDto;
 
 /**
@@ -20,6 +23,7 @@ import com.thousandeyes.cui.mcp.model.dto.UserRegionsDto;
 public class AccountManagementGrpcService implements AccountManagementService {
     
     private final RegionApiGrpc.RegionApiBlockingStub regionApiBlockingStub;
+    private final RegionApiGrpc.RegionApiStub regionApiStub;
 
     
 
@@ -29,15 +33,6 @@ public class AccountManagementGrpcService implements AccountManagementService {
         return regionApiBlockingStub.getUserRegion(request);
     }
 
-    
-    private String getStringArgument(Map<String, Object> arguments, String key) {
-        Object value = arguments.get(key);
-        if (value == null) {
-            throw new IllegalArgumentException("Required argument '" + key + "' is missing");
-        }
-        return value.toString();
-    }
-
     /**
      * Get user regions by email address.
      * 
@@ -45,9 +40,7 @@ public class AccountManagementGrpcService implements AccountManagementService {
      * - Uses GetUserRegionRequest with userEmail field
      * - Returns GetUserRegionResponse with regionIdList and defaultRegionId
      */
-    public UserRegionsDto getUserRegions(Map<String, Object> arguments) {
-        String email = getStringArgument(arguments, "email");
-        
+    public UserRegionsDto getUserRegions(String email) {
         log.info("Getting user regions for email: {}", email);
         
         try {
@@ -65,4 +58,43 @@ public class AccountManagementGrpcService implements AccountManagementService {
             throw new RuntimeException("Failed to get user regions: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Non-blocking variant of {@link #getUserRegions(String)} using the async gRPC stub.
+     */
+    @McpToolHandler(name = "get_user_regions", description = "Get all regions a user belongs to")
+    public Mono<UserRegionsDto> getUserRegionsAsync(
+            @McpToolParam(value = "identifier", aliases = "email", description = "User's email address", required = true) String email) {
+        log.info("Getting user regions for email: {}", email);
+        
+        GetUserRegionRequest request = GetUserRegionRequest.newBuilder().setUserEmail(email).build();
+        
+        return Mono.<GetUserRegionResponse>create(sink -> regionApiStub.getUserRegion(request,
+                    new StreamObserver<>() {
+                        @Override
+                        public void onNext(GetUserRegionResponse response) {
+                            sink.success(response);
+                        }
+                        
+                        @Override
+                        public void onError(Throwable t) {
+                            sink.error(t);
+                        }
+                        
+                        @Override
+                        public void onCompleted() {
+                            sink.success();
+                        }
+                    }))
+                .map(response -> {
+                    List<Integer> regionIds = response.getRegionIdList();
+                    log.info("Successfully retrieved {} regions for user: {}, default region: {}", 
+                            regionIds.size(), email, response.getDefaultRegionId());
+                    return UserRegionsDto.fromRegionResponse(email, regionIds, response.getDefaultRegionId());
+                })
+                .onErrorMap(e -> {
+                    log.error("Error getting user regions for email: {}", email, e);
+                    return new RuntimeException("Failed to get user regions: " + e.getMessage());
+                });
+    }
+}
@@ -0,0 +1,302 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.ExternalServiceConfig;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-drives failed user syncs against the CUI Integration Service
+ * ({@code PATCH /api/v1/users/{uid}/sync-tenants}) as background jobs.
+ *
+ * A job works through its UIDs with at most
+ * {@code mcp.server.tools.bulk-retry.max-concurrency} calls in flight and
+ * starts at most {@code rate-per-second} calls per second. Connection errors,
+ * timeouts, 429 and 5xx responses are retried per UID with the backoff of
+ * {@code external-services.cui-integration-service.retry}; other responses
+ * are final. The outcome of every UID is kept on the job, which stays
+ * queryable for {@code job-retention} after it finishes. Once a job with
+ * successful re-syncs ends, the cached user and tenant mapping results are
+ * dropped.
+ *
+ * Only user entities are supported: the service has no equivalent endpoint
+ * for organizations.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkSyncRetry {
+
+    // Cached tools showing user and tenant state that a re-sync changes
+    private static final List<String> AFFECTED_TOOLS = List.of("get_user_by_id", "get_tenant_mapping_status");
+
+    private static final String SELECT_SQL = """
+        SELECT DISTINCT entity_id FROM te_admin.tb_cui_entity_sync_retry_status
+        WHERE entity_type = 'USER' AND status = :status
+    """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final WebClient cuiIntegrationServiceClient;
+    private final McpServerConfig mcpServerConfig;
+    private final ExternalServiceConfig externalServiceConfig;
+    private final ToolResultCache toolResultCache;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * Result of one UID: {@code httpStatus} is {@code null} when no response
+     * was received.
+     */
+    public record Outcome(boolean succeeded, Integer httpStatus, String error, int attempts) {
+    }
+
+    /**
+     * UIDs of users with retry entries in {@code status}, optionally only
+     * entries created since {@code since}, in ascending order.
+     */
+    public List<String> selectUsers(String status, Timestamp since, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("status", status);
+        params.addValue("limit", limit);
+
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        if (since != null) {
+            sql.append(" AND create_time >= :since");
+            params.addValue("since", since);
+        }
+        sql.append(" ORDER BY entity_id LIMIT :limit");
+
+        return jdbcTemplate.queryForList(sql.toString(), params, String.class);
+    }
+
+    /**
+     * Start a job retrying the given UIDs and return it without waiting.
+     */
+    public synchronized Job start(List<String> uids, String description) {
+        McpServerConfig.Tools.BulkRetry config = mcpServerConfig.getTools().getBulkRetry();
+        if (uids.size() > config.getMaxEntities()) {
+            throw new IllegalArgumentException("At most " + config.getMaxEntities() + " entities per job, got " + uids.size());
+        }
+        expireJobs(config.getJobRetention());
+        long running = jobs.values().stream().filter(job -> job.state == State.RUNNING).count();
+        if (running >= config.getMaxRunningJobs()) {
+            throw new IllegalStateException("A bulk retry job is already running, wait for it or cancel it");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), description, uids.size(), config);
+        jobs.put(job.id, job);
+        log.info("Starting bulk retry job {} ({}): {} users, concurrency {}, {} per second",
+                job.id, description, uids.size(), config.getMaxConcurrency(), config.getRatePerSecond());
+
+        Flux<String> paced = Flux.fromIterable(uids);
+        if (config.getRatePerSecond() > 0) {
+            paced = paced.delayElements(Duration.ofNanos((long) (1_000_000_000L / config.getRatePerSecond())));
+        }
+        job.subscription = paced
+                .flatMap(uid -> retryUser(uid).doOnNext(outcome -> job.record(uid, outcome)),
+                        Math.max(1, config.getMaxConcurrency()))
+                .doOnComplete(() -> finish(job, State.COMPLETED, null))
+                .doOnCancel(() -> finish(job, State.CANCELLED, null))
+                .subscribe(outcome -> { }, e -> {
+                    log.error("Bulk retry job {} failed", job.id, e);
+                    finish(job, State.FAILED, String.valueOf(e.getMessage()));
+                });
+        return job;
+    }
+
+    public Job get(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown bulk retry job: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Known jobs, newest first.
+     */
+    public List<Job> list() {
+        expireJobs(mcpServerConfig.getTools().getBulkRetry().getJobRetention());
+        List<Job> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing((Job job) -> job.startedAt).reversed());
+        return list;
+    }
+
+    /**
+     * Stop dispatching further UIDs. Calls already in flight are abandoned.
+     */
+    public Job cancel(String jobId) {
+        Job job = get(jobId);
+        Disposable subscription = job.subscription;
+        if (subscription != null && job.state == State.RUNNING) {
+            subscription.dispose();
+            finish(job, State.CANCELLED, null);
+        }
+        return job;
+    }
+
+    /**
+     * Drop cached results the job may have made stale before reporting it
+     * finished, so a caller that sees the final state reads fresh data.
+     */
+    private void finish(Job job, State finalState, String failure) {
+        if (job.state == State.RUNNING && job.succeeded.get() > 0) {
+            toolResultCache.invalidate(AFFECTED_TOOLS, "bulk retry job " + job.id);
+        }
+        job.finish(finalState, failure);
+    }
+
+    private Mono<Outcome> retryUser(String uid) {
+        long userId;
+        try {
+            userId = Long.parseLong(uid.trim());
+        } catch (NumberFormatException e) {
+            return Mono.just(new Outcome(false, null, "Not a numeric UID", 0));
+        }
+
+        ExternalServiceConfig.ServiceConfig service = externalServiceConfig.getCuiIntegrationService();
+        AtomicInteger attempts = new AtomicInteger();
+        return Mono.defer(() -> {
+                    attempts.incrementAndGet();
+                    return cuiIntegrationServiceClient
+                            .patch()
+                            .uri("/api/v1/users/{uid}/sync-tenants", userId)
+                            .retrieve()
+                            .toBodilessEntity()
+                            .timeout(Duration.ofMillis(service.getTimeout()));
+                })
+                .retryWhen(Retry.backoff(Math.max(0, service.getRetry().getMaxAttempts() - 1),
+                                Duration.ofMillis(service.getRetry().getBackoffDelay()))
+                        .filter(BulkSyncRetry::isTransient)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(response -> new Outcome(true, response.getStatusCode().value(), null, attempts.get()))
+                .onErrorResume(e -> Mono.just(e instanceof WebClientResponseException response
+                        ? new Outcome(false, response.getStatusCode().value(), response.getStatusText(), attempts.get())
+                        : new Outcome(false, null, String.valueOf(e.getMessage()), attempts.get())));
+    }
+
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    private void expireJobs(Duration retention) {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * One bulk retry run. Counters and outcomes are updated from the reactive
+     * pipeline while the job is read by the status tool.
+     */
+    public static final class Job {
+
+        private final String id;
+        private final String description;
+        private final int total;
+        private final int maxConcurrency;
+        private final double ratePerSecond;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+        private volatile State state = State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private volatile Disposable subscription;
+
+        private Job(String id, String description, int total, McpServerConfig.Tools.BulkRetry config) {
+            this.id = id;
+            this.description = description;
+            this.total = total;
+            this.maxConcurrency = config.getMaxConcurrency();
+            this.ratePerSecond = config.getRatePerSecond();
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public Map<String, Outcome> outcomes() {
+            return outcomes;
+        }
+
+        private void record(String uid, Outcome outcome) {
+            outcomes.put(uid, outcome);
+            (outcome.succeeded() ? succeeded : failed).incrementAndGet();
+        }
+
+        private synchronized void finish(State finalState, String failure) {
+            if (state == State.RUNNING) {
+                error = failure;
+                state = finalState;
+                finishedAt = Instant.now();
+                log.info("Bulk retry job {} {}: {} succeeded, {} failed of {}", id, finalState, succeeded.get(), failed.get(), total);
+            }
+        }
+
+        /**
+         * Progress summary; failed UIDs are listed with their outcome, up to
+         * {@code maxFailures}.
+         */
+        public Map<String, Object> describe(int maxFailures) {
+            Map<String, Object> failures = new LinkedHashMap<>();
+            outcomes.entrySet().stream()
+                    .filter(entry -> !entry.getValue().succeeded())
+                    .sorted(Map.Entry.comparingByKey())
+                    .limit(maxFailures)
+                    .forEach(entry -> failures.put(entry.getKey(), entry.getValue()));
+
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("jobId", id);
+            result.put("description", description);
+            result.put("state", state);
+            result.put("total", total);
+            result.put("completed", succeeded.get() + failed.get());
+            result.put("succeeded", succeeded.get());
+            result.put("failed", failed.get());
+            result.put("maxConcurrency", maxConcurrency);
+            result.put("ratePerSecond", ratePerSecond);
+            result.put("startedAt", startedAt.toString());
+            result.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+            result.put("elapsedMs", Duration.between(startedAt, end).toMillis());
+            if (error != null) {
+                result.put("error", error);
+            }
+            result.put("failures", failures);
+            return result;
+        }
+    }
+}
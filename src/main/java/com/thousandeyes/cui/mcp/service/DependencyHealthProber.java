@@ -0,0 +1,378 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.ams.api.v1.account.RegionApiGrpc;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.models.account.v1.GetUserRegionRequestOuterClass.GetUserRegionRequest;
+import com.thousandeyes.models.account.v1.GetUserRegionResponseOuterClass.GetUserRegionResponse;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Probes the server's dependencies in the background and keeps the recent
+ * results: MySQL ({@code SELECT 1}), the CUI Integration Service, Account
+ * Management over gRPC ({@code RegionApi}) and over HTTP, and the IdP proxy
+ * over the gRPC health checking service ({@code grpc.health.v1.Health}).
+ *
+ * Every {@code mcp.server.health-probe.interval} all dependencies are probed
+ * in parallel, each bounded by {@code timeout}. The last {@code history-size}
+ * results per dependency are kept in a ring, from which the health tools
+ * report latency percentiles, availability and a trend without calling
+ * anything themselves. Probe latencies are also recorded in the
+ * {@code mcp.health.probe} timer as a percentile histogram.
+ *
+ * While the last round is older than {@code max-staleness}, or the prober is
+ * disabled, a health call runs a round first. Concurrent callers share the
+ * round in flight.
+ */
+@Component
+@Slf4j
+public class DependencyHealthProber implements SmartInitializingSingleton {
+
+    public static final String DATABASE = "database";
+    public static final String CUI_INTEGRATION_SERVICE = "cui-integration-service";
+    public static final String ACCOUNT_MANAGEMENT_GRPC = "account-management-grpc";
+    public static final String ACCOUNT_MANAGEMENT = "account-management";
+    public static final String IDP_PROXY = "idp-proxy";
+
+    private static final String PROBE_TIMER = "mcp.health.probe";
+
+    // Codes meaning the gRPC server did not answer the call itself
+    private static final Set<Status.Code> GRPC_DOWN = Set.of(Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.INTERNAL, Status.Code.UNKNOWN, Status.Code.RESOURCE_EXHAUSTED);
+
+    private final McpServerConfig mcpServerConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Supplier<Mono<String>>> checks = new LinkedHashMap<>();
+    private final Map<String, History> histories = new LinkedHashMap<>();
+    private final AtomicReference<Mono<Void>> round = new AtomicReference<>();
+
+    private volatile Instant lastRound;
+
+    public DependencyHealthProber(McpServerConfig mcpServerConfig, MeterRegistry meterRegistry,
+            NamedParameterJdbcTemplate jdbcTemplate, Scheduler jdbcScheduler,
+            @Qualifier("cuiIntegrationServiceClient") WebClient cuiIntegrationServiceClient,
+            @Qualifier("accountManagementClient") WebClient accountManagementClient,
+            @Qualifier("idpProxyHealthStub") HealthGrpc.HealthStub idpProxyHealthStub,
+            RegionApiGrpc.RegionApiStub regionApiStub) {
+        this.mcpServerConfig = mcpServerConfig;
+        this.meterRegistry = meterRegistry;
+
+        checks.put(DATABASE, () -> Mono.fromCallable(() -> jdbcTemplate.queryForObject("SELECT 1", Map.of(), Integer.class))
+                .subscribeOn(jdbcScheduler)
+                .thenReturn("SELECT 1"));
+        checks.put(CUI_INTEGRATION_SERVICE, () -> httpCheck(cuiIntegrationServiceClient));
+        checks.put(ACCOUNT_MANAGEMENT_GRPC, () -> grpcCheck(regionApiStub));
+        checks.put(ACCOUNT_MANAGEMENT, () -> httpCheck(accountManagementClient));
+        checks.put(IDP_PROXY, () -> grpcHealthCheck(idpProxyHealthStub));
+        int historySize = Math.max(1, mcpServerConfig.getHealthProbe().getHistorySize());
+        checks.keySet().forEach(name -> histories.put(name, new History(historySize)));
+    }
+
+    /**
+     * One probe result; {@code detail} is the answer on success and the error
+     * otherwise.
+     */
+    public record Sample(Instant at, boolean up, long latencyNanos, String detail) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!mcpServerConfig.getHealthProbe().isEnabled()) {
+            log.info("Background health probes disabled, health tools probe on demand");
+            return;
+        }
+        probe().subscribe();
+    }
+
+    @Scheduled(initialDelayString = "#{@mcpServerConfig.healthProbe.interval.toMillis()}",
+            fixedDelayString = "#{@mcpServerConfig.healthProbe.interval.toMillis()}")
+    public void scheduledProbe() {
+        if (mcpServerConfig.getHealthProbe().isEnabled()) {
+            probe().subscribe();
+        }
+    }
+
+    /**
+     * Probe every dependency in parallel, or join the round already running.
+     * Never fails; failed probes are recorded as down.
+     */
+    public Mono<Void> probe() {
+        while (true) {
+            Mono<Void> current = round.get();
+            if (current != null) {
+                return current;
+            }
+            Mono<Void> next = Flux.fromIterable(checks.keySet())
+                    .flatMap(this::probe, checks.size())
+                    .then()
+                    .doOnTerminate(() -> lastRound = Instant.now())
+                    .doFinally(signal -> round.set(null))
+                    .cache();
+            if (round.compareAndSet(null, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Whether the last round finished within {@code max-staleness}.
+     */
+    public boolean isFresh() {
+        Instant last = lastRound;
+        return last != null && Duration.between(last, Instant.now()).compareTo(mcpServerConfig.getHealthProbe().getMaxStaleness()) <= 0;
+    }
+
+    /**
+     * Health of all dependencies, probing first when the results are stale.
+     * Each dependency lists its last {@code trendPoints} results, newest
+     * last.
+     */
+    public Mono<Map<String, Object>> health(int trendPoints) {
+        return fresh().then(Mono.fromSupplier(() -> {
+            Map<String, Object> components = new LinkedHashMap<>();
+            boolean healthy = true;
+            for (String name : histories.keySet()) {
+                Map<String, Object> component = describe(name, trendPoints);
+                components.put(name, component);
+                healthy &= !Boolean.TRUE.equals(component.get("critical")) || "UP".equals(component.get("status"));
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", healthy ? "UP" : "DOWN");
+            result.put("checkedAt", String.valueOf(lastRound));
+            result.put("components", components);
+            return result;
+        }));
+    }
+
+    /**
+     * Health of one dependency; empty if there is no such dependency.
+     */
+    public Mono<Map<String, Object>> health(String name, int trendPoints) {
+        if (!histories.containsKey(name)) {
+            return Mono.empty();
+        }
+        return fresh().then(Mono.fromSupplier(() -> describe(name, trendPoints)));
+    }
+
+    public Set<String> dependencies() {
+        return histories.keySet();
+    }
+
+    private Mono<Void> fresh() {
+        return isFresh() ? Mono.empty() : probe();
+    }
+
+    private Mono<Sample> probe(String name) {
+        Duration timeout = mcpServerConfig.getHealthProbe().getTimeout();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return checks.get(name).get()
+                    .timeout(timeout)
+                    .map(detail -> new Sample(Instant.now(), true, System.nanoTime() - start, detail))
+                    .onErrorResume(e -> Mono.just(new Sample(Instant.now(), false, System.nanoTime() - start, describeError(e))));
+        }).doOnNext(sample -> record(name, sample));
+    }
+
+    private void record(String name, Sample sample) {
+        histories.get(name).add(sample);
+        Timer.builder(PROBE_TIMER)
+                .tag("dependency", name)
+                .tag("outcome", sample.up() ? "up" : "down")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(sample.latencyNanos(), TimeUnit.NANOSECONDS);
+        if (!sample.up()) {
+            log.warn("Health probe of {} failed after {} ms: {}", name, sample.latencyNanos() / 1_000_000, sample.detail());
+        }
+    }
+
+    private Mono<String> httpCheck(WebClient client) {
+        return client.get()
+                .uri(mcpServerConfig.getHealthProbe().getHttpPath())
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> "HTTP " + response.getStatusCode().value());
+    }
+
+    /**
+     * Look up the regions of a user that does not exist. The server answers
+     * with a result or an application error; either shows that it is up.
+     */
+    private Mono<String> grpcCheck(RegionApiGrpc.RegionApiStub regionApiStub) {
+        McpServerConfig.HealthProbe config = mcpServerConfig.getHealthProbe();
+        GetUserRegionRequest request = GetUserRegionRequest.newBuilder().setUserEmail(config.getGrpcProbeEmail()).build();
+        return Mono.<GetUserRegionResponse>create(sink -> regionApiStub
+                        .withDeadlineAfter(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .getUserRegion(request, observer(sink)))
+                .thenReturn("gRPC OK")
+                .onErrorResume(StatusRuntimeException.class, DependencyHealthProber::answered);
+    }
+
+    /**
+     * Ask the server's health service about the server as a whole. Only
+     * {@code SERVING} is up; a server without the health service still
+     * answered, like the RegionApi probe's application errors.
+     */
+    private Mono<String> grpcHealthCheck(HealthGrpc.HealthStub healthStub) {
+        long timeoutMillis = mcpServerConfig.getHealthProbe().getTimeout().toMillis();
+        return Mono.<HealthCheckResponse>create(sink -> healthStub
+                        .withDeadlineAfter(timeoutMillis, TimeUnit.MILLISECONDS)
+                        .check(HealthCheckRequest.getDefaultInstance(), observer(sink)))
+                .flatMap(response -> response.getStatus() == HealthCheckResponse.ServingStatus.SERVING
+                        ? Mono.just("gRPC SERVING")
+                        : Mono.<String>error(Status.UNAVAILABLE.withDescription("health " + response.getStatus()).asRuntimeException()))
+                .onErrorResume(StatusRuntimeException.class, DependencyHealthProber::answered);
+    }
+
+    private static Mono<String> answered(StatusRuntimeException e) {
+        return GRPC_DOWN.contains(e.getStatus().getCode())
+                ? Mono.error(e)
+                : Mono.just("gRPC " + e.getStatus().getCode());
+    }
+
+    private static <T> StreamObserver<T> observer(MonoSink<T> sink) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {
+                sink.success(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sink.error(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                sink.success();
+            }
+        };
+    }
+
+    private Map<String, Object> describe(String name, int trendPoints) {
+        List<Sample> samples = histories.get(name).samples();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("critical", !mcpServerConfig.getHealthProbe().getOptional().contains(name));
+        if (samples.isEmpty()) {
+            result.put("status", "UNKNOWN");
+            return result;
+        }
+
+        Sample last = samples.get(samples.size() - 1);
+        long up = samples.stream().filter(Sample::up).count();
+        long[] latencies = samples.stream().mapToLong(Sample::latencyNanos).sorted().toArray();
+
+        result.put("status", last.up() ? "UP" : "DOWN");
+        result.put("lastCheck", last.at().toString());
+        result.put("latencyMs", millis(last.latencyNanos()));
+        result.put(last.up() ? "details" : "error", last.detail());
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(percentile(latencies, 0.50)));
+        latency.put("p95", millis(percentile(latencies, 0.95)));
+        latency.put("p99", millis(percentile(latencies, 0.99)));
+        latency.put("max", millis(latencies[latencies.length - 1]));
+        result.put("latencyPercentilesMs", latency);
+        result.put("availability", Math.round((double) up / samples.size() * 10000.0) / 100.0);
+        result.put("samples", samples.size());
+        result.put("since", samples.get(0).at().toString());
+
+        List<Map<String, Object>> trend = new ArrayList<>();
+        for (Sample sample : samples.subList(Math.max(0, samples.size() - Math.max(0, trendPoints)), samples.size())) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("at", sample.at().toString());
+            point.put("status", sample.up() ? "UP" : "DOWN");
+            point.put("latencyMs", millis(sample.latencyNanos()));
+            trend.add(point);
+        }
+        result.put("trend", trend);
+        return result;
+    }
+
+    private static String describeError(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return "HTTP " + response.getStatusCode().value();
+        }
+        if (e instanceof StatusRuntimeException grpc) {
+            return "gRPC " + grpc.getStatus().getCode()
+                    + (grpc.getStatus().getDescription() != null ? ": " + grpc.getStatus().getDescription() : "");
+        }
+        if (e instanceof TimeoutException) {
+            return "Timed out";
+        }
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    /**
+     * Ring of the most recent samples of one dependency.
+     */
+    private static final class History {
+
+        private final Sample[] ring;
+        private int next;
+        private int size;
+
+        History(int capacity) {
+            this.ring = new Sample[capacity];
+        }
+
+        synchronized void add(Sample sample) {
+            ring[next] = sample;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+        }
+
+        /**
+         * Oldest first.
+         */
+        synchronized List<Sample> samples() {
+            Sample[] copy = new Sample[size];
+            int start = (next - size + ring.length) % ring.length;
+            for (int i = 0; i < size; i++) {
+                copy[i] = ring[(start + i) % ring.length];
+            }
+            return Arrays.asList(copy);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.thousandeyes.cui.mcp.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces sync error messages to templates by replacing the parts that differ
+ * between occurrences of the same error (UUIDs, timestamps, emails, quoted
+ * values, hex and decimal numbers) with placeholders.
+ */
+final class ErrorTemplates {
+
+    static final String NO_MESSAGE = "<no error message>";
+
+    private static final int MAX_LENGTH = 300;
+    // Only the start of long messages (stack traces) is looked at
+    private static final int MAX_INPUT_LENGTH = 2000;
+
+    // Applied in order: UUIDs and timestamps before the numbers inside them
+    private static final Pattern[] PATTERNS = {
+            Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b"),
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[+-]\\d{2}:?\\d{2})?"),
+            Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)+"),
+            Pattern.compile("'[^']*'|\"[^\"]*\""),
+            Pattern.compile("\\b(0x)?(?=[0-9a-fA-F]*\\d)(?=[0-9a-fA-F]*[a-fA-F])[0-9a-fA-F]{8,}\\b"),
+            Pattern.compile("\\d+")
+    };
+
+    private static final String[] PLACEHOLDERS = {"<uuid>", "<time>", "<email>", "'<value>'", "<hex>", "<n>"};
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ErrorTemplates() {
+    }
+
+    static String of(String message) {
+        if (message == null || message.isBlank()) {
+            return NO_MESSAGE;
+        }
+        String template = message.length() > MAX_INPUT_LENGTH ? message.substring(0, MAX_INPUT_LENGTH) : message;
+        for (int i = 0; i < PATTERNS.length; i++) {
+            template = PATTERNS[i].matcher(template).replaceAll(PLACEHOLDERS[i]);
+        }
+        template = WHITESPACE.matcher(template).replaceAll(" ").trim();
+        return template.length() > MAX_LENGTH ? template.substring(0, MAX_LENGTH) + "..." : template;
+    }
+}
@@ -0,0 +1,211 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of {@code tb_organization_feature_flags}: one compressed
+ * bitmap of org IDs per feature ID.
+ *
+ * Loaded once at startup and refreshed every
+ * {@code mcp.server.feature-flags.refresh-interval}. A refresh reads only the
+ * two ID columns, rebuilds the bitmaps off to the side and swaps in a new
+ * snapshot; bitmaps whose contents did not change are carried over as-is.
+ * Readers never lock: {@link #contains} is a binary search over the feature
+ * IDs and a bitmap probe, with no allocation.
+ *
+ * Until the first load succeeds (or when the index is disabled)
+ * {@link #isReady()} is false and callers query the table instead.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FeatureFlagIndex implements SmartInitializingSingleton {
+
+    private static final String LOAD_SQL = """
+        SELECT feature_id, org_id FROM te_admin.tb_organization_feature_flags
+    """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+
+    private volatile Snapshot snapshot;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!mcpServerConfig.getFeatureFlags().isEnabled()) {
+            log.info("Feature flag index disabled, flag checks query the database");
+            return;
+        }
+        refresh();
+    }
+
+    /**
+     * Reload the table and swap in the new snapshot. Failures keep the
+     * previous snapshot.
+     */
+    @Scheduled(initialDelayString = "#{@mcpServerConfig.featureFlags.refreshInterval.toMillis()}",
+            fixedDelayString = "#{@mcpServerConfig.featureFlags.refreshInterval.toMillis()}")
+    public void refresh() {
+        if (!mcpServerConfig.getFeatureFlags().isEnabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Map<Integer, RoaringBitmap> loaded = new TreeMap<>();
+            long[] skipped = new long[1];
+            jdbcTemplate.query(LOAD_SQL, new MapSqlParameterSource(), rs -> {
+                long orgId = rs.getLong("org_id");
+                if (orgId < 0 || orgId > Integer.MAX_VALUE) {
+                    skipped[0]++;
+                    return;
+                }
+                loaded.computeIfAbsent(rs.getInt("feature_id"), featureId -> new RoaringBitmap()).add((int) orgId);
+            });
+
+            Snapshot previous = snapshot;
+            Snapshot updated = Snapshot.of(loaded, previous);
+            this.snapshot = updated;
+
+            if (skipped[0] > 0) {
+                log.warn("Skipped {} feature flag rows with org IDs outside the int range", skipped[0]);
+            }
+            log.info("Feature flag index refreshed in {} ms: {} features, {} flags, {} features changed",
+                    (System.nanoTime() - start) / 1_000_000, updated.featureIds.length, updated.flagCount(),
+                    previous == null ? updated.featureIds.length : updated.changedFrom(previous));
+        } catch (Exception e) {
+            log.warn("Feature flag index refresh failed, keeping the {} snapshot: {}",
+                    snapshot == null ? "empty" : "previous", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and can answer lookups.
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Whether the feature is enabled for the org. Only meaningful once
+     * {@link #isReady()}.
+     */
+    public boolean contains(int featureId, long orgId) {
+        Snapshot current = snapshot;
+        if (current == null || orgId < 0 || orgId > Integer.MAX_VALUE) {
+            return false;
+        }
+        RoaringBitmap orgs = current.bitmap(featureId);
+        return orgs != null && orgs.contains((int) orgId);
+    }
+
+    /**
+     * Feature IDs enabled for the org, in ascending order.
+     */
+    public List<Integer> featuresOf(long orgId) {
+        Snapshot current = requireSnapshot();
+        List<Integer> features = new ArrayList<>();
+        if (orgId < 0 || orgId > Integer.MAX_VALUE) {
+            return features;
+        }
+        for (int i = 0; i < current.featureIds.length; i++) {
+            if (current.bitmaps[i].contains((int) orgId)) {
+                features.add(current.featureIds[i]);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Org IDs that have the feature, in ascending order.
+     */
+    public int[] orgsWith(int featureId) {
+        RoaringBitmap orgs = requireSnapshot().bitmap(featureId);
+        return orgs == null ? new int[0] : orgs.toArray();
+    }
+
+    private Snapshot requireSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Feature flag index is not loaded");
+        }
+        return current;
+    }
+
+    /**
+     * Feature IDs sorted ascending, with the matching bitmaps at the same
+     * index. Never modified once published.
+     */
+    private static final class Snapshot {
+
+        private final int[] featureIds;
+        private final RoaringBitmap[] bitmaps;
+
+        private Snapshot(int[] featureIds, RoaringBitmap[] bitmaps) {
+            this.featureIds = featureIds;
+            this.bitmaps = bitmaps;
+        }
+
+        static Snapshot of(Map<Integer, RoaringBitmap> loaded, Snapshot previous) {
+            int[] featureIds = new int[loaded.size()];
+            RoaringBitmap[] bitmaps = new RoaringBitmap[loaded.size()];
+            int i = 0;
+            for (Map.Entry<Integer, RoaringBitmap> entry : loaded.entrySet()) {
+                RoaringBitmap orgs = entry.getValue();
+                // Optimize first: equals compares containers, and the previous bitmap was optimized too
+                orgs.runOptimize();
+                RoaringBitmap unchanged = previous == null ? null : previous.bitmap(entry.getKey());
+                if (orgs.equals(unchanged)) {
+                    orgs = unchanged;
+                }
+                featureIds[i] = entry.getKey();
+                bitmaps[i] = orgs;
+                i++;
+            }
+            return new Snapshot(featureIds, bitmaps);
+        }
+
+        RoaringBitmap bitmap(int featureId) {
+            int i = Arrays.binarySearch(featureIds, featureId);
+            return i < 0 ? null : bitmaps[i];
+        }
+
+        long flagCount() {
+            long count = 0;
+            for (RoaringBitmap orgs : bitmaps) {
+                count += orgs.getLongCardinality();
+            }
+            return count;
+        }
+
+        int changedFrom(Snapshot previous) {
+            int changed = 0;
+            for (int i = 0; i < featureIds.length; i++) {
+                if (previous.bitmap(featureIds[i]) != bitmaps[i]) {
+                    changed++;
+                }
+            }
+            // Features that lost their last flag
+            for (int featureId : previous.featureIds) {
+                if (bitmap(featureId) == null) {
+                    changed++;
+                }
+            }
+            return changed;
+        }
+    }
+}
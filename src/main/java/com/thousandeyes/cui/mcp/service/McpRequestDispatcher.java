@@ -0,0 +1,298 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+import com.thousandeyes.cui.mcp.model.mcp.McpRequest;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches JSON-RPC requests to the matching MCP method handler.
+ *
+ * Dispatch is reactive: tool calls go through
+ * {@link McpToolService#executeToolAsync}, so no thread is held while
+ * downstream calls are in flight. Batches run their entries concurrently,
+ * capped per batch, and are answered in request order. Blocking variants are
+ * kept for transports that own their worker threads (stdio, SSE).
+ *
+ * Transports that can push messages back to the client while a request is
+ * in flight (SSE, stdio) pass a notification consumer; tool calls then report
+ * progress and partial output through it. Requests that carry the ID of an
+ * open session can subscribe it to resources, whose updates are delivered on
+ * the session's own stream.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class McpRequestDispatcher {
+
+    public static final String PROTOCOL_VERSION = "2024-11-05";
+
+    private final McpToolService mcpToolService;
+    private final McpServerConfig mcpServerConfig;
+    private final ObjectMapper objectMapper;
+    private final SyncRetryChangeFeed syncRetryChangeFeed;
+
+    /**
+     * Dispatch a raw JSON-RPC message, which is either a single request
+     * object or a batch array. Blocks until the response is ready.
+     *
+     * @return a {@link McpResponse}, a list of responses for a batch, or
+     *         {@code null} when nothing needs to be sent back
+     */
+    public Object dispatchMessage(JsonNode body) {
+        return dispatchMessage(body, null);
+    }
+
+    /**
+     * Dispatch a raw JSON-RPC message, sending progress and partial tool
+     * output to {@code notifications} while it runs. Blocks until the
+     * response is ready.
+     */
+    public Object dispatchMessage(JsonNode body, Consumer<McpNotification> notifications) {
+        return dispatchMessage(body, null, notifications);
+    }
+    
+    /**
+     * Dispatch a raw JSON-RPC message on behalf of session {@code sessionId}
+     * (which may be {@code null}), sending progress and partial tool output
+     * to {@code notifications} while it runs. Blocks until the response is
+     * ready.
+     */
+    public Object dispatchMessage(JsonNode body, String sessionId, Consumer<McpNotification> notifications) {
+        return dispatchMessageAsync(body, sessionId, notifications).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #dispatchMessage(JsonNode)}. Completes
+     * empty when nothing needs to be sent back.
+     */
+    public Mono<Object> dispatchMessageAsync(JsonNode body) {
+        return dispatchMessageAsync(body, null, null);
+    }
+
+    /**
+     * Non-blocking variant of {@link #dispatchMessage(JsonNode)} on behalf of
+     * session {@code sessionId}, which may be {@code null}.
+     */
+    public Mono<Object> dispatchMessageAsync(JsonNode body, String sessionId) {
+        return dispatchMessageAsync(body, sessionId, null);
+    }
+
+    private Mono<Object> dispatchMessageAsync(JsonNode body, String sessionId, Consumer<McpNotification> notifications) {
+        if (body.isArray()) {
+            if (body.isEmpty()) {
+                return Mono.just(McpResponse.error(null, McpResponse.McpError.INVALID_REQUEST, "Empty batch"));
+            }
+
+            List<McpRequest> requests = new ArrayList<>(body.size());
+            for (JsonNode node : body) {
+                requests.add(toRequest(node));
+            }
+
+            return dispatchBatchAsync(requests, sessionId, notifications)
+                    .filter(responses -> !responses.isEmpty())
+                    .cast(Object.class);
+        }
+
+        return dispatchAsync(toRequest(body), sessionId, notifications).cast(Object.class);
+    }
+
+    /**
+     * Dispatch a single request. Blocks until the response is ready.
+     *
+     * @return the response, or {@code null} when the request is a notification
+     */
+    public McpResponse dispatch(McpRequest request) {
+        return dispatchAsync(request, null, null).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #dispatch(McpRequest)}. Completes empty
+     * when the request is a notification.
+     */
+    public Mono<McpResponse> dispatchAsync(McpRequest request) {
+        return dispatchAsync(request, null, null);
+    }
+
+    /**
+     * A request without an ID is a notification: it is handled, but nothing
+     * is sent back, not even an error.
+     */
+    private Mono<McpResponse> dispatchAsync(McpRequest request, String sessionId, Consumer<McpNotification> notifications) {
+        String method = request.getMethod();
+        if (method == null || method.isBlank()) {
+            return Mono.just(McpResponse.error(request.getId(), McpResponse.McpError.INVALID_REQUEST, "Missing method"));
+        }
+
+        if (request.getId() == null) {
+            log.debug("MCP notification received: {}", method);
+            if (method.startsWith("notifications/")) {
+                return Mono.empty();
+            }
+            return handle(request, sessionId, notifications)
+                    .onErrorResume(e -> {
+                        log.warn("Notification {} failed: {}", method, e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then(Mono.<McpResponse>empty());
+        }
+
+        return handle(request, sessionId, notifications);
+    }
+
+    private Mono<McpResponse> handle(McpRequest request, String sessionId, Consumer<McpNotification> notifications) {
+        String method = request.getMethod();
+        return switch (method) {
+            case "initialize" -> Mono.fromSupplier(() -> initialize(request));
+            case "tools/list" -> Mono.fromSupplier(() -> listTools(request));
+            case "tools/call" -> callTool(request, notifications);
+            case "resources/list" -> Mono.just(McpResponse.success(request.getId(),
+                    Map.of("resources", syncRetryChangeFeed.resources())));
+            case "resources/read", "resources/subscribe", "resources/unsubscribe" ->
+                    Mono.fromSupplier(() -> handleResource(request, sessionId));
+            case "ping" -> Mono.just(McpResponse.success(request.getId(), Map.of()));
+            default -> Mono.just(McpResponse.error(request.getId(), McpResponse.McpError.METHOD_NOT_FOUND,
+                    "Method not found: " + method));
+        };
+    }
+
+    /**
+     * Dispatch a JSON-RPC batch. Blocks until every entry has completed.
+     * Responses keep the order of the requests; notifications produce no entry.
+     */
+    public List<McpResponse> dispatchBatch(List<McpRequest> requests) {
+        return dispatchBatchAsync(requests, null, null).block();
+    }
+
+    private Mono<List<McpResponse>> dispatchBatchAsync(List<McpRequest> requests, String sessionId,
+            Consumer<McpNotification> notifications) {
+        McpServerConfig.Tools.Batch batch = mcpServerConfig.getTools().getBatch();
+        if (requests.size() > batch.getMaxSize()) {
+            return Mono.just(List.of(McpResponse.error(null, McpResponse.McpError.INVALID_REQUEST,
+                    "Batch size " + requests.size() + " exceeds limit of " + batch.getMaxSize())));
+        }
+
+        log.info("MCP batch request received with {} entries", requests.size());
+
+        // flatMapSequential subscribes up to maxConcurrency entries at once but
+        // emits in source order; Optional keeps notifications from shifting slots
+        return Flux.fromIterable(requests)
+                .flatMapSequential(request -> dispatchAsync(request, sessionId, notifications)
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty())
+                                .onErrorResume(e -> {
+                                    log.error("Batch entry failed: {}", request.getMethod(), e);
+                                    return Mono.just(Optional.of(McpResponse.error(request.getId(),
+                                            McpResponse.McpError.INTERNAL_ERROR, "Internal error: " + e.getMessage())));
+                                }),
+                        Math.max(1, batch.getMaxConcurrency()))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collectList();
+    }
+
+    private McpRequest toRequest(JsonNode node) {
+        try {
+            return objectMapper.treeToValue(node, McpRequest.class);
+        } catch (Exception e) {
+            log.warn("Invalid JSON-RPC request: {}", e.getMessage());
+            // Leave method unset so dispatch answers with Invalid Request
+            Object id = node.isObject() ? objectMapper.convertValue(node.get("id"), Object.class) : null;
+            return McpRequest.builder().id(id).build();
+        }
+    }
+
+    private McpResponse initialize(McpRequest request) {
+        log.info("MCP initialization request received");
+
+        Map<String, Object> result = Map.of(
+            "protocolVersion", PROTOCOL_VERSION,
+            "capabilities", Map.of(
+                "tools", Map.of("listChanged", true),
+                "resources", Map.of("subscribe", true, "listChanged", false)
+            ),
+            "serverInfo", Map.of(
+                "name", "CUI Integration MCP Server",
+                "version", "1.0.0"
+            )
+        );
+
+        return McpResponse.success(request.getId(), result);
+    }
+
+    private McpResponse listTools(McpRequest request) {
+        log.info("MCP tools list request received");
+
+        try {
+            return McpResponse.success(request.getId(), Map.of("tools", mcpToolService.getToolCatalog().json()));
+        } catch (Exception e) {
+            log.error("Error listing tools", e);
+            return McpResponse.error(request.getId(), -1, "Failed to list tools: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@code resources/read}, {@code resources/subscribe} and
+     * {@code resources/unsubscribe}. Reads are served from memory.
+     */
+    private McpResponse handleResource(McpRequest request, String sessionId) {
+        String uri = request.getParams() != null ? request.getParams().getUri() : null;
+        if (uri == null || uri.isBlank()) {
+            return McpResponse.error(request.getId(), McpResponse.McpError.INVALID_PARAMS, "Missing resource uri");
+        }
+        
+        try {
+            switch (request.getMethod()) {
+                case "resources/read" -> {
+                    Map<String, Object> content = Map.of(
+                        "uri", uri,
+                        "mimeType", "application/json",
+                        "text", objectMapper.writeValueAsString(syncRetryChangeFeed.read(uri))
+                    );
+                    return McpResponse.success(request.getId(), Map.of("contents", List.of(content)));
+                }
+                case "resources/subscribe" -> syncRetryChangeFeed.subscribe(sessionId, uri);
+                default -> syncRetryChangeFeed.unsubscribe(sessionId, uri);
+            }
+            return McpResponse.success(request.getId(), Map.of());
+        } catch (IllegalArgumentException e) {
+            return McpResponse.error(request.getId(), McpResponse.McpError.INVALID_PARAMS, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error handling {}", request.getMethod(), e);
+            return McpResponse.error(request.getId(), McpResponse.McpError.INTERNAL_ERROR, "Internal error: " + e.getMessage());
+        }
+    }
+    
+    private Mono<McpResponse> callTool(McpRequest request, Consumer<McpNotification> notifications) {
+        McpRequest.McpParams params = request.getParams();
+        if (params == null || params.getName() == null) {
+            return Mono.just(McpResponse.error(request.getId(), McpResponse.McpError.INVALID_PARAMS, "Missing tool name"));
+        }
+
+        log.info("MCP tool call request received: {}", params.getName());
+
+        Map<String, Object> arguments = params.getArguments() != null ? params.getArguments() : Map.of();
+        ToolOutputSink sink = notifications == null ? ToolOutputSink.NONE
+                : new NotifyingToolOutputSink(request.getId(), params.progressToken(), params.partialOutput(), notifications);
+
+        return mcpToolService.executeToolAsync(params.getName(), arguments, sink)
+                .map(result -> McpResponse.success(request.getId(), result))
+                .onErrorResume(e -> {
+                    log.error("Error executing tool", e);
+                    return Mono.just(McpResponse.error(request.getId(), -1, "Tool execution failed: " + e.getMessage()));
+                });
+    }
+}
@@ -1,437 +1,281 @@
 package com.thousandeyes.cui.mcp.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
 import com.thousandeyes.cui.mcp.model.mcp.McpTool;
 import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.tool.RegisteredTool;
+import com.thousandeyes.cui.mcp.tool.ToolCatalog;
+import com.thousandeyes.cui.mcp.tool.ToolRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Service for orchestrating MCP tool operations.
+ * 
+ * Tools are the {@code @McpToolHandler} methods collected by {@link ToolRegistry}.
+ * 
+ * With {@code mcp.server.tools.result-format: structured} the tool's return
+ * value is placed in {@code structuredContent} and serialized once, together
+ * with the rest of the response; the text content only carries a short
+ * summary. The default {@code text} format embeds the JSON as a string.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class McpToolService {
     
-    private final UserService userService;
-    private final OrganizationService organizationService;
-    private final SyncService syncService;
-    private final MonitoringService monitoringService;
-    private final AccountManagementGrpcService accountManagementService;
+    private final ToolRegistry toolRegistry;
+    private final McpServerConfig mcpServerConfig;
+    private final Scheduler jdbcScheduler;
+    private final ToolPermits toolPermits;
+    private final ObjectMapper objectMapper;
+    private final ToolMetrics toolMetrics;
+    private final ToolResultCache toolResultCache;
+    private final ToolCallCoalescer toolCallCoalescer;
     
     /**
      * Get all available MCP tools.
      */
     public List<McpTool> getAvailableTools() {
-        return List.of(
-            // User Management Tools
-            createUserTool("get_user_by_id", "Retrieve user details by UID or email"),
-            createUserTool("get_user_organizations", "Get all organizations a user belongs to"),
-            // createUserTool("sync_user_profile", "Synchronize user profile information"),
-            // createUserTool("create_user_in_tenant", "Create user in CUI tenant"),
-            // createUserTool("sync_user_tenants", "Sync user across all their tenants"),
-            createUserTool("get_user_cui_metadata", "Retrieve CUI-specific user metadata"),
-            
-            // Organization Management Tools
-            createOrgTool("get_organization_details", "Retrieve organization information"),
-            createOrgTool("get_cui_tenant_details", "Get CUI tenant configuration for organization"),
-            createOrgTool("check_tenant_control_enabled", "Verify if CUI tenant control is active"),
-            // createOrgTool("set_password_policy", "Configure organization password policies"),
-            createOrgTool("get_tenant_mapping_status", "Check tenant mapping synchronization status"),
-            
-            // Sync Management Tools
-            createSyncTool("get_sync_retry_status", "Monitor failed synchronization attempts"),
-            // createSyncTool("trigger_user_sync_retry", "Manually retry failed user synchronizations"),
-            // createSyncTool("trigger_org_sync_retry", "Manually retry failed organization synchronizations"),
-            createSyncTool("get_sync_metrics", "Retrieve synchronization performance metrics"),
-            // createSyncTool("clear_retry_queue", "Clear specific retry entries"),
-            
-
-            //Account Management Tools
-            createAccountTool("get_user_regions", "Get all regions a user belongs to"),
-
-            // Monitoring Tools
-            createMonitoringTool("get_service_health", "Check service health and dependencies"),
-            createMonitoringTool("get_sync_statistics", "Retrieve synchronization statistics and trends"),
-            createMonitoringTool("get_kafka_stream_status", "Monitor Kafka streams health"),
-            createMonitoringTool("get_database_connectivity", "Check database connection status"),
-            createMonitoringTool("get_external_service_status", "Verify external service connectivity")
-        );
+        return toolRegistry.catalog().tools();
     }
     
     /**
-     * Execute an MCP tool with the given arguments.
+     * The available tools with their pre-encoded JSON and ETag.
      */
-    public McpResponse.ToolResult executeTool(String toolName, Map<String, Object> arguments) {
-        try {
-            log.info("Executing tool: {} with arguments: {}", toolName, arguments);
-            
-            // Map generic 'identifier' parameter to specific parameter names expected by service methods
-            Map<String, Object> mappedArguments = mapArgumentsForTool(toolName, arguments);
-            
-            Object result = switch (toolName) {
-                // User Management Tools
-                case "get_user_by_id" -> userService.getUserById(mappedArguments);
-                case "get_user_organizations" -> userService.getUserOrganizations(mappedArguments);
-                // case "sync_user_profile" -> userService.syncUserProfile(mappedArguments);
-                // case "create_user_in_tenant" -> userService.createUserInTenant(mappedArguments);
-                // case "sync_user_tenants" -> userService.syncUserTenants(mappedArguments);
-                case "get_user_cui_metadata" -> userService.getUserCuiMetadata(mappedArguments);
-                
-                // Organization Management Tools
-                case "get_organization_details" -> organizationService.getOrganizationDetails(mappedArguments);
-                case "get_cui_tenant_details" -> organizationService.getCuiTenantDetails(mappedArguments);
-                case "check_tenant_control_enabled" -> organizationService.checkTenantControlEnabled(mappedArguments);
-                // case "set_password_policy" -> organizationService.setPasswordPolicy(mappedArguments);
-                case "get_tenant_mapping_status" -> organizationService.getTenantMappingStatus(mappedArguments);
-                
-                // Sync Management Tools
-                case "get_sync_retry_status" -> syncService.getSyncRetryStatus(mappedArguments);
-                // case "trigger_user_sync_retry" -> syncService.triggerUserSyncRetry(mappedArguments);
-                // case "trigger_org_sync_retry" -> syncService.triggerOrgSyncRetry(mappedArguments);
-                case "get_sync_metrics" -> syncService.getSyncMetrics(mappedArguments);
-                // case "clear_retry_queue" -> syncService.clearRetryQueue(mappedArguments);
-                
-                // Account Management Tools
-                case "get_user_regions" -> accountManagementService.getUserRegions(mappedArguments);
-                
-                // Monitoring Tools
-                case "get_service_health" -> monitoringService.getServiceHealth(mappedArguments);
-                case "get_sync_statistics" -> monitoringService.getSyncStatistics(mappedArguments);
-                case "get_kafka_stream_status" -> monitoringService.getKafkaStreamStatus(mappedArguments);
-                case "get_database_connectivity" -> monitoringService.getDatabaseConnectivity(mappedArguments);
-                case "get_external_service_status" -> monitoringService.getExternalServiceStatus(mappedArguments);
-                
-                default -> throw new IllegalArgumentException("Unknown tool: " + toolName);
-            };
-            
-            return McpResponse.ToolResult.builder()
-                    .content(List.of(McpResponse.ToolResult.Content.builder()
-                            .type("text")
-                            .text(formatResult(result))
-                            .build()))
-                    .isError(false)
-                    .build();
-                    
-        } catch (Exception e) {
-            log.error("Error executing tool: {}", toolName, e);
-            return McpResponse.ToolResult.builder()
-                    .content(List.of(McpResponse.ToolResult.Content.builder()
-                            .type("text")
-                            .text("Error: " + e.getMessage())
-                            .build()))
-                    .isError(true)
-                    .build();
-        }
+    public ToolCatalog getToolCatalog() {
+        return toolRegistry.catalog();
     }
     
     /**
-     * Map generic 'identifier' parameter to specific parameter names expected by service methods.
+     * Execute an MCP tool with the given arguments.
      */
-    private Map<String, Object> mapArgumentsForTool(String toolName, Map<String, Object> arguments) {
-        log.info("Mapping arguments for tool: {} with original arguments: {}", toolName, arguments);
-        Map<String, Object> mappedArguments = new java.util.HashMap<>(arguments);
-        
-        if (arguments.containsKey("identifier")) {
-            Object identifier = arguments.get("identifier");
-            
-            switch (toolName) {
-                // Organization Management Tools - map to org_id
-                case "get_organization_details", "get_cui_tenant_details", "check_tenant_control_enabled", 
-                     "set_password_policy", "get_tenant_mapping_status" -> {
-                    mappedArguments.put("org_id", identifier);
-                    mappedArguments.remove("identifier");
-                }
-                
-                // User Management Tools that need uid parameter
-                case "sync_user_profile", "create_user_in_tenant", "sync_user_tenants", "get_user_cui_metadata" -> {
-                    mappedArguments.put("uid", identifier);
-                    mappedArguments.remove("identifier");
-                }
-                
-                // User Management Tools that need user_email parameter  
-                case "get_user_organizations" -> {
-                    mappedArguments.put("user_email", identifier);
-                    mappedArguments.remove("identifier");
-                }
-                
-                // Account Management Tools that need email parameter
-                case "get_user_regions" -> {
-                    mappedArguments.put("email", identifier);
-                    mappedArguments.remove("identifier");
-                }
-                
-                // Other user tools (get_user_by_id) keep identifier as is
-                default -> {
-                    // No mapping needed - services already handle "identifier" parameter
-                }
-            }
-        }
-        
-        log.info("Final mapped arguments for tool {}: {}", toolName, mappedArguments);
-        return mappedArguments;
-    }
-    
-    private String formatResult(Object result) {
-        if (result == null) {
-            return "Operation completed successfully";
-        }
-        // Convert result to JSON string for display
-        try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(result);
-        } catch (Exception e) {
-            return result.toString();
-        }
-    }
-    
-    private McpTool createUserTool(String name, String description) {
-        return McpTool.builder()
-                .name(name)
-                .description(description)
-                .inputSchema(createInputSchema(name))
-                .build();
-    }
-    
-    private McpTool createOrgTool(String name, String description) {
-        return McpTool.builder()
-                .name(name)
-                .description(description)
-                .inputSchema(createInputSchema(name))
-                .build();
-    }
-    
-    private McpTool createSyncTool(String name, String description) {
-        return McpTool.builder()
-                .name(name)
-                .description(description)
-                .inputSchema(createInputSchema(name))
-                .build();
+    public McpResponse.ToolResult executeTool(String toolName, Map<String, Object> arguments) {
+        return executeTool(toolName, arguments, ToolOutputSink.NONE);
     }
     
-    private McpTool createMonitoringTool(String name, String description) {
-        return McpTool.builder()
-                .name(name)
-                .description(description)
-                .inputSchema(createInputSchema(name))
-                .build();
+    /**
+     * Execute an MCP tool, forwarding incremental output to the given sink.
+     * Blocks until the result is ready.
+     */
+    public McpResponse.ToolResult executeTool(String toolName, Map<String, Object> arguments, ToolOutputSink sink) {
+        return executeToolAsync(toolName, arguments, sink).block();
     }
     
-    private McpTool createAccountTool(String name, String description) {
-        return McpTool.builder()
-                .name(name)
-                .description(description)
-                .inputSchema(createInputSchema(name))
-                .build();
+    /**
+     * Execute an MCP tool without blocking the calling thread.
+     */
+    public Mono<McpResponse.ToolResult> executeToolAsync(String toolName, Map<String, Object> arguments) {
+        return executeToolAsync(toolName, arguments, ToolOutputSink.NONE);
     }
     
-    private McpTool.InputSchema createInputSchema(String toolName) {
-        return switch (toolName) {
-            // User Management Tools
-            case "get_user_by_id" -> createUserByIdSchema();
-            case "get_user_organizations" -> createUserOrganizationsSchema();
-            case "sync_user_profile" -> createSyncUserProfileSchema();
-            case "create_user_in_tenant" -> createUserInTenantSchema();
-            case "sync_user_tenants" -> createSyncUserTenantsSchema();
-            case "get_user_cui_metadata" -> createUserCuiMetadataSchema();
+    /**
+     * Execute an MCP tool without blocking the calling thread.
+     * 
+     * Handlers returning {@code Mono} (WebClient, async gRPC stub) are composed
+     * directly and take a downstream permit. Other handlers run on the JDBC
+     * scheduler once they hold a JDBC permit. The configured tool timeout
+     * applies to both.
+     * 
+     * Tools that can stream send their rows to the sink in chunks while the
+     * query is running. Each chunk is rendered once, sent and dropped; the
+     * final result carries the tool's own return value and the number of
+     * chunks sent, so memory does not grow with the result.
+     * 
+     * Results of read-only tools with a cache policy are served from
+     * {@link ToolResultCache}; a successful write tool drops the cached
+     * results it affects. Identical concurrent calls share one execution
+     * ({@link ToolCallCoalescer}). Each execution is recorded by
+     * {@link ToolMetrics}.
+     */
+    public Mono<McpResponse.ToolResult> executeToolAsync(String toolName, Map<String, Object> arguments, ToolOutputSink sink) {
+        return Mono.defer(() -> {
+            RegisteredTool tool = toolRegistry.get(toolName);
+            if (tool == null) {
+                return Mono.error(new IllegalArgumentException("Unknown tool: " + toolName));
+            }
             
-            // Organization Management Tools
-            case "get_organization_details" -> createOrgDetailsSchema();
-            case "get_cui_tenant_details" -> createCuiTenantDetailsSchema();
-            case "check_tenant_control_enabled" -> createTenantControlSchema();
-            case "set_password_policy" -> createPasswordPolicySchema();
-            case "get_tenant_mapping_status" -> createTenantMappingSchema();
+            log.info("Executing tool: {} with arguments: {}", toolName, arguments);
             
-            // Account Management Tools
-            case "get_user_regions" -> createUserRegionsSchema();
+            Supplier<Mono<McpResponse.ToolResult>> execution =
+                    () -> toolCallCoalescer.execute(tool, arguments, sink, () -> execute(tool, arguments, sink));
+            Mono<McpResponse.ToolResult> result = toolResultCache.isCached(toolName)
+                    ? toolResultCache.get(tool, arguments, execution)
+                    : execution.get();
             
-            // Default generic schema for other tools
-            default -> createGenericSchema();
-        };
-    }
-    
-    private McpTool.InputSchema createUserByIdSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User ID (numeric) or email address")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
-    }
-    
-    private McpTool.InputSchema createUserOrganizationsSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User's email address")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
-    }
-    
-    private McpTool.InputSchema createSyncUserProfileSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
-    }
-    
-    private McpTool.InputSchema createUserInTenantSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+            if (!tool.invalidates().isEmpty()) {
+                result = result.doOnNext(value -> toolResultCache.invalidate(tool));
+            }
+            return result;
+        })
+        .onErrorResume(e -> Mono.just(errorResult(toolName, e)));
     }
     
-    private McpTool.InputSchema createSyncUserTenantsSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+    private Mono<McpResponse.ToolResult> execute(RegisteredTool tool, Map<String, Object> arguments, ToolOutputSink sink) {
+        ToolMetrics.Call call = toolMetrics.start(tool.name(), arguments);
+        
+        Mono<McpResponse.ToolResult> result = invoke(tool, arguments, new StreamedContent(sink, call), call);
+        if (!tool.isComposite()) {
+            result = result.timeout(Duration.ofMillis(mcpServerConfig.getTools().getTimeout()));
+        }
+        return result
+                .doOnSuccess(value -> call.success())
+                .doOnError(call::failure)
+                .doOnCancel(call::cancel);
     }
     
-    private McpTool.InputSchema createUserCuiMetadataSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+    private Mono<McpResponse.ToolResult> invoke(RegisteredTool tool, Map<String, Object> arguments,
+            StreamedContent streamed, ToolMetrics.Call call) {
+        if (!tool.isAsync()) {
+            return Mono.fromCallable(() -> toolPermits.withJdbc(() -> toolMetrics.callAs(tool.name(), () -> {
+                        Object result = tool.invoke(arguments, streamed);
+                        call.addResult(result);
+                        return successResult(streamed.chunks(), result);
+                    })))
+                    .subscribeOn(jdbcScheduler);
+        }
+        
+        Mono<?> result;
+        try {
+            result = toolMetrics.callAs(tool.name(), () -> tool.invokeAsync(arguments, streamed));
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+        result = toolMetrics.subscribeAs(tool.name(), result);
+        // A composite tool's own calls take their permits; holding one for it as well could starve them
+        if (!tool.isComposite()) {
+            result = toolPermits.withDownstream(result);
+        }
+        return result
+                .doOnNext(call::addResult)
+                .map(value -> successResult(streamed.chunks(), value))
+                .switchIfEmpty(Mono.fromSupplier(() -> successResult(streamed.chunks(), null)));
     }
     
-    private McpTool.InputSchema createOrgDetailsSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Organization ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
+    private McpResponse.ToolResult successResult(long streamedChunks, Object result) {
+        List<McpResponse.ToolResult.Content> content = new ArrayList<>(2);
+        if (streamedChunks > 0) {
+            content.add(textContent(streamedChunks + " chunks sent as partial output"));
+        }
+        
+        if (result != null && "structured".equalsIgnoreCase(mcpServerConfig.getTools().getResultFormat())) {
+            content.add(textContent(summarize(result)));
+            return McpResponse.ToolResult.builder()
+                    .content(content)
+                    .structuredContent(isScalarOrList(result) ? Map.of("result", result) : result)
+                    .isError(false)
+                    .value(result)
+                    .build();
+        }
+        
+        content.add(textContent(formatResult(result)));
+        return McpResponse.ToolResult.builder()
+                .content(content)
+                .isError(false)
+                .value(result)
                 .build();
     }
     
-    private McpTool.InputSchema createCuiTenantDetailsSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Organization ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+    /**
+     * structuredContent must be a JSON object, so lists and plain values are
+     * wrapped under {@code result}.
+     */
+    private static boolean isScalarOrList(Object result) {
+        return result instanceof Collection<?> || result.getClass().isArray()
+                || result instanceof CharSequence || result instanceof Number || result instanceof Boolean;
     }
     
-    private McpTool.InputSchema createTenantControlSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Organization ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+    private static String summarize(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size() + " items in structuredContent";
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result) + " items in structuredContent";
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size() + " fields in structuredContent";
+        }
+        if (isScalarOrList(result)) {
+            return String.valueOf(result);
+        }
+        return result.getClass().getSimpleName() + " in structuredContent";
     }
     
-    private McpTool.InputSchema createPasswordPolicySchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Organization ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
+    private McpResponse.ToolResult errorResult(String toolName, Throwable e) {
+        log.error("Error executing tool: {}", toolName, e);
+        return McpResponse.ToolResult.builder()
+                .content(List.of(textContent("Error: " + e.getMessage())))
+                .isError(true)
                 .build();
     }
     
-    private McpTool.InputSchema createTenantMappingSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Organization ID")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
+    private static McpResponse.ToolResult.Content textContent(String text) {
+        return McpResponse.ToolResult.Content.builder()
+                .type("text")
+                .text(text)
                 .build();
     }
     
-    private McpTool.InputSchema createUserRegionsSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("User's email address")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of("identifier"))
-                .build();
+    /**
+     * Sink handed to streaming tools. Renders each chunk once, forwards it to
+     * the transport's sink and only counts it.
+     */
+    private class StreamedContent implements ToolOutputSink {
+        
+        private final ToolOutputSink downstream;
+        private final ToolMetrics.Call call;
+        private final AtomicLong chunks = new AtomicLong();
+        
+        StreamedContent(ToolOutputSink downstream, ToolMetrics.Call call) {
+            this.downstream = downstream;
+            this.call = call;
+        }
+        
+        @Override
+        public void progress(long progress, Long total, String message) {
+            downstream.progress(progress, total, message);
+        }
+        
+        @Override
+        public void partial(Object chunk) {
+            call.addResult(chunk);
+            downstream.partial(textContent(formatResult(chunk)));
+            chunks.incrementAndGet();
+        }
+        
+        @Override
+        public boolean isStreaming() {
+            return downstream.isStreaming();
+        }
+        
+        long chunks() {
+            return chunks.get();
+        }
     }
     
-    private McpTool.InputSchema createGenericSchema() {
-        Map<String, McpTool.InputSchema.Property> properties = Map.of(
-            "identifier", McpTool.InputSchema.Property.builder()
-                    .type("string")
-                    .description("Identifier parameter")
-                    .build()
-        );
-        return McpTool.InputSchema.builder()
-                .type("object")
-                .properties(properties)
-                .required(List.of())
-                .build();
+    private String formatResult(Object result) {
+        if (result == null) {
+            return "Operation completed successfully";
+        }
+        // Convert result to JSON string for display
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (Exception e) {
+            return result.toString();
+        }
     }
 }
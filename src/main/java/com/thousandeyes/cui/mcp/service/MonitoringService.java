@@ -1,15 +1,18 @@
 package com.thousandeyes.cui.mcp.service;
 
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -20,32 +23,32 @@ import java.util.Map;
 @Slf4j
 public class MonitoringService {
     
+    private static final int TREND_POINTS = 10;
+    
     private final NamedParameterJdbcTemplate jdbcTemplate;
-    private final DataSource dataSource;
-    private final WebClient cuiIntegrationServiceClient;
+    private final SyncRollups syncRollups;
+    private final DependencyHealthProber dependencyHealthProber;
     
-    public Map<String, Object> getServiceHealth(Map<String, Object> arguments) {
+    /**
+     * Health of the database and external services from the background
+     * probes, with latency percentiles and the recent trend of each.
+     */
+    @McpToolHandler(name = "get_service_health", description = "Check service health and dependencies")
+    public Mono<Map<String, Object>> getServiceHealth(
+            @McpToolParam(value = "trend_points", description = "Recent probe results to list per dependency", defaultValue = "10") Integer trendPoints) {
         log.info("Getting service health status");
         
-        Map<String, Object> databaseHealth = checkDatabaseHealth();
-        Map<String, Object> externalServiceHealth = checkExternalServiceHealth();
-        
-        boolean overallHealthy = (Boolean) databaseHealth.get("healthy") && 
-                                (Boolean) externalServiceHealth.get("healthy");
-        
-        return Map.of(
-            "status", overallHealthy ? "UP" : "DOWN",
-            "timestamp", LocalDateTime.now(),
-            "components", Map.of(
-                "database", databaseHealth,
-                "externalServices", externalServiceHealth
-            )
-        );
+        return dependencyHealthProber.health(trendPoints)
+                .map(health -> {
+                    Map<String, Object> result = new LinkedHashMap<>(health);
+                    result.put("timestamp", LocalDateTime.now());
+                    return result;
+                });
     }
     
-    public Map<String, Object> getSyncStatistics(Map<String, Object> arguments) {
-        String timeRange = (String) arguments.getOrDefault("time_range", "24h");
-        
+    @McpToolHandler(name = "get_sync_statistics", description = "Retrieve synchronization statistics and trends")
+    public Map<String, Object> getSyncStatistics(
+            @McpToolParam(value = "time_range", description = "One of 1h, 24h, 7d, 30d", defaultValue = "24h") String timeRange) {
         log.info("Getting sync statistics for time range: {}", timeRange);
         
         int hours = switch (timeRange) {
@@ -56,6 +59,37 @@ public class MonitoringService {
             default -> 24;
         };
         
+        Duration window = Duration.ofHours(hours);
+        if (syncRollups.covers(window)) {
+            long totalSyncs = 0;
+            long successfulSyncs = 0;
+            long failedSyncs = 0;
+            long retrySum = 0;
+            for (SyncRollups.Totals totals : syncRollups.totals(window)) {
+                totalSyncs += totals.entries();
+                retrySum += totals.retrySum();
+                if ("SUCCESS".equals(totals.series().status())) {
+                    successfulSyncs += totals.entries();
+                } else if ("FAILED".equals(totals.series().status())) {
+                    failedSyncs += totals.entries();
+                }
+            }
+            double successRate = totalSyncs > 0 ? (double) successfulSyncs / totalSyncs * 100 : 0;
+            double avgRetryCount = totalSyncs > 0 ? (double) retrySum / totalSyncs : 0;
+            
+            return Map.of(
+                "timeRange", timeRange,
+                "statistics", Map.of(
+                    "totalSyncs", Math.toIntExact(totalSyncs),
+                    "successfulSyncs", Math.toIntExact(successfulSyncs),
+                    "failedSyncs", Math.toIntExact(failedSyncs),
+                    "successRate", Math.round(successRate * 100.0) / 100.0,
+                    "avgRetryCount", Math.round(avgRetryCount * 100.0) / 100.0
+                ),
+                "timestamp", LocalDateTime.now()
+            );
+        }
+        
         // Get sync statistics from retry status table
         String sql = """
             SELECT 
@@ -93,7 +127,8 @@ public class MonitoringService {
         );
     }
     
-    public Map<String, Object> getKafkaStreamStatus(Map<String, Object> arguments) {
+    @McpToolHandler(name = "get_kafka_stream_status", description = "Monitor Kafka streams health")
+    public Map<String, Object> getKafkaStreamStatus() {
         log.info("Getting Kafka stream status");
         
         // In a real implementation, this would check actual Kafka stream metrics
@@ -116,128 +151,52 @@ public class MonitoringService {
         );
     }
     
-    public Map<String, Object> getDatabaseConnectivity(Map<String, Object> arguments) {
+    @McpToolHandler(name = "get_database_connectivity", description = "Check database connection status")
+    public Mono<Map<String, Object>> getDatabaseConnectivity() {
         log.info("Checking database connectivity");
         
-        return checkDatabaseHealth();
+        return dependencyHealthProber.health(DependencyHealthProber.DATABASE, TREND_POINTS);
     }
     
-    public Map<String, Object> getExternalServiceStatus(Map<String, Object> arguments) {
-        String serviceName = (String) arguments.get("service_name");
-        
+    @McpToolHandler(name = "get_external_service_status", description = "Verify external service connectivity")
+    @SuppressWarnings("unchecked")
+    public Mono<Map<String, Object>> getExternalServiceStatus(
+            @McpToolParam(value = "service_name", description = "Check only this service, e.g. CUI_INTEGRATION_SERVICE") String serviceName) {
         log.info("Getting external service status for: {}", serviceName);
         
         if (serviceName != null) {
-            return checkSpecificService(serviceName);
-        } else {
-            return checkExternalServiceHealth();
-        }
-    }
-    
-    private Map<String, Object> checkDatabaseHealth() {
-        try {
-            // Test database connection
-            try (Connection connection = dataSource.getConnection()) {
-                boolean isValid = connection.isValid(5); // 5 second timeout
-                
-                if (isValid) {
-                    // Test a simple query
-                    Integer result = jdbcTemplate.queryForObject(
-                            "SELECT 1", Map.of(), Integer.class);
-                    
-                    return Map.of(
-                        "healthy", true,
-                        "status", "UP",
-                        "responseTime", "< 100ms",
-                        "details", "Database connection successful"
-                    );
-                } else {
-                    return Map.of(
-                        "healthy", false,
-                        "status", "DOWN",
-                        "details", "Database connection invalid"
-                    );
-                }
+            String dependency = serviceName.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+            if ("ams".equals(dependency)) {
+                dependency = DependencyHealthProber.ACCOUNT_MANAGEMENT_GRPC;
             }
-        } catch (Exception e) {
-            log.error("Database health check failed", e);
-            return Map.of(
-                "healthy", false,
-                "status", "DOWN",
-                "error", e.getMessage()
-            );
-        }
-    }
-    
-    private Map<String, Object> checkExternalServiceHealth() {
-        try {
-            // Test CUI Integration Service health
-            String healthResponse = cuiIntegrationServiceClient
-                    .get()
-                    .uri("/actuator/health")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            return Map.of(
-                "healthy", true,
-                "status", "UP",
-                "services", Map.of(
-                    "cui-integration-service", Map.of(
-                        "status", "UP",
-                        "response", healthResponse != null ? "OK" : "No response"
-                    )
-                )
-            );
-        } catch (Exception e) {
-            log.error("External service health check failed", e);
-            return Map.of(
-                "healthy", false,
-                "status", "DOWN",
-                "services", Map.of(
-                    "cui-integration-service", Map.of(
-                        "status", "DOWN",
-                        "error", e.getMessage()
-                    )
-                )
-            );
-        }
-    }
-    
-    private Map<String, Object> checkSpecificService(String serviceName) {
-        try {
-            switch (serviceName.toUpperCase()) {
-                case "CUI_INTEGRATION_SERVICE":
-                case "CUI-INTEGRATION-SERVICE":
-                    String response = cuiIntegrationServiceClient
-                            .get()
-                            .uri("/actuator/health")
-                            .retrieve()
-                            .bodyToMono(String.class)
-                            .block();
-                    
-                    return Map.of(
-                        "serviceName", serviceName,
-                        "status", "UP",
-                        "responseTime", "< 500ms",
-                        "lastCheck", LocalDateTime.now()
-                    );
-                    
-                default:
-                    return Map.of(
+            return dependencyHealthProber.health(dependency, TREND_POINTS)
+                    .map(health -> {
+                        Map<String, Object> result = new LinkedHashMap<>();
+                        result.put("serviceName", serviceName);
+                        result.putAll(health);
+                        return result;
+                    })
+                    .defaultIfEmpty(Map.of(
                         "serviceName", serviceName,
                         "status", "UNKNOWN",
-                        "error", "Service not recognized"
-                    );
-            }
-        } catch (Exception e) {
-            log.error("Service health check failed for: {}", serviceName, e);
-            return Map.of(
-                "serviceName", serviceName,
-                "status", "DOWN",
-                "error", e.getMessage(),
-                "lastCheck", LocalDateTime.now()
-            );
+                        "error", "Service not recognized, expected one of " + dependencyHealthProber.dependencies()
+                    ));
         }
+        
+        return dependencyHealthProber.health(TREND_POINTS)
+                .map(health -> {
+                    Map<String, Object> services = new LinkedHashMap<>((Map<String, Object>) health.get("components"));
+                    services.remove(DependencyHealthProber.DATABASE);
+                    boolean healthy = services.values().stream()
+                            .map(service -> (Map<?, ?>) service)
+                            .allMatch(service -> !Boolean.TRUE.equals(service.get("critical")) || "UP".equals(service.get("status")));
+                    
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("healthy", healthy);
+                    result.put("status", healthy ? "UP" : "DOWN");
+                    result.put("checkedAt", health.get("checkedAt"));
+                    result.put("services", services);
+                    return result;
+                });
     }
 }
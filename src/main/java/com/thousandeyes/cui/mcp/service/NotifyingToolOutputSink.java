@@ -0,0 +1,66 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Turns incremental tool output into MCP notifications for one request.
+ *
+ * Progress is only reported when the client supplied a progress token, as
+ * required by the protocol. Partial content is sent as
+ * {@code notifications/tools/output}, tagged with the id of the request it
+ * belongs to, and only when the client opted in; the notification is not part
+ * of the MCP specification, so other clients get the rows in the result.
+ */
+class NotifyingToolOutputSink implements ToolOutputSink {
+    
+    static final String PROGRESS = "notifications/progress";
+    static final String TOOL_OUTPUT = "notifications/tools/output";
+    
+    private final Object requestId;
+    private final Object progressToken;
+    private final boolean partialOutput;
+    private final Consumer<McpNotification> notifications;
+    
+    NotifyingToolOutputSink(Object requestId, Object progressToken, boolean partialOutput,
+            Consumer<McpNotification> notifications) {
+        this.requestId = requestId;
+        this.progressToken = progressToken;
+        this.partialOutput = partialOutput;
+        this.notifications = notifications;
+    }
+    
+    @Override
+    public void progress(long progress, Long total, String message) {
+        if (progressToken == null) {
+            return;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total != null) {
+            params.put("total", total);
+        }
+        if (message != null) {
+            params.put("message", message);
+        }
+        notifications.accept(McpNotification.of(PROGRESS, params));
+    }
+    
+    @Override
+    public void partial(Object chunk) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("requestId", requestId);
+        params.put("content", List.of(chunk));
+        notifications.accept(McpNotification.of(TOOL_OUTPUT, params));
+    }
+    
+    @Override
+    public boolean isStreaming() {
+        return partialOutput;
+    }
+}
@@ -1,13 +1,20 @@
 package com.thousandeyes.cui.mcp.service;
 
 import com.thousandeyes.cui.mcp.model.dto.OrganizationDto;
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,14 +25,44 @@ import java.util.Map;
 @Slf4j
 public class OrganizationService {
     
+    // Phase 2 of the CUI integration
+    private static final int PHASE2_FEATURE_ID = 1073;
+    
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final WebClient cuiIntegrationServiceClient;
+    private final FeatureFlagIndex featureFlagIndex;
+    private final TenantMappingSnapshot tenantMappingSnapshot;
+    private final TenantResolver tenantResolver;
     
-    public OrganizationDto getOrganizationDetails(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        
+    @McpToolHandler(name = "get_organization_details", description = "Retrieve organization information")
+    public OrganizationDto getOrganizationDetails(
+            @McpToolParam(value = "identifier", aliases = "org_id", description = "Organization ID", required = true) Long orgId) {
         log.info("Getting organization details for org ID: {}", orgId);
         
+        TenantMappingSnapshot.TenantMapping mapping = tenantMappingSnapshot.byOrgId(orgId);
+        if (mapping != null) {
+            OrganizationDto organization = jdbcTemplate.queryForObject("""
+                SELECT o.org_id, o.organization_name, o.flag_cui_migrated, o.date_create, o.delete_time
+                FROM te_admin.tb_organizations o
+                WHERE o.org_id = :orgId
+            """, new MapSqlParameterSource("orgId", orgId), (rs, rowNum) ->
+                OrganizationDto.builder()
+                        .orgId(rs.getLong("org_id"))
+                        .orgName(rs.getString("organization_name"))
+                        .cuiMigrationFlag(rs.getBoolean("flag_cui_migrated"))
+                        .createTime(rs.getLong("date_create"))
+                        .deleteTime(rs.getLong("delete_time"))
+                        .cuiTenantId(mapping.cuiTenantId())
+                        .cuiOrgId(mapping.cuiOrgId())
+                        .cuiClusterUrl(mapping.cuiClusterUrl())
+                        .mappingStatus(mapping.status())
+                        .mappingCreateTime(mapping.createdAt())
+                        .build()
+            );
+            enrichWithFeatureFlag(organization);
+            return organization;
+        }
+        
         String sql = """
             SELECT o.org_id, o.organization_name, o.flag_cui_migrated, o.date_create, o.delete_time,
                    ctm.cui_tenant_id, ctm.cui_org_id, ctm.cui_cluster_url, ctm.status as mapping_status,
@@ -58,56 +95,56 @@ public class OrganizationService {
         return organization;
     }
     
-    public Object getCuiTenantDetails(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        
+    @McpToolHandler(name = "get_cui_tenant_details", description = "Get CUI tenant configuration for organization")
+    public Mono<Object> getCuiTenantDetails(
+            @McpToolParam(value = "identifier", aliases = "org_id", description = "Organization ID", required = true) Long orgId) {
         log.info("Getting CUI tenant details for org ID: {}", orgId);
         
-        try {
-            return cuiIntegrationServiceClient
-                    .get()
-                    .uri("/api/v1/cui/tenant-control-enabled?orgId={orgId}", orgId)
-                    .retrieve()
-                    .bodyToMono(Object.class)
-                    .block();
-        } catch (Exception e) {
-            log.error("Error getting CUI tenant details for org ID: {}", orgId, e);
-            throw new RuntimeException("Failed to get CUI tenant details: " + e.getMessage());
-        }
+        return cuiIntegrationServiceClient
+                .get()
+                .uri("/api/v1/cui/tenant-control-enabled?orgId={orgId}", orgId)
+                .retrieve()
+                .bodyToMono(Object.class)
+                .onErrorMap(e -> {
+                    log.error("Error getting CUI tenant details for org ID: {}", orgId, e);
+                    return new RuntimeException("Failed to get CUI tenant details: " + e.getMessage());
+                });
     }
     
-    public Object checkTenantControlEnabled(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        
+    @McpToolHandler(name = "check_tenant_control_enabled", description = "Verify if CUI tenant control is active")
+    public Mono<Map<String, Object>> checkTenantControlEnabled(
+            @McpToolParam(value = "identifier", aliases = "org_id", description = "Organization ID", required = true) Long orgId) {
         log.info("Checking tenant control enabled for org ID: {}", orgId);
         
-        try {
-            Object tenantDetails = cuiIntegrationServiceClient
-                    .get()
-                    .uri("/api/v1/cui/tenant-control-enabled?orgId={orgId}", orgId)
-                    .retrieve()
-                    .bodyToMono(Object.class)
-                    .block();
-            
-            return Map.of(
-                "orgId", orgId,
-                "tenantControlEnabled", tenantDetails != null,
-                "details", tenantDetails
-            );
-        } catch (Exception e) {
-            log.error("Error checking tenant control for org ID: {}", orgId, e);
-            return Map.of(
-                "orgId", orgId,
-                "tenantControlEnabled", false,
-                "error", e.getMessage()
-            );
-        }
+        return cuiIntegrationServiceClient
+                .get()
+                .uri("/api/v1/cui/tenant-control-enabled?orgId={orgId}", orgId)
+                .retrieve()
+                .bodyToMono(Object.class)
+                .map(tenantDetails -> Map.<String, Object>of(
+                    "orgId", orgId,
+                    "tenantControlEnabled", true,
+                    "details", tenantDetails
+                ))
+                .defaultIfEmpty(Map.of(
+                    "orgId", orgId,
+                    "tenantControlEnabled", false
+                ))
+                .onErrorResume(e -> {
+                    log.error("Error checking tenant control for org ID: {}", orgId, e);
+                    return Mono.just(Map.of(
+                        "orgId", orgId,
+                        "tenantControlEnabled", false,
+                        "error", String.valueOf(e.getMessage())
+                    ));
+                });
     }
     
-    public String setPasswordPolicy(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        Boolean pciComplianceEnabled = (Boolean) arguments.get("pci_compliance_enabled");
-        
+    // @McpToolHandler(name = "set_password_policy", description = "Configure organization password policies",
+    //         invalidates = {"get_organization_details", "get_cui_tenant_details"})
+    public String setPasswordPolicy(
+            @McpToolParam(value = "identifier", aliases = "org_id", description = "Organization ID", required = true) Long orgId,
+            @McpToolParam(value = "pci_compliance_enabled", description = "Enforce the PCI compliant password policy", required = true) Boolean pciComplianceEnabled) {
         log.info("Setting password policy for org ID: {}, PCI compliance: {}", orgId, pciComplianceEnabled);
         
         try {
@@ -128,11 +165,18 @@ public class OrganizationService {
         }
     }
     
-    public OrganizationDto getTenantMappingStatus(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        
+    @McpToolHandler(name = "get_tenant_mapping_status", description = "Check tenant mapping synchronization status")
+    public OrganizationDto getTenantMappingStatus(
+            @McpToolParam(value = "identifier", aliases = "org_id", description = "Organization ID", required = true) Long orgId) {
         log.info("Getting tenant mapping status for org ID: {}", orgId);
         
+        TenantMappingSnapshot.TenantMapping mapping = tenantMappingSnapshot.byOrgId(orgId);
+        if (mapping != null) {
+            OrganizationDto organization = toOrganization(mapping);
+            enrichWithFeatureFlag(organization);
+            return organization;
+        }
+        
         String sql = """
             SELECT ctm.org_id, ctm.cui_tenant_id, ctm.cui_org_id, ctm.cui_cluster_url,
                    ctm.status, ctm.created_at, ctm.updated_at
@@ -159,36 +203,95 @@ public class OrganizationService {
         return organization;
     }
     
-    private void enrichWithFeatureFlag(OrganizationDto organization) {
-        try {
-            String sql = """
-                SELECT * FROM te_admin.tb_organization_feature_flags 
-                WHERE feature_id = 1073 AND org_id = :orgId
-            """;
-            
-            MapSqlParameterSource params = new MapSqlParameterSource();
-            params.addValue("orgId", organization.getOrgId());
-            
-            jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> {
-                // Feature flag exists for this organization
-                log.info("Feature flag 1073 found for org: {}", organization.getOrgId());
-                organization.setPhase2FeatureFlagEnabled(true);
-                return null;
-            });
-        } catch (Exception e) {
-            log.debug("No feature flag 1073 found for org: {}", organization.getOrgId());
+    @McpToolHandler(name = "find_org_by_cui_tenant", description = "Find the organizations and mapping history for CUI tenant IDs")
+    public Map<String, Object> findOrgByCuiTenant(
+            @McpToolParam(value = "cui_tenant_ids", aliases = "cui_tenant_id", description = "CUI tenant IDs, e.g. copied from a log excerpt", required = true) List<String> cuiTenantIds) {
+        log.info("Finding organizations for {} CUI tenant IDs", cuiTenantIds.size());
+        return tenantResolver.resolve(TenantResolver.Key.CUI_TENANT_ID, cuiTenantIds);
+    }
+    
+    @McpToolHandler(name = "find_org_by_cui_org", description = "Find the organizations and mapping history for CUI org IDs")
+    public Map<String, Object> findOrgByCuiOrg(
+            @McpToolParam(value = "cui_org_ids", aliases = "cui_org_id", description = "CUI org IDs, e.g. copied from a log excerpt", required = true) List<String> cuiOrgIds) {
+        log.info("Finding organizations for {} CUI org IDs", cuiOrgIds.size());
+        return tenantResolver.resolve(TenantResolver.Key.CUI_ORG_ID, cuiOrgIds);
+    }
+    
+    /**
+     * Feature flags from the in-memory index; falls back to the table while
+     * the index is not loaded.
+     */
+    @McpToolHandler(name = "get_feature_flags", description = "List the feature flags of an organization, or the organizations with a feature flag")
+    public Map<String, Object> getFeatureFlags(
+            @McpToolParam(value = "org_id", description = "Organization ID; returns every feature flag set for it") Long orgId,
+            @McpToolParam(value = "feature_id", description = "Feature ID; returns every organization that has it") Integer featureId) {
+        if ((orgId == null) == (featureId == null)) {
+            throw new IllegalArgumentException("Exactly one of 'org_id' or 'feature_id' is required");
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (orgId != null) {
+            log.info("Getting feature flags for org ID: {}", orgId);
+            List<Integer> featureIds = featureFlagIndex.isReady()
+                    ? featureFlagIndex.featuresOf(orgId)
+                    : jdbcTemplate.queryForList("""
+                        SELECT feature_id FROM te_admin.tb_organization_feature_flags
+                        WHERE org_id = :orgId ORDER BY feature_id
+                    """, new MapSqlParameterSource("orgId", orgId), Integer.class);
+            result.put("orgId", orgId);
+            result.put("featureIds", featureIds);
+            return result;
         }
+        
+        log.info("Getting organizations with feature flag: {}", featureId);
+        List<Long> orgIds = featureFlagIndex.isReady()
+                ? Arrays.stream(featureFlagIndex.orgsWith(featureId)).asLongStream().boxed().toList()
+                : jdbcTemplate.queryForList("""
+                    SELECT org_id FROM te_admin.tb_organization_feature_flags
+                    WHERE feature_id = :featureId ORDER BY org_id
+                """, new MapSqlParameterSource("featureId", featureId), Long.class);
+        result.put("featureId", featureId);
+        result.put("orgCount", orgIds.size());
+        result.put("orgIds", orgIds);
+        return result;
+    }
+    
+    private OrganizationDto toOrganization(TenantMappingSnapshot.TenantMapping mapping) {
+        return OrganizationDto.builder()
+                .orgId(mapping.orgId())
+                .cuiTenantId(mapping.cuiTenantId())
+                .cuiOrgId(mapping.cuiOrgId())
+                .cuiClusterUrl(mapping.cuiClusterUrl())
+                .mappingStatus(mapping.status())
+                .mappingCreateTime(mapping.createdAt())
+                .build();
     }
     
+    private void enrichWithFeatureFlag(OrganizationDto organization) {
+        if (hasFeatureFlag(PHASE2_FEATURE_ID, organization.getOrgId())) {
+            log.debug("Feature flag {} found for org: {}", PHASE2_FEATURE_ID, organization.getOrgId());
+            organization.setPhase2FeatureFlagEnabled(true);
+        }
+    }
     
-    private Long getLongArgument(Map<String, Object> arguments, String key) {
-        Object value = arguments.get(key);
-        if (value == null) {
-            throw new IllegalArgumentException("Required argument '" + key + "' is missing");
+    private boolean hasFeatureFlag(int featureId, Long orgId) {
+        if (featureFlagIndex.isReady()) {
+            return featureFlagIndex.contains(featureId, orgId);
         }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
+        
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("featureId", featureId);
+        params.addValue("orgId", orgId);
+        
+        try {
+            return !jdbcTemplate.queryForList("""
+                SELECT 1 FROM te_admin.tb_organization_feature_flags
+                WHERE feature_id = :featureId AND org_id = :orgId
+                LIMIT 1
+            """, params, Integer.class).isEmpty();
+        } catch (DataAccessException e) {
+            log.warn("Could not check feature flag {} for org {}: {}", featureId, orgId, e.getMessage());
+            return false;
         }
-        return Long.parseLong(value.toString());
     }
 }
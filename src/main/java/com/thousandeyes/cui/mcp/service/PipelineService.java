@@ -0,0 +1,302 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Composite tool execution: runs a small DAG of tool calls server-side and
+ * returns all results at once.
+ *
+ * Steps reference earlier results with {@code ${step.field}} (array elements
+ * by index, e.g. {@code ${orgs.0.orgId}}). A reference that is the whole
+ * argument value keeps its JSON type; inside a longer string it is
+ * interpolated. Steps without a dependency path between them run in
+ * parallel. A step with {@code for_each} runs once per element of the
+ * referenced array, concurrently, with the element available as
+ * {@code ${item}}.
+ *
+ * Every call goes through {@link McpToolService}, so caching, coalescing,
+ * permits, the tool timeout and metrics apply per step. The pipeline itself
+ * is a composite tool: it holds no permit and is bounded as a whole by
+ * {@code mcp.server.tools.pipeline.timeout}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PipelineService {
+
+    static final String TOOL_NAME = "run_pipeline";
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Pattern STEP_ID = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final String ITEM = "item";
+
+    private final McpToolService mcpToolService;
+    private final McpServerConfig mcpServerConfig;
+    private final ObjectMapper objectMapper;
+
+    @McpToolHandler(name = TOOL_NAME, description = "Run several tools in one request. Each step is "
+            + "{\"id\", \"tool\", \"arguments\", \"for_each\"}; argument values may reference earlier results as "
+            + "${step.field} and independent steps run in parallel. A step with for_each: \"${step.list}\" runs once "
+            + "per element, with the element available as ${item}. Returns each step's result keyed by id.",
+            composite = true)
+    public Mono<Map<String, Object>> runPipeline(
+            @McpToolParam(value = "steps", description = "Pipeline steps", required = true) List<Map<String, Object>> steps) {
+        McpServerConfig.Tools.Pipeline limits = mcpServerConfig.getTools().getPipeline();
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("Pipeline has no steps");
+        }
+        if (steps.size() > limits.getMaxSteps()) {
+            throw new IllegalArgumentException("Pipeline has " + steps.size() + " steps, limit is " + limits.getMaxSteps());
+        }
+
+        Map<String, Step> byId = new LinkedHashMap<>();
+        for (Map<String, Object> definition : steps) {
+            Step step = Step.parse(definition);
+            if (byId.putIfAbsent(step.id(), step) != null) {
+                throw new IllegalArgumentException("Duplicate step id '" + step.id() + "'");
+            }
+        }
+
+        log.info("Running pipeline with steps {}", byId.keySet());
+
+        Map<String, Mono<JsonNode>> outcomes = new HashMap<>();
+        for (Step step : byId.values()) {
+            outcome(step, byId, outcomes, new HashSet<>());
+        }
+
+        // Every outcome is cached, so dependents and this collector share one execution per step
+        return Flux.fromIterable(byId.keySet())
+                .flatMapSequential(id -> outcomes.get(id)
+                        .<Object>map(node -> node)
+                        .onErrorResume(e -> Mono.just(failure(e)))
+                        .map(result -> Map.entry(id, result)), byId.size())
+                .<Map<String, Object>>collect(LinkedHashMap::new, (results, entry) -> results.put(entry.getKey(), entry.getValue()))
+                .timeout(limits.getTimeout(), Mono.error(() ->
+                        new IllegalStateException("Pipeline did not finish within " + limits.getTimeout())));
+    }
+
+    private Mono<JsonNode> outcome(Step step, Map<String, Step> byId, Map<String, Mono<JsonNode>> outcomes,
+            Set<String> visiting) {
+        Mono<JsonNode> existing = outcomes.get(step.id());
+        if (existing != null) {
+            return existing;
+        }
+        if (!visiting.add(step.id())) {
+            throw new IllegalArgumentException("Pipeline steps form a cycle through '" + step.id() + "'");
+        }
+
+        Map<String, Mono<JsonNode>> dependencies = new LinkedHashMap<>();
+        for (String dependency : step.dependsOn()) {
+            Step upstream = byId.get(dependency);
+            if (upstream == null) {
+                throw new IllegalArgumentException("Step '" + step.id() + "' references unknown step '" + dependency + "'");
+            }
+            dependencies.put(dependency, outcome(upstream, byId, outcomes, visiting));
+        }
+        visiting.remove(step.id());
+
+        Mono<JsonNode> outcome = Flux.fromIterable(dependencies.entrySet())
+                .flatMap(dependency -> dependency.getValue()
+                        .onErrorMap(e -> new DependencyFailedException(dependency.getKey()))
+                        .map(node -> Map.entry(dependency.getKey(), node)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(inputs -> execute(step, inputs))
+                .cache();
+        outcomes.put(step.id(), outcome);
+        return outcome;
+    }
+
+    private Mono<JsonNode> execute(Step step, Map<String, JsonNode> inputs) {
+        if (step.forEach() == null) {
+            return Mono.fromCallable(() -> resolveArguments(step, inputs, null))
+                    .flatMap(arguments -> call(step, arguments));
+        }
+
+        JsonNode elements = lookup(step.forEach(), inputs, null);
+        McpServerConfig.Tools.Pipeline limits = mcpServerConfig.getTools().getPipeline();
+        if (!elements.isArray()) {
+            return Mono.error(new IllegalArgumentException("for_each of step '" + step.id() + "' is not an array"));
+        }
+        if (elements.size() > limits.getMaxFanOut()) {
+            return Mono.error(new IllegalArgumentException("for_each of step '" + step.id() + "' has "
+                    + elements.size() + " elements, limit is " + limits.getMaxFanOut()));
+        }
+
+        // A failed element is reported in place rather than failing the whole step
+        return Flux.fromIterable(elements)
+                .flatMapSequential(item -> Mono.fromCallable(() -> resolveArguments(step, inputs, item))
+                                .flatMap(arguments -> call(step, arguments))
+                                .onErrorResume(e -> Mono.just(objectMapper.<JsonNode>valueToTree(failure(e)))),
+                        Math.max(1, limits.getFanOutConcurrency()))
+                .collect(objectMapper::createArrayNode, ArrayNode::add)
+                .cast(JsonNode.class);
+    }
+
+    private Mono<JsonNode> call(Step step, Map<String, Object> arguments) {
+        return mcpToolService.executeToolAsync(step.tool(), arguments)
+                .flatMap(result -> {
+                    if (result.isError()) {
+                        return Mono.error(new IllegalStateException(errorText(result)));
+                    }
+                    return Mono.just(result.getValue() == null
+                            ? NullNode.getInstance()
+                            : objectMapper.<JsonNode>valueToTree(result.getValue()));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> resolveArguments(Step step, Map<String, JsonNode> inputs, JsonNode item) {
+        return (Map<String, Object>) resolve(step.arguments(), inputs, item);
+    }
+
+    private Object resolve(Object template, Map<String, JsonNode> inputs, JsonNode item) {
+        if (template instanceof String text) {
+            Matcher matcher = REFERENCE.matcher(text);
+            if (matcher.matches()) {
+                return objectMapper.convertValue(lookup(matcher.group(1), inputs, item), Object.class);
+            }
+            return matcher.replaceAll(match -> Matcher.quoteReplacement(lookup(match.group(1), inputs, item).asText()));
+        }
+        if (template instanceof Map<?, ?> map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            map.forEach((key, value) -> resolved.put(key.toString(), resolve(value, inputs, item)));
+            return resolved;
+        }
+        if (template instanceof List<?> list) {
+            List<Object> resolved = new ArrayList<>(list.size());
+            list.forEach(value -> resolved.add(resolve(value, inputs, item)));
+            return resolved;
+        }
+        return template;
+    }
+
+    private static JsonNode lookup(String reference, Map<String, JsonNode> inputs, JsonNode item) {
+        String[] path = reference.trim().split("\\.");
+        JsonNode node = ITEM.equals(path[0]) ? item : inputs.get(path[0]);
+        if (node == null) {
+            throw new IllegalArgumentException("${" + reference + "} cannot be resolved here");
+        }
+
+        for (int i = 1; i < path.length; i++) {
+            node = node.isArray() && path[i].chars().allMatch(Character::isDigit)
+                    ? node.path(Integer.parseInt(path[i]))
+                    : node.path(path[i]);
+            if (node.isMissingNode()) {
+                throw new IllegalArgumentException("${" + reference + "} did not resolve to a value");
+            }
+        }
+        return node;
+    }
+
+    private static Map<String, Object> failure(Throwable e) {
+        if (e instanceof DependencyFailedException dependency) {
+            return Map.of("skipped", "Depends on failed step '" + dependency.step + "'");
+        }
+        return Map.of("error", String.valueOf(e.getMessage()));
+    }
+
+    private static String errorText(McpResponse.ToolResult result) {
+        return result.getContent().stream()
+                .map(McpResponse.ToolResult.Content::getText)
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * A parsed step; {@code forEach} is the reference inside {@code ${...}}.
+     */
+    private record Step(String id, String tool, Map<String, Object> arguments, String forEach, Set<String> dependsOn) {
+
+        static Step parse(Map<String, Object> definition) {
+            Object id = definition.get("id");
+            Object tool = definition.get("tool");
+            if (!(id instanceof String stepId) || !STEP_ID.matcher(stepId).matches() || ITEM.equals(stepId)) {
+                throw new IllegalArgumentException("Each step needs an 'id' made of letters, digits and '_' (not 'item')");
+            }
+            if (!(tool instanceof String toolName) || toolName.isBlank()) {
+                throw new IllegalArgumentException("Step '" + stepId + "' needs a 'tool'");
+            }
+            if (TOOL_NAME.equals(toolName)) {
+                throw new IllegalArgumentException("Step '" + stepId + "' cannot run " + TOOL_NAME);
+            }
+
+            Object arguments = definition.getOrDefault("arguments", Map.of());
+            if (!(arguments instanceof Map<?, ?>)) {
+                throw new IllegalArgumentException("'arguments' of step '" + stepId + "' must be an object");
+            }
+            Object forEach = definition.get("for_each");
+            if (forEach != null && !(forEach instanceof String text && REFERENCE.matcher(text).matches())) {
+                throw new IllegalArgumentException("'for_each' of step '" + stepId + "' must be a ${step.field} reference");
+            }
+
+            Set<String> dependsOn = new LinkedHashSet<>();
+            collectReferences(arguments, dependsOn);
+            String forEachReference = null;
+            if (forEach != null) {
+                Matcher matcher = REFERENCE.matcher((String) forEach);
+                matcher.matches();
+                forEachReference = matcher.group(1).trim();
+                String root = forEachReference.split("\\.", 2)[0];
+                if (ITEM.equals(root)) {
+                    throw new IllegalArgumentException("'for_each' of step '" + stepId + "' cannot reference ${item}");
+                }
+                dependsOn.add(root);
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> typedArguments = (Map<String, Object>) arguments;
+            return new Step(stepId, toolName, typedArguments, forEachReference, dependsOn);
+        }
+
+        private static void collectReferences(Object template, Set<String> steps) {
+            if (template instanceof String text) {
+                Matcher matcher = REFERENCE.matcher(text);
+                while (matcher.find()) {
+                    String root = matcher.group(1).trim().split("\\.", 2)[0];
+                    if (!ITEM.equals(root)) {
+                        steps.add(root);
+                    }
+                }
+            } else if (template instanceof Map<?, ?> map) {
+                map.values().forEach(value -> collectReferences(value, steps));
+            } else if (template instanceof List<?> list) {
+                list.forEach(value -> collectReferences(value, steps));
+            }
+        }
+    }
+
+    private static final class DependencyFailedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String step;
+
+        DependencyFailedException(String step) {
+            super("Depends on failed step '" + step + "'", null, false, false);
+            this.step = step;
+        }
+    }
+}
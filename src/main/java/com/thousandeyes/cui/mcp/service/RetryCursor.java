@@ -0,0 +1,79 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in the retry table for keyset pagination: the sort key
+ * {@code (create_time, entity_id, entity_type, id)} of the last row returned.
+ * An entity has one row per sync type and create times are whole seconds,
+ * so the primary key breaks the remaining ties.
+ * Clients get it as an opaque base64url string and send it back unchanged.
+ * {@code createTime} is {@code null} for rows without a create time, which
+ * MySQL sorts after all others in descending order.
+ */
+record RetryCursor(LocalDateTime createTime, String entityId, String entityType, long id) {
+
+    private static final char SEPARATOR = '\n';
+
+    private static final String SEEK_CONDITION = """
+         AND (create_time < :cursorTime OR create_time IS NULL
+              OR (create_time = :cursorTime AND (entity_id < :cursorEntityId
+                  OR (entity_id = :cursorEntityId AND (entity_type < :cursorEntityType
+                      OR (entity_type = :cursorEntityType AND id < :cursorId))))))
+        """;
+
+    // Past the last row with a create time only rows without one follow
+    private static final String NULL_TIME_SEEK_CONDITION = """
+         AND create_time IS NULL AND (entity_id < :cursorEntityId
+              OR (entity_id = :cursorEntityId AND (entity_type < :cursorEntityType
+                  OR (entity_type = :cursorEntityType AND id < :cursorId))))
+        """;
+
+    static RetryCursor of(ResultSet rs) throws SQLException {
+        Timestamp createTime = rs.getTimestamp("create_time");
+        return new RetryCursor(createTime == null ? null : createTime.toLocalDateTime(),
+                rs.getString("entity_id"), rs.getString("entity_type"), rs.getLong("id"));
+    }
+
+    static RetryCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(String.valueOf(SEPARATOR), -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("wrong number of fields");
+            }
+            return new RetryCursor(parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]), parts[1], parts[2],
+                    Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    String encode() {
+        String value = (createTime == null ? "" : createTime.toString()) + SEPARATOR + entityId + SEPARATOR + entityType
+                + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Seek predicate for {@code ORDER BY create_time DESC, entity_id DESC, entity_type DESC, id DESC},
+     * binding its parameters.
+     */
+    String seekCondition(MapSqlParameterSource params) {
+        params.addValue("cursorEntityId", entityId);
+        params.addValue("cursorEntityType", entityType);
+        params.addValue("cursorId", id);
+        if (createTime == null) {
+            return NULL_TIME_SEEK_CONDITION;
+        }
+        params.addValue("cursorTime", Timestamp.valueOf(createTime));
+        return SEEK_CONDITION;
+    }
+}
@@ -0,0 +1,284 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes retry entries matching a set of predicates in small chunks, one
+ * purge at a time on a background thread.
+ *
+ * Each chunk selects the next {@code mcp.server.tools.purge.chunk-size} IDs
+ * in primary-key order past the previous chunk, then deletes exactly those
+ * rows in its own short transaction, re-checking the predicates so that rows
+ * the sync pipeline changed in between are left alone. The purge pauses for
+ * {@code pause} between chunks, so row locks are held briefly and the live
+ * pipeline keeps writing to the table while it runs.
+ */
+@Component
+@Slf4j
+public class RetryQueuePurge {
+
+    private static final String TABLE = "te_admin.tb_cui_entity_sync_retry_status";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+    private final SyncRollups syncRollups;
+    private final ExecutorService executor;
+
+    private volatile Job lastJob;
+
+    public RetryQueuePurge(NamedParameterJdbcTemplate jdbcTemplate, McpServerConfig mcpServerConfig, SyncRollups syncRollups) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mcpServerConfig = mcpServerConfig;
+        this.syncRollups = syncRollups;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retry-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * Rows to purge; {@code null} fields match everything, but at least one
+     * must be set. {@code errorPattern} is a SQL LIKE pattern.
+     */
+    public record Criteria(String entityType, String status, Timestamp createdBefore, String errorPattern) {
+
+        public Criteria {
+            if (isBlank(entityType) && isBlank(status) && createdBefore == null && isBlank(errorPattern)) {
+                throw new IllegalArgumentException("At least one of entity_type, status, older_than or error_pattern is required");
+            }
+        }
+
+        String where(MapSqlParameterSource params) {
+            StringBuilder where = new StringBuilder();
+            if (!isBlank(entityType)) {
+                where.append(" AND entity_type = :entityType");
+                params.addValue("entityType", entityType);
+            }
+            if (!isBlank(status)) {
+                where.append(" AND status = :status");
+                params.addValue("status", status);
+            }
+            if (createdBefore != null) {
+                where.append(" AND create_time < :createdBefore");
+                params.addValue("createdBefore", createdBefore);
+            }
+            if (!isBlank(errorPattern)) {
+                where.append(" AND error_message LIKE :errorPattern");
+                params.addValue("errorPattern", errorPattern);
+            }
+            return where.toString();
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+
+    /**
+     * Count the matching rows per entity type and status without deleting.
+     */
+    public Map<String, Object> dryRun(Criteria criteria, long maxRows) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = """
+            SELECT entity_type, status, COUNT(*) AS entries, MIN(create_time) AS oldest, MAX(create_time) AS newest
+            FROM %s WHERE 1=1%s
+            GROUP BY entity_type, status
+            ORDER BY entity_type, status
+        """.formatted(TABLE, criteria.where(params));
+
+        long[] total = {0};
+        List<Map<String, Object>> groups = new ArrayList<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("entityType", rs.getString("entity_type"));
+            group.put("status", rs.getString("status"));
+            group.put("entries", rs.getLong("entries"));
+            group.put("oldest", String.valueOf(rs.getTimestamp("oldest")));
+            group.put("newest", String.valueOf(rs.getTimestamp("newest")));
+            groups.add(group);
+            total[0] += rs.getLong("entries");
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dryRun", true);
+        result.put("criteria", criteria);
+        result.put("matching", total[0]);
+        result.put("wouldDelete", Math.min(total[0], maxRows));
+        result.put("groups", groups);
+        return result;
+    }
+
+    /**
+     * Start purging up to {@code maxRows} matching rows and return the job
+     * without waiting. {@code afterDelete} runs on the purge thread once the
+     * purge ends, if it deleted anything.
+     */
+    public synchronized Job start(Criteria criteria, long maxRows, Runnable afterDelete) {
+        Job running = lastJob;
+        if (running != null && running.state == State.RUNNING) {
+            throw new IllegalStateException("Purge " + running.id + " is still running, wait for it or cancel it");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), criteria, maxRows);
+        lastJob = job;
+        executor.execute(() -> run(job, afterDelete));
+        return job;
+    }
+
+    /**
+     * The running purge, or the last one to finish; {@code null} if none ran.
+     */
+    public Job lastJob() {
+        return lastJob;
+    }
+
+    /**
+     * Stop the running purge after its current chunk.
+     */
+    public Job cancel() {
+        Job job = lastJob;
+        if (job == null) {
+            throw new IllegalArgumentException("No purge has been started");
+        }
+        job.cancelRequested = true;
+        return job;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Job job = lastJob;
+        if (job != null) {
+            job.cancelRequested = true;
+        }
+        executor.shutdown();
+    }
+
+    private void run(Job job, Runnable afterDelete) {
+        McpServerConfig.Tools.Purge config = mcpServerConfig.getTools().getPurge();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        log.info("Purge {} started: {}, at most {} rows in chunks of {}", job.id, job.criteria, job.maxRows, chunkSize);
+
+        State finalState = State.COMPLETED;
+        String failure = null;
+        try {
+            while (!job.cancelRequested && job.deleted < job.maxRows) {
+                MapSqlParameterSource params = new MapSqlParameterSource();
+                String where = job.criteria.where(params);
+                params.addValue("afterId", job.lastId);
+                params.addValue("limit", (int) Math.min(chunkSize, job.maxRows - job.deleted));
+
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT id FROM " + TABLE + " WHERE id > :afterId" + where + " ORDER BY id LIMIT :limit",
+                        params, Long.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                params.addValue("ids", ids);
+                int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id IN (:ids)" + where, params);
+                job.deleted += deleted;
+                job.chunks++;
+                job.lastId = ids.get(ids.size() - 1);
+                log.debug("Purge {} chunk {}: deleted {} rows up to id {}", job.id, job.chunks, deleted, job.lastId);
+
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(config.getPause().toMillis());
+            }
+            if (job.cancelRequested) {
+                finalState = State.CANCELLED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finalState = State.CANCELLED;
+        } catch (Exception e) {
+            log.error("Purge {} failed after deleting {} rows", job.id, job.deleted, e);
+            finalState = State.FAILED;
+            failure = e.getMessage();
+        }
+
+        // Only report the purge finished once nothing stale is served
+        try {
+            if (job.deleted > 0) {
+                // The rollups only see deletes on a rebuild
+                syncRollups.requestRebuild();
+                afterDelete.run();
+            }
+        } finally {
+            job.finish(finalState, failure);
+        }
+    }
+
+    /**
+     * One purge run. Written by the purge thread only; read by the status
+     * tool.
+     */
+    public static final class Job {
+
+        private final String id;
+        private final Criteria criteria;
+        private final long maxRows;
+        private final Instant startedAt = Instant.now();
+        private volatile State state = State.RUNNING;
+        private volatile boolean cancelRequested;
+        private volatile long deleted;
+        private volatile long chunks;
+        private volatile long lastId;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, Criteria criteria, long maxRows) {
+            this.id = id;
+            this.criteria = criteria;
+            this.maxRows = maxRows;
+        }
+
+        private void finish(State finalState, String failure) {
+            this.error = failure;
+            this.finishedAt = Instant.now();
+            this.state = finalState;
+            log.info("Purge {} {}: deleted {} rows in {} chunks", id, finalState, deleted, chunks);
+        }
+
+        public Map<String, Object> describe() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("purgeId", id);
+            result.put("state", state);
+            result.put("criteria", criteria);
+            result.put("maxRows", maxRows);
+            result.put("deleted", deleted);
+            result.put("chunks", chunks);
+            result.put("lastId", lastId);
+            result.put("startedAt", startedAt.toString());
+            result.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+            result.put("elapsedMs", Duration.between(startedAt, end).toMillis());
+            if (error != null) {
+                result.put("error", error);
+            }
+            return result;
+        }
+    }
+}
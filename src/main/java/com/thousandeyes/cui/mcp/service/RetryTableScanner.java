@@ -0,0 +1,72 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.DatabaseConfig;
+import com.thousandeyes.cui.mcp.metrics.TimedJdbcTemplate;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+
+/**
+ * Forward-only scans of {@code tb_cui_entity_sync_retry_status} for tools that
+ * read every matching row once.
+ *
+ * Uses its own template with {@code database.stream-fetch-size}, so the driver
+ * hands rows over as they arrive instead of buffering the whole result, and
+ * the regular template keeps its defaults. Filters are applied in SQL; the
+ * handler sees one row at a time and must not keep them.
+ */
+@Component
+public class RetryTableScanner {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RetryTableScanner(DataSource dataSource, ToolMetrics toolMetrics, DatabaseConfig databaseConfig) {
+        TimedJdbcTemplate template = new TimedJdbcTemplate(dataSource, toolMetrics);
+        template.setFetchSize(databaseConfig.getStreamFetchSize());
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    /**
+     * Row filters; {@code null} fields match everything. {@code from} is
+     * inclusive and {@code to} exclusive on {@code create_time}.
+     */
+    public record Filter(String entityType, String status, Timestamp from, Timestamp to) {
+    }
+
+    /**
+     * Read {@code columns} of every row matching the filter and the extra
+     * {@code condition} (appended with AND, may be {@code null}).
+     */
+    public void scan(String columns, Filter filter, String condition, RowCallbackHandler rows) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns)
+                .append(" FROM te_admin.tb_cui_entity_sync_retry_status WHERE 1=1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (filter.entityType() != null && !filter.entityType().isEmpty()) {
+            sql.append(" AND entity_type = :entityType");
+            params.addValue("entityType", filter.entityType());
+        }
+        if (filter.status() != null && !filter.status().isEmpty()) {
+            sql.append(" AND status = :status");
+            params.addValue("status", filter.status());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND create_time >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND create_time < :to");
+            params.addValue("to", filter.to());
+        }
+        if (condition != null) {
+            sql.append(" AND ").append(condition);
+        }
+
+        jdbcTemplate.query(sql.toString(), params, rows);
+    }
+}
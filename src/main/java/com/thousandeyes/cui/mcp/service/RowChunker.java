@@ -0,0 +1,59 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps rows as they are read and hands them to a {@link ToolOutputSink} in
+ * fixed-size chunks, so the first rows reach the client before the query has
+ * finished.
+ */
+class RowChunker<T> implements RowCallbackHandler {
+    
+    private final RowMapper<T> rowMapper;
+    private final ToolOutputSink sink;
+    private final int chunkSize;
+    private final String label;
+    
+    private List<T> chunk;
+    private long rowCount;
+    
+    RowChunker(RowMapper<T> rowMapper, ToolOutputSink sink, int chunkSize, String label) {
+        this.rowMapper = rowMapper;
+        this.sink = sink;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.label = label;
+        this.chunk = new ArrayList<>(this.chunkSize);
+    }
+    
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        chunk.add(rowMapper.mapRow(rs, (int) rowCount));
+        rowCount++;
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+    
+    /**
+     * Emit any buffered rows. Call once the query has returned.
+     */
+    long finish() {
+        flush();
+        return rowCount;
+    }
+    
+    private void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        sink.partial(chunk);
+        sink.progress(rowCount, null, "Streamed " + rowCount + " " + label);
+        chunk = new ArrayList<>(chunkSize);
+    }
+}
@@ -0,0 +1,162 @@
+package com.thousandeyes.cui.mcp.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Space-Saving heavy-hitters sketch: tracks at most {@code capacity} keys of a
+ * stream and their approximate counts.
+ *
+ * Counters sit in a min-heap by count. An unseen key takes over the smallest
+ * counter, inheriting its count as the error bound, so a reported count
+ * overestimates the true count by at most {@link Counter#error()}. Any key
+ * occurring more than {@code n / capacity} times in a stream of {@code n} is
+ * guaranteed to be tracked. Each counter carries a payload, recreated when
+ * the counter changes key. Not thread-safe.
+ */
+final class SpaceSaving<K, V> {
+
+    private final int capacity;
+    private final Function<K, V> payloadFactory;
+    private final Map<K, Counter<K, V>> counters;
+    private final Counter<K, V>[] heap;
+    private int size;
+    private long evictions;
+
+    SpaceSaving(int capacity, Function<K, V> payloadFactory) {
+        this.capacity = Math.max(1, capacity);
+        this.payloadFactory = payloadFactory;
+        this.counters = new HashMap<>(this.capacity * 2);
+        @SuppressWarnings("unchecked")
+        Counter<K, V>[] heap = (Counter<K, V>[]) new Counter<?, ?>[this.capacity];
+        this.heap = heap;
+    }
+
+    static final class Counter<K, V> {
+
+        private K key;
+        private long count;
+        private long error;
+        private V payload;
+        private int index;
+
+        K key() {
+            return key;
+        }
+
+        long count() {
+            return count;
+        }
+
+        /**
+         * Upper bound on how much {@link #count()} overestimates the key's
+         * occurrences.
+         */
+        long error() {
+            return error;
+        }
+
+        V payload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Count one occurrence of the key and return the payload of its counter.
+     */
+    V offer(K key) {
+        Counter<K, V> counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+            return counter.payload;
+        }
+
+        if (size < capacity) {
+            counter = new Counter<>();
+            counter.key = key;
+            counter.count = 1;
+            counter.payload = payloadFactory.apply(key);
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return counter.payload;
+        }
+
+        // Replace the minimum, which stays at the root until its count grows
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = counter.count;
+        counter.count++;
+        counter.payload = payloadFactory.apply(key);
+        counters.put(key, counter);
+        siftDown(0);
+        evictions++;
+        return counter.payload;
+    }
+
+    /**
+     * The {@code n} counters with the highest counts, highest first.
+     */
+    List<Counter<K, V>> top(int n) {
+        Counter<K, V>[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted, Comparator.comparingLong((Counter<K, V> counter) -> counter.count).reversed());
+        return new ArrayList<>(Arrays.asList(sorted).subList(0, Math.min(n, size)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether counts are exact: no counter has been taken over yet.
+     */
+    boolean isExact() {
+        return evictions == 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent].count <= heap[i].count) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left].count < heap[smallest].count) {
+                smallest = left;
+            }
+            if (right < size && heap[right].count < heap[smallest].count) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Counter<K, V> counter = heap[i];
+        heap[i] = heap[j];
+        heap[j] = counter;
+        heap[i].index = i;
+        heap[j].index = j;
+    }
+}
@@ -0,0 +1,293 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+import com.thousandeyes.cui.mcp.transport.McpSessionRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change feed of {@code tb_cui_entity_sync_retry_status} for MCP resource
+ * subscriptions.
+ *
+ * Sessions subscribe to {@code sync-retry://changes}, optionally narrowed
+ * with {@code entity_type}, {@code sync_type} and {@code status} query
+ * parameters. A single tailer polls the table every
+ * {@code mcp.server.change-feed.poll-interval} for rows created or updated at
+ * or past the watermark, however many sessions are subscribed, and sends each
+ * subscription a {@code notifications/resources/updated} carrying the changes
+ * that match it. Each distinct filter is matched once per poll. Rows sharing
+ * the watermark timestamp are read again and skipped by ID. The watermark only
+ * moves once a batch has been sent, so a failed poll is read again in full.
+ *
+ * The table is only polled while someone is subscribed. The first
+ * subscription starts the feed at the database's current time, so history is
+ * not replayed. Deleted rows are not reported.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyncRetryChangeFeed {
+
+    public static final String URI = "sync-retry://changes";
+    public static final String UPDATED = "notifications/resources/updated";
+
+    private static final String CHANGES_SQL = """
+        SELECT id, entity_id, entity_type, sync_type, status, error_message, retry_count, create_time,
+               COALESCE(update_time, create_time) AS changed
+        FROM te_admin.tb_cui_entity_sync_retry_status
+        WHERE update_time >= :watermark OR create_time >= :watermark
+        ORDER BY changed, id
+        LIMIT :limit
+    """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+    private final McpSessionRegistry mcpSessionRegistry;
+
+    // Session ID -> subscribed URI -> filter
+    private final Map<String, Map<String, Filter>> subscriptions = new ConcurrentHashMap<>();
+    private final Deque<Change> recent = new ArrayDeque<>();
+
+    private Timestamp watermark;
+    private Set<Long> seenAtWatermark = new HashSet<>();
+
+    /**
+     * One created or updated retry entry; {@code change} is {@code CREATED}
+     * when the row has not been updated since it was inserted.
+     */
+    public record Change(long id, String entityId, String entityType, String syncType, String status,
+                         String errorMessage, int retryCount, String change, String changedAt) {
+    }
+
+    /**
+     * Query parameters of a subscription URI; {@code null} matches any value.
+     */
+    public record Filter(String entityType, String syncType, String status) {
+
+        static Filter parse(String uri) {
+            if (uri == null || !(uri.equals(URI) || uri.startsWith(URI + "?"))) {
+                throw new IllegalArgumentException("Unknown resource: " + uri + " (expected " + URI + ")");
+            }
+            UriComponents components = UriComponentsBuilder.fromUriString(uri).build();
+            MultiValueMap<String, String> query = components.getQueryParams();
+            for (String name : query.keySet()) {
+                if (!Set.of("entity_type", "sync_type", "status").contains(name)) {
+                    throw new IllegalArgumentException("Unknown filter " + name + " in " + uri
+                            + " (entity_type, sync_type, status)");
+                }
+            }
+            return new Filter(query.getFirst("entity_type"), query.getFirst("sync_type"), query.getFirst("status"));
+        }
+
+        boolean matches(Change change) {
+            return (entityType == null || entityType.equalsIgnoreCase(change.entityType()))
+                    && (syncType == null || syncType.equalsIgnoreCase(change.syncType()))
+                    && (status == null || status.equalsIgnoreCase(change.status()));
+        }
+    }
+
+    /**
+     * Resources for {@code resources/list}.
+     */
+    public List<Map<String, Object>> resources() {
+        if (!mcpServerConfig.getChangeFeed().isEnabled()) {
+            return List.of();
+        }
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("uri", URI);
+        resource.put("name", "Sync retry changes");
+        resource.put("description", "Sync retry entries as they are created or updated. Subscribe to be notified; "
+                + "filter with ?entity_type=, &sync_type= and &status=");
+        resource.put("mimeType", "application/json");
+        return List.of(resource);
+    }
+
+    /**
+     * Notify the session of changes matching {@code uri} from the next poll
+     * on.
+     */
+    public void subscribe(String sessionId, String uri) {
+        McpServerConfig.ChangeFeed config = mcpServerConfig.getChangeFeed();
+        if (!config.isEnabled()) {
+            throw new IllegalArgumentException("The change feed is disabled");
+        }
+        Filter filter = Filter.parse(uri);
+        if (mcpSessionRegistry.get(sessionId) == null) {
+            throw new IllegalArgumentException("Subscriptions need a session: open GET /mcp and send its "
+                    + "Mcp-Session-Id header with the request");
+        }
+
+        Map<String, Filter> uris = subscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>());
+        if (!uris.containsKey(uri) && uris.size() >= config.getMaxSubscriptionsPerSession()) {
+            throw new IllegalArgumentException("At most " + config.getMaxSubscriptionsPerSession() + " subscriptions per session");
+        }
+        uris.put(uri, filter);
+        start();
+        log.info("MCP session {} subscribed to {}", sessionId, uri);
+    }
+
+    public void unsubscribe(String sessionId, String uri) {
+        Map<String, Filter> uris = sessionId == null ? null : subscriptions.get(sessionId);
+        if (uris != null && uris.remove(uri) != null) {
+            subscriptions.remove(sessionId, Map.of());
+            log.info("MCP session {} unsubscribed from {}", sessionId, uri);
+        }
+    }
+
+    /**
+     * The most recent changes matching {@code uri}, oldest first, from memory.
+     * Changes are only collected while someone is subscribed.
+     */
+    public Map<String, Object> read(String uri) {
+        Filter filter = Filter.parse(uri);
+        List<Change> changes;
+        synchronized (recent) {
+            changes = recent.stream().filter(filter::matches).toList();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("uri", uri);
+        result.put("live", !subscriptions.isEmpty());
+        result.put("changes", changes);
+        return result;
+    }
+
+    /**
+     * Read the rows changed since the watermark and notify the subscribers.
+     * The next watermark is built aside and only taken once the subscribers
+     * have been notified; on a failure the same rows are read again on the
+     * next poll, so a subscriber may see a change twice but never miss one.
+     */
+    @Scheduled(initialDelayString = "#{@mcpServerConfig.changeFeed.pollInterval.toMillis()}",
+            fixedDelayString = "#{@mcpServerConfig.changeFeed.pollInterval.toMillis()}")
+    public synchronized void poll() {
+        McpServerConfig.ChangeFeed config = mcpServerConfig.getChangeFeed();
+        if (!config.isEnabled()) {
+            return;
+        }
+        subscriptions.keySet().removeIf(sessionId -> mcpSessionRegistry.get(sessionId) == null);
+        if (subscriptions.isEmpty()) {
+            // Start again from the current time on the next subscription
+            watermark = null;
+            return;
+        }
+
+        try {
+            if (watermark == null) {
+                start();
+                return;
+            }
+
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("watermark", watermark);
+            params.addValue("limit", Math.max(1, config.getBatchSize()) + seenAtWatermark.size());
+
+            Timestamp nextWatermark = watermark;
+            Set<Long> nextSeen = new HashSet<>(seenAtWatermark);
+            List<Change> changes = new ArrayList<>();
+            for (Row row : jdbcTemplate.query(CHANGES_SQL, params, SyncRetryChangeFeed::mapRow)) {
+                if (row.changed().after(nextWatermark)) {
+                    nextWatermark = row.changed();
+                    nextSeen.clear();
+                }
+                if (nextSeen.add(row.change().id())) {
+                    changes.add(row.change());
+                }
+                // Otherwise at the watermark and already sent on an earlier poll
+            }
+
+            if (!changes.isEmpty()) {
+                log.debug("Change feed read {} changes, watermark {}", changes.size(), nextWatermark);
+                notifySubscribers(changes, config.getMaxEventsPerNotification());
+                remember(changes, config.getBufferSize());
+            }
+            watermark = nextWatermark;
+            seenAtWatermark = nextSeen;
+        } catch (Exception e) {
+            log.warn("Change feed poll failed at watermark {}: {}", watermark, e.getMessage());
+        }
+    }
+
+    private synchronized void start() {
+        if (watermark == null) {
+            watermark = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class);
+            seenAtWatermark.clear();
+            log.info("Change feed started at {}", watermark);
+        }
+    }
+
+    private void remember(List<Change> changes, int bufferSize) {
+        synchronized (recent) {
+            recent.addAll(changes);
+            while (recent.size() > Math.max(0, bufferSize)) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    private void notifySubscribers(List<Change> changes, int maxEvents) {
+        Map<Filter, List<Change>> matched = new HashMap<>();
+        subscriptions.forEach((sessionId, uris) -> uris.forEach((uri, filter) -> {
+            List<Change> matching = matched.computeIfAbsent(filter, key -> changes.stream().filter(key::matches).toList());
+            if (matching.isEmpty()) {
+                return;
+            }
+
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("uri", uri);
+            if (matching.size() > maxEvents) {
+                // Keep the latest; the client can read the rest with get_sync_retry_status
+                params.put("changes", matching.subList(matching.size() - maxEvents, matching.size()));
+                params.put("dropped", matching.size() - maxEvents);
+            } else {
+                params.put("changes", matching);
+            }
+            if (!mcpSessionRegistry.send(sessionId, McpNotification.of(UPDATED, params))) {
+                subscriptions.remove(sessionId);
+            }
+        }));
+    }
+
+    private record Row(Timestamp changed, Change change) {
+    }
+
+    private static Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp changed = rs.getTimestamp("changed");
+        return new Row(changed, mapChange(rs, changed));
+    }
+
+    private static Change mapChange(ResultSet rs, Timestamp changed) throws SQLException {
+        Timestamp created = rs.getTimestamp("create_time");
+        return new Change(
+                rs.getLong("id"),
+                rs.getString("entity_id"),
+                rs.getString("entity_type"),
+                rs.getString("sync_type"),
+                rs.getString("status"),
+                rs.getString("error_message"),
+                rs.getInt("retry_count"),
+                changed.equals(created) ? "CREATED" : "UPDATED",
+                changed.toLocalDateTime().toString());
+    }
+}
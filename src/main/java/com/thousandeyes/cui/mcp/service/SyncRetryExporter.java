@@ -0,0 +1,153 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Writes {@code tb_cui_entity_sync_retry_status} rows as NDJSON or CSV.
+ *
+ * Rows come from a {@link RetryTableScanner} scan and are rendered straight
+ * into a text buffer of {@code mcp.server.streaming.export-chunk-size} rows,
+ * which is handed to the caller as soon as it fills. Nothing else is kept, so
+ * memory does not depend on the number of rows. The caller's write blocks
+ * while the client is slow, which in turn holds the scan.
+ */
+@Component
+@Slf4j
+public class SyncRetryExporter {
+
+    private static final String[] COLUMNS = {
+            "entity_id", "entity_type", "sync_type", "status", "error_message",
+            "retry_count", "max_retries", "last_attempt", "next_retry", "create_time", "update_time"
+    };
+
+    private final RetryTableScanner retryTableScanner;
+    private final McpServerConfig mcpServerConfig;
+    private final JsonFactory jsonFactory;
+
+    public SyncRetryExporter(RetryTableScanner retryTableScanner, McpServerConfig mcpServerConfig, ObjectMapper objectMapper) {
+        this.retryTableScanner = retryTableScanner;
+        this.mcpServerConfig = mcpServerConfig;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson;charset=UTF-8"),
+        CSV("text/csv;charset=UTF-8");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + " (ndjson or csv)");
+            }
+        }
+    }
+
+    /**
+     * Export the rows matching the filter, passing each chunk of rendered text
+     * to {@code chunks}. Returns the number of rows written.
+     */
+    public long export(RetryTableScanner.Filter filter, Format format, Consumer<String> chunks) {
+        int chunkSize = Math.max(1, mcpServerConfig.getStreaming().getExportChunkSize());
+        StringWriter buffer = new StringWriter();
+        if (format == Format.CSV) {
+            buffer.append(String.join(",", COLUMNS)).append('\n');
+        }
+
+        long start = System.nanoTime();
+        long[] rows = {0};
+        retryTableScanner.scan(String.join(", ", COLUMNS), filter, null, rs -> {
+            if (format == Format.CSV) {
+                writeCsv(rs, buffer);
+            } else {
+                writeJson(rs, buffer);
+            }
+            if (++rows[0] % chunkSize == 0) {
+                chunks.accept(buffer.toString());
+                buffer.getBuffer().setLength(0);
+            }
+        });
+        if (buffer.getBuffer().length() > 0) {
+            chunks.accept(buffer.toString());
+        }
+
+        log.info("Exported {} sync retry rows as {} in {} ms", rows[0], format, (System.nanoTime() - start) / 1_000_000);
+        return rows[0];
+    }
+
+    private void writeJson(ResultSet rs, StringWriter buffer) throws SQLException {
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer)) {
+            json.writeStartObject();
+            json.writeStringField("entityId", rs.getString("entity_id"));
+            json.writeStringField("entityType", rs.getString("entity_type"));
+            json.writeStringField("syncType", rs.getString("sync_type"));
+            json.writeStringField("status", rs.getString("status"));
+            json.writeStringField("errorMessage", rs.getString("error_message"));
+            json.writeNumberField("retryCount", rs.getInt("retry_count"));
+            json.writeNumberField("maxRetries", rs.getInt("max_retries"));
+            json.writeStringField("lastAttempt", timestamp(rs, "last_attempt"));
+            json.writeStringField("nextRetry", timestamp(rs, "next_retry"));
+            json.writeStringField("createTime", timestamp(rs, "create_time"));
+            json.writeStringField("updateTime", timestamp(rs, "update_time"));
+            json.writeEndObject();
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        buffer.append('\n');
+    }
+
+    private void writeCsv(ResultSet rs, StringWriter buffer) throws SQLException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            String column = COLUMNS[i];
+            String value = column.endsWith("_attempt") || column.endsWith("_retry") || column.endsWith("_time")
+                    ? timestamp(rs, column)
+                    : rs.getString(column);
+            appendCsv(buffer, value);
+        }
+        buffer.append('\n');
+    }
+
+    private static void appendCsv(StringWriter buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+}
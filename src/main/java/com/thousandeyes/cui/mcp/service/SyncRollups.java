@@ -0,0 +1,509 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory rollups of {@code tb_cui_entity_sync_retry_status}: entry counts
+ * and retry sums per {@code (entity_type, sync_type, status)}, bucketed by
+ * {@code create_time} into a ring of minute buckets and a ring of hour buckets
+ * ({@code mcp.server.sync-rollups.minute-retention} / {@code hour-retention}).
+ *
+ * A retry entry's status changes after it is created, so the rollups are not
+ * fed row by row. Every {@code poll-interval} the engine asks which create-time
+ * minutes hold rows created or updated since the watermark, and re-aggregates
+ * just those buckets from the table; hour buckets are adjusted by the change
+ * in their minutes, or re-aggregated when the minute has left the minute ring.
+ * Deleted rows are only seen by the full rebuild every {@code rebuild-interval}.
+ *
+ * Reads take a shared lock and touch at most a few thousand array slots.
+ * While the rollups are not loaded or older than {@code max-staleness},
+ * {@link #isFresh()} is false and callers query the table instead. The first
+ * load runs on the task scheduler so that it does not hold up startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyncRollups implements SmartInitializingSingleton {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private static final String BUCKET_SQL = """
+        SELECT FLOOR(UNIX_TIMESTAMP(create_time) / :unitSeconds) AS bucket, entity_type, sync_type, status,
+               COUNT(*) AS entries, SUM(retry_count) AS retry_sum
+        FROM te_admin.tb_cui_entity_sync_retry_status
+        WHERE create_time >= :from AND create_time < :to
+        GROUP BY bucket, entity_type, sync_type, status
+    """;
+
+    private static final String CHANGED_SQL = """
+        SELECT FLOOR(UNIX_TIMESTAMP(create_time) / 60) AS bucket, MAX(COALESCE(update_time, create_time)) AS changed
+        FROM te_admin.tb_cui_entity_sync_retry_status
+        WHERE (update_time >= :watermark OR create_time >= :watermark) AND create_time >= :horizon
+        GROUP BY FLOOR(UNIX_TIMESTAMP(create_time) / 60)
+    """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+    private final TaskScheduler taskScheduler;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Series, Integer> seriesIds = new HashMap<>();
+    private final List<Series> series = new ArrayList<>();
+    private Ring minutes;
+    private Ring hours;
+
+    private Timestamp watermark;
+    private long lastRebuildMillis;
+    private volatile long lastSyncMillis;
+    private volatile boolean loaded;
+
+    /**
+     * The rollup key.
+     */
+    public record Series(String entityType, String syncType, String status) {
+    }
+
+    /**
+     * Entries and summed retry counts of one series over a window.
+     */
+    public record Totals(Series series, long entries, long retrySum) {
+
+        public double avgRetryCount() {
+            return entries == 0 ? 0 : (double) retrySum / entries;
+        }
+    }
+
+    /**
+     * One step of a trend: entries per status created in
+     * {@code [start, start + step)}.
+     */
+    public record Point(Instant start, long entries, long retrySum, Map<String, Long> byStatus) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        McpServerConfig.Rollups config = mcpServerConfig.getSyncRollups();
+        if (!config.isEnabled()) {
+            log.info("Sync rollups disabled, sync metrics query the database");
+            return;
+        }
+        this.minutes = new Ring(MINUTE, (int) (config.getMinuteRetention().toMillis() / MINUTE) + 1);
+        this.hours = new Ring(HOUR, (int) (config.getHourRetention().toMillis() / HOUR) + 1);
+        // Loading up to hour-retention of rows takes a while; callers query the table until it is done
+        taskScheduler.schedule(this::sync, Instant.now());
+    }
+
+    /**
+     * Rebuild on the next poll instead of applying changes. Deleted rows are
+     * invisible to the change query, so callers that delete call this.
+     */
+    public synchronized void requestRebuild() {
+        lastRebuildMillis = 0;
+    }
+
+    /**
+     * Re-aggregate the buckets changed since the watermark, or rebuild both
+     * rings when the rebuild is due. Failures keep the current rollups, which
+     * go stale after {@code max-staleness}.
+     */
+    @Scheduled(initialDelayString = "#{@mcpServerConfig.syncRollups.pollInterval.toMillis()}",
+            fixedDelayString = "#{@mcpServerConfig.syncRollups.pollInterval.toMillis()}")
+    public synchronized void sync() {
+        McpServerConfig.Rollups config = mcpServerConfig.getSyncRollups();
+        if (!config.isEnabled() || minutes == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            if (!loaded || now - lastRebuildMillis >= config.getRebuildInterval().toMillis()) {
+                rebuild(now);
+                lastRebuildMillis = now;
+                loaded = true;
+            } else {
+                applyChanges(now);
+            }
+            lastSyncMillis = now;
+        } catch (Exception e) {
+            log.warn("Sync rollup refresh failed, rollups are {} ms old: {}",
+                    loaded ? now - lastSyncMillis : -1, e.getMessage());
+        }
+    }
+
+    private void rebuild(long now) {
+        long start = System.nanoTime();
+        // Compared with update_time, so taken from the database clock
+        Timestamp syncStart = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class);
+        long minuteFrom = minutes.oldestBucket(now / MINUTE) * MINUTE;
+        long hourFrom = hours.oldestBucket(now / HOUR) * HOUR;
+
+        Ring freshMinutes = new Ring(MINUTE, minutes.slots);
+        Ring freshHours = new Ring(HOUR, hours.slots);
+        // Rows created up to the end of the current bucket
+        loadBuckets(hourFrom, (now / HOUR + 1) * HOUR, HOUR, (bucket, key, entries, retrySum) ->
+                freshHours.set(bucket, seriesId(key), entries, retrySum));
+        loadBuckets(minuteFrom, (now / MINUTE + 1) * MINUTE, MINUTE, (bucket, key, entries, retrySum) ->
+                freshMinutes.set(bucket, seriesId(key), entries, retrySum));
+
+        lock.writeLock().lock();
+        try {
+            this.minutes = freshMinutes;
+            this.hours = freshHours;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Anything changed while the rebuild ran is picked up by the next poll
+        this.watermark = syncStart;
+        log.info("Sync rollups rebuilt in {} ms: {} series", (System.nanoTime() - start) / 1_000_000, series.size());
+    }
+
+    private void applyChanges(long now) {
+        long horizon = hours.oldestBucket(now / HOUR) * HOUR;
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("watermark", watermark);
+        params.addValue("horizon", new Timestamp(horizon));
+
+        List<Long> changedMinutes = new ArrayList<>();
+        Timestamp[] newWatermark = {watermark};
+        jdbcTemplate.query(CHANGED_SQL, params, rs -> {
+            changedMinutes.add(rs.getLong("bucket"));
+            Timestamp changed = rs.getTimestamp("changed");
+            if (changed != null && changed.after(newWatermark[0])) {
+                newWatermark[0] = changed;
+            }
+        });
+        if (changedMinutes.isEmpty()) {
+            return;
+        }
+
+        long oldestMinute = minutes.oldestBucket(now / MINUTE);
+        long[] recent = changedMinutes.stream().mapToLong(Long::longValue).filter(m -> m >= oldestMinute).sorted().toArray();
+        long[] older = changedMinutes.stream().mapToLong(Long::longValue).filter(m -> m < oldestMinute)
+                .map(m -> m * MINUTE / HOUR).distinct().sorted().toArray();
+
+        // Read everything first so the write lock is held only to apply it
+        List<long[]> minuteRows = new ArrayList<>();
+        List<long[]> hourRows = new ArrayList<>();
+        if (recent.length > 0) {
+            loadBuckets(recent[0] * MINUTE, (recent[recent.length - 1] + 1) * MINUTE, MINUTE,
+                    (bucket, key, entries, retrySum) -> minuteRows.add(new long[] {bucket, seriesId(key), entries, retrySum}));
+        }
+        if (older.length > 0) {
+            loadBuckets(older[0] * HOUR, (older[older.length - 1] + 1) * HOUR, HOUR,
+                    (bucket, key, entries, retrySum) -> hourRows.add(new long[] {bucket, seriesId(key), entries, retrySum}));
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (recent.length > 0) {
+                // Every minute in the range was re-read; subtract what the rings held for it
+                for (long minute = recent[0]; minute <= recent[recent.length - 1]; minute++) {
+                    long hour = minute * MINUTE / HOUR;
+                    for (int id = 0; id < series.size(); id++) {
+                        long entries = minutes.entries(minute, id);
+                        if (entries != 0) {
+                            hours.add(hour, id, -entries, -minutes.retrySum(minute, id));
+                        }
+                    }
+                    minutes.clear(minute);
+                }
+                for (long[] row : minuteRows) {
+                    minutes.set(row[0], (int) row[1], row[2], row[3]);
+                    hours.add(row[0] * MINUTE / HOUR, (int) row[1], row[2], row[3]);
+                }
+            }
+            if (older.length > 0) {
+                for (long hour = older[0]; hour <= older[older.length - 1]; hour++) {
+                    hours.clear(hour);
+                }
+                for (long[] row : hourRows) {
+                    hours.set(row[0], (int) row[1], row[2], row[3]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        this.watermark = newWatermark[0];
+        log.debug("Sync rollups re-aggregated {} minutes and {} hours, watermark {}", recent.length, older.length, watermark);
+    }
+
+    /**
+     * Whether the rollups are loaded and refreshed within {@code max-staleness}.
+     */
+    public boolean isFresh() {
+        return loaded
+                && System.currentTimeMillis() - lastSyncMillis <= mcpServerConfig.getSyncRollups().getMaxStaleness().toMillis();
+    }
+
+    /**
+     * Whether {@link #totals} can answer for the last {@code window}: the
+     * rollups are fresh and the window is within the hour ring.
+     */
+    public boolean covers(Duration window) {
+        return isFresh() && window.toMillis() <= mcpServerConfig.getSyncRollups().getHourRetention().toMillis();
+    }
+
+    /**
+     * Whether the rollups can answer for the last {@code window} in steps of
+     * {@code step}: they are fresh, the window is within the hour ring, and
+     * the step is whole hours or, when the window fits in the minute ring,
+     * whole minutes.
+     */
+    public boolean covers(Duration window, Duration step) {
+        if (!covers(window)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        return step.toMillis() % HOUR == 0 || (step.toMillis() % MINUTE == 0 && fitsMinutes(now, window.toMillis()));
+    }
+
+    /**
+     * Totals per series for entries created in the last {@code window}, at
+     * minute resolution within the minute ring and hour resolution beyond it.
+     * Only whole buckets after the one holding the window start are counted,
+     * so the window is short by up to one bucket rather than long.
+     */
+    public List<Totals> totals(Duration window) {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            Ring ring = ringFor(now, window.toMillis(), MINUTE);
+            long to = now / ring.unitMillis;
+            // The bucket holding the window start is mostly older rows
+            long from = (now - window.toMillis()) / ring.unitMillis + 1;
+
+            List<Totals> totals = new ArrayList<>();
+            for (int id = 0; id < series.size(); id++) {
+                long entries = 0;
+                long retrySum = 0;
+                for (long bucket = from; bucket <= to; bucket++) {
+                    entries += ring.entries(bucket, id);
+                    retrySum += ring.retrySum(bucket, id);
+                }
+                if (entries > 0) {
+                    totals.add(new Totals(series.get(id), entries, retrySum));
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points of {@code step} covering the last {@code window}, aligned to
+     * multiples of {@code step}, for the series matching {@code filter}.
+     * Served from the rings when {@link #covers} allows, otherwise aggregated
+     * by the database in buckets of {@code step}.
+     */
+    public List<Point> trend(Duration window, Duration step, Predicate<Series> filter) {
+        long now = System.currentTimeMillis();
+        long stepMillis = step.toMillis();
+        long firstPoint = (now - window.toMillis()) / stepMillis;
+        long lastPoint = now / stepMillis;
+        int points = (int) (lastPoint - firstPoint + 1);
+        long[] entries = new long[points];
+        long[] retrySums = new long[points];
+        List<Map<String, Long>> byStatus = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            byStatus.add(new HashMap<>());
+        }
+
+        if (covers(window, step)) {
+            lock.readLock().lock();
+            try {
+                Ring ring = ringFor(now, window.toMillis(), stepMillis);
+                long stepBuckets = stepMillis / ring.unitMillis;
+                for (int id = 0; id < series.size(); id++) {
+                    Series key = series.get(id);
+                    if (!filter.test(key)) {
+                        continue;
+                    }
+                    for (int i = 0; i < points; i++) {
+                        long point = firstPoint + i;
+                        long seriesEntries = 0;
+                        for (long bucket = point * stepBuckets; bucket < (point + 1) * stepBuckets; bucket++) {
+                            seriesEntries += ring.entries(bucket, id);
+                            retrySums[i] += ring.retrySum(bucket, id);
+                        }
+                        if (seriesEntries > 0) {
+                            entries[i] += seriesEntries;
+                            byStatus.get(i).merge(key.status(), seriesEntries, Long::sum);
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        } else {
+            loadBuckets(firstPoint * stepMillis, (lastPoint + 1) * stepMillis, stepMillis, (bucket, key, bucketEntries, retrySum) -> {
+                int i = (int) (bucket - firstPoint);
+                if (i >= 0 && i < points && filter.test(key)) {
+                    entries[i] += bucketEntries;
+                    retrySums[i] += retrySum;
+                    byStatus.get(i).merge(key.status(), bucketEntries, Long::sum);
+                }
+            });
+        }
+
+        List<Point> trend = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            trend.add(new Point(Instant.ofEpochMilli((firstPoint + i) * stepMillis), entries[i], retrySums[i], byStatus.get(i)));
+        }
+        return trend;
+    }
+
+    /**
+     * The minute ring when the window fits in it and the step is not a whole
+     * number of hours, otherwise the hour ring.
+     */
+    private Ring ringFor(long now, long windowMillis, long stepMillis) {
+        return fitsMinutes(now, windowMillis) && stepMillis % HOUR != 0 ? minutes : hours;
+    }
+
+    private boolean fitsMinutes(long now, long windowMillis) {
+        return (now - windowMillis) / MINUTE >= minutes.oldestBucket(now / MINUTE);
+    }
+
+    /**
+     * Aggregate the table into buckets of {@code unitMillis} for rows created
+     * in {@code [from, to)}. Also used directly when the rollups cannot answer.
+     */
+    public void loadBuckets(long from, long to, long unitMillis, BucketConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("unitSeconds", unitMillis / 1000);
+        params.addValue("from", new Timestamp(from));
+        params.addValue("to", new Timestamp(to));
+
+        jdbcTemplate.query(BUCKET_SQL, params, rs -> {
+            consumer.accept(rs.getLong("bucket"),
+                    new Series(rs.getString("entity_type"), rs.getString("sync_type"), rs.getString("status")),
+                    rs.getLong("entries"), rs.getLong("retry_sum"));
+        });
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        void accept(long bucket, Series series, long entries, long retrySum);
+    }
+
+    private int seriesId(Series key) {
+        lock.writeLock().lock();
+        try {
+            return seriesIds.computeIfAbsent(key, k -> {
+                series.add(k);
+                return series.size() - 1;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fixed number of consecutive buckets of {@code unitMillis}. A slot holds
+     * bucket {@code b} at {@code b % slots} and remembers which bucket it
+     * holds, so buckets that have rotated out read as zero. Values are stored
+     * per series, growing as series appear.
+     */
+    private static final class Ring {
+
+        private final long unitMillis;
+        private final int slots;
+        private final long[] bucketOf;
+        private long[][] entries = new long[0][];
+        private long[][] retrySums = new long[0][];
+
+        Ring(long unitMillis, int slots) {
+            this.unitMillis = unitMillis;
+            this.slots = slots;
+            this.bucketOf = new long[slots];
+            Arrays.fill(bucketOf, Long.MIN_VALUE);
+        }
+
+        long oldestBucket(long newestBucket) {
+            return newestBucket - slots + 1;
+        }
+
+        long entries(long bucket, int series) {
+            int slot = slot(bucket);
+            return bucketOf[slot] == bucket && series < entries.length ? entries[series][slot] : 0;
+        }
+
+        long retrySum(long bucket, int series) {
+            int slot = slot(bucket);
+            return bucketOf[slot] == bucket && series < retrySums.length ? retrySums[series][slot] : 0;
+        }
+
+        void set(long bucket, int series, long entryCount, long retrySum) {
+            int slot = claim(bucket, series);
+            entries[series][slot] = entryCount;
+            retrySums[series][slot] = retrySum;
+        }
+
+        void add(long bucket, int series, long entryCount, long retrySum) {
+            int slot = claim(bucket, series);
+            entries[series][slot] += entryCount;
+            retrySums[series][slot] += retrySum;
+        }
+
+        void clear(long bucket) {
+            int slot = slot(bucket);
+            if (bucketOf[slot] == bucket) {
+                for (int series = 0; series < entries.length; series++) {
+                    entries[series][slot] = 0;
+                    retrySums[series][slot] = 0;
+                }
+            }
+        }
+
+        private int claim(long bucket, int series) {
+            if (series >= entries.length) {
+                int size = series + 1;
+                entries = Arrays.copyOf(entries, size);
+                retrySums = Arrays.copyOf(retrySums, size);
+                for (int i = 0; i < size; i++) {
+                    if (entries[i] == null) {
+                        entries[i] = new long[slots];
+                        retrySums[i] = new long[slots];
+                    }
+                }
+            }
+            int slot = slot(bucket);
+            if (bucketOf[slot] != bucket) {
+                // The slot still holds a bucket that has rotated out
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i][slot] = 0;
+                    retrySums[i][slot] = 0;
+                }
+                bucketOf[slot] = bucket;
+            }
+            return slot;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) slots);
+        }
+    }
+}
@@ -1,34 +1,101 @@
 package com.thousandeyes.cui.mcp.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
 import com.thousandeyes.cui.mcp.model.dto.SyncStatusDto;
-import lombok.RequiredArgsConstructor;
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Service for synchronization-related MCP operations.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SyncService {
     
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+    private final SyncRollups syncRollups;
+    private final RetryTableScanner retryTableScanner;
+    private final BulkSyncRetry bulkSyncRetry;
+    private final RetryQueuePurge retryQueuePurge;
     
-    public Map<String, Object> getSyncRetryStatus(Map<String, Object> arguments) {
-        Integer page = getIntegerArgument(arguments, "page", 0);
-        Integer size = getIntegerArgument(arguments, "size", 20);
-        String entityType = (String) arguments.get("entity_type");
+    private static final int MAX_TREND_POINTS = 1440;
+    private static final int SCAN_PROGRESS_INTERVAL = 10_000;
+    
+    // Same order as the GROUP BY query
+    private static final Comparator<SyncRollups.Series> SERIES_ORDER = Comparator
+            .comparing(SyncRollups.Series::entityType, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SyncRollups.Series::syncType, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SyncRollups.Series::status, Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    // Total entries per entity type ("" for all), for include_total
+    private final Cache<String, Long> retryCounts;
+    
+    public SyncService(NamedParameterJdbcTemplate jdbcTemplate, McpServerConfig mcpServerConfig, SyncRollups syncRollups,
+            RetryTableScanner retryTableScanner, BulkSyncRetry bulkSyncRetry, RetryQueuePurge retryQueuePurge) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mcpServerConfig = mcpServerConfig;
+        this.syncRollups = syncRollups;
+        this.retryTableScanner = retryTableScanner;
+        this.bulkSyncRetry = bulkSyncRetry;
+        this.retryQueuePurge = retryQueuePurge;
+        this.retryCounts = CacheBuilder.newBuilder()
+                .expireAfterWrite(mcpServerConfig.getTools().getPagination().getCountCacheTtl())
+                .maximumSize(100)
+                .build();
+    }
+    
+    public Map<String, Object> getSyncRetryStatus(String cursor, Integer size, String entityType) {
+        return getSyncRetryStatus(cursor, size, entityType, false, null, ToolOutputSink.NONE);
+    }
+    
+    /**
+     * Get a page of retry entries, newest first. When the sink is streaming,
+     * rows are sent to it in chunks as they are read and only the pagination
+     * block is returned.
+     * 
+     * Pages are addressed by keyset: {@code nextCursor} holds the sort key of
+     * the last row, and the next page seeks past it instead of skipping rows
+     * with OFFSET, so every page costs the same. The total is only counted
+     * when asked for, and then cached per entity type for
+     * {@code mcp.server.tools.pagination.count-cache-ttl}. {@code page} still
+     * selects an OFFSET page for older clients.
+     */
+    @McpToolHandler(name = "get_sync_retry_status", description = "Monitor failed synchronization attempts")
+    public Map<String, Object> getSyncRetryStatus(
+            @McpToolParam(value = "cursor", description = "nextCursor of the previous page; omit for the first page") String cursor,
+            @McpToolParam(value = "size", description = "Page size", defaultValue = "20") Integer size,
+            @McpToolParam(value = "entity_type", description = "Only entries of this entity type") String entityType,
+            @McpToolParam(value = "include_total", description = "Also return the number of matching entries (may be up to a minute old)", defaultValue = "false") Boolean includeTotal,
+            @McpToolParam(value = "page", description = "Deprecated, use cursor: page number for offset paging, starting at 0") Integer page,
+            ToolOutputSink sink) {
+        log.info("Getting sync retry status - cursor: {}, page: {}, size: {}, entityType: {}", cursor, page, size, entityType);
         
-        log.info("Getting sync retry status - page: {}, size: {}, entityType: {}", page, size, entityType);
+        McpServerConfig.Tools.Pagination pagination = mcpServerConfig.getTools().getPagination();
+        int limit = Math.min(Math.max(1, size), pagination.getMaxPageSize());
         
         StringBuilder sql = new StringBuilder("""
-            SELECT entity_id, entity_type, sync_type, status, error_message,
+            SELECT id, entity_id, entity_type, sync_type, status, error_message,
                    retry_count, max_retries, last_attempt, next_retry,
                    create_time, update_time
             FROM te_admin.tb_cui_entity_sync_retry_status
@@ -42,66 +109,100 @@ public class SyncService {
             params.addValue("entityType", entityType);
         }
         
-        sql.append(" ORDER BY create_time DESC LIMIT :limit OFFSET :offset");
-        params.addValue("limit", size);
-        params.addValue("offset", page * size);
-        
-        List<SyncStatusDto> retryStatuses = jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> 
-            SyncStatusDto.builder()
-                    .entityId(rs.getString("entity_id"))
-                    .entityType(rs.getString("entity_type"))
-                    .syncType(rs.getString("sync_type"))
-                    .status(rs.getString("status"))
-                    .errorMessage(rs.getString("error_message"))
-                    .retryCount(rs.getInt("retry_count"))
-                    .maxRetries(rs.getInt("max_retries"))
-                    .lastAttempt(rs.getTimestamp("last_attempt") != null ? 
-                            rs.getTimestamp("last_attempt").toLocalDateTime() : null)
-                    .nextRetry(rs.getTimestamp("next_retry") != null ? 
-                            rs.getTimestamp("next_retry").toLocalDateTime() : null)
-                    .createTime(rs.getTimestamp("create_time") != null ? 
-                            rs.getTimestamp("create_time").toLocalDateTime() : null)
-                    .updateTime(rs.getTimestamp("update_time") != null ? 
-                            rs.getTimestamp("update_time").toLocalDateTime() : null)
-                    .build()
-        );
+        boolean offsetPaging = false;
+        if (cursor != null && !cursor.isBlank()) {
+            RetryCursor position = RetryCursor.decode(cursor.trim());
+            sql.append(position.seekCondition(params));
+        } else if (page != null && page > 0) {
+            offsetPaging = true;
+        }
         
-        // Get total count
-        String countSql = "SELECT COUNT(*) FROM te_admin.tb_cui_entity_sync_retry_status WHERE 1=1";
-        if (entityType != null && !entityType.isEmpty()) {
-            countSql += " AND entity_type = :entityType";
+        // One row past the page tells whether there is a next page
+        sql.append(" ORDER BY create_time DESC, entity_id DESC, entity_type DESC, id DESC LIMIT :limit");
+        params.addValue("limit", limit + 1);
+        if (offsetPaging) {
+            sql.append(" OFFSET :offset");
+            params.addValue("offset", (long) page * limit);
         }
         
-        Integer totalCount = jdbcTemplate.queryForObject(countSql, params, Integer.class);
+        List<SyncStatusDto> retryStatuses = null;
+        RetryPage retryPage;
+        if (sink.isStreaming()) {
+            RowChunker<SyncStatusDto> chunker = new RowChunker<>(this::mapSyncStatus, sink,
+                    mcpServerConfig.getStreaming().getChunkSize(), "retry entries");
+            retryPage = new RetryPage(limit, chunker);
+            jdbcTemplate.query(sql.toString(), params, retryPage);
+            chunker.finish();
+        } else {
+            List<SyncStatusDto> rows = new ArrayList<>(limit);
+            retryPage = new RetryPage(limit, rs -> rows.add(mapSyncStatus(rs, rows.size())));
+            jdbcTemplate.query(sql.toString(), params, retryPage);
+            retryStatuses = rows;
+        }
         
-        return Map.of(
-            "retryStatuses", retryStatuses,
-            "pagination", Map.of(
-                "page", page,
-                "size", size,
-                "totalElements", totalCount,
-                "totalPages", (totalCount + size - 1) / size
-            )
-        );
+        Map<String, Object> pageInfo = new LinkedHashMap<>();
+        pageInfo.put("size", limit);
+        pageInfo.put("returned", retryPage.count);
+        if (offsetPaging) {
+            pageInfo.put("page", page);
+        }
+        if (Boolean.TRUE.equals(includeTotal)) {
+            long totalCount = countRetryEntries(entityType);
+            pageInfo.put("totalElements", totalCount);
+            pageInfo.put("totalPages", (totalCount + limit - 1) / limit);
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (retryStatuses != null) {
+            result.put("retryStatuses", retryStatuses);
+        }
+        result.put("pagination", pageInfo);
+        String nextCursor = retryPage.nextCursor();
+        if (nextCursor != null) {
+            result.put("nextCursor", nextCursor);
+        }
+        return result;
     }
     
-    public String triggerUserSyncRetry(Map<String, Object> arguments) {
-        Long uid = getLongArgument(arguments, "uid");
-        Long orgId = getLongArgument(arguments, "org_id");
+    private long countRetryEntries(String entityType) {
+        String key = entityType == null ? "" : entityType;
+        Long cached = retryCounts.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
         
+        String countSql = "SELECT COUNT(*) FROM te_admin.tb_cui_entity_sync_retry_status WHERE 1=1";
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (!key.isEmpty()) {
+            countSql += " AND entity_type = :entityType";
+            params.addValue("entityType", key);
+        }
+        
+        Long totalCount = jdbcTemplate.queryForObject(countSql, params, Long.class);
+        retryCounts.put(key, totalCount);
+        return totalCount;
+    }
+    
+    // @McpToolHandler(name = "trigger_user_sync_retry", description = "Manually retry failed user synchronizations",
+    //         invalidates = "get_sync_retry_status")
+    public String triggerUserSyncRetry(
+            @McpToolParam(value = "uid", description = "User ID", required = true) Long uid,
+            @McpToolParam(value = "org_id", description = "Organization ID") Long orgId) {
         log.info("Triggering user sync retry for UID: {}, org ID: {}", uid, orgId);
         
-        // In a real implementation, this would trigger the retry mechanism
-        // For now, we'll just log and return a success message
+        // The sync endpoint covers all of the user's tenants, so orgId only labels the job
+        BulkSyncRetry.Job job = bulkSyncRetry.start(List.of(String.valueOf(uid)),
+                "user " + uid + (orgId != null ? " in organization " + orgId : ""));
         
-        return String.format("User sync retry triggered for UID: %d%s", 
-                uid, orgId != null ? " in organization: " + orgId : "");
+        return String.format("User sync retry triggered for UID: %d%s (job %s)", 
+                uid, orgId != null ? " in organization: " + orgId : "", job.id());
     }
     
-    public String triggerOrgSyncRetry(Map<String, Object> arguments) {
-        Long orgId = getLongArgument(arguments, "org_id");
-        String syncType = (String) arguments.get("sync_type");
-        
+    // @McpToolHandler(name = "trigger_org_sync_retry", description = "Manually retry failed organization synchronizations",
+    //         invalidates = {"get_sync_retry_status", "get_tenant_mapping_status"})
+    public String triggerOrgSyncRetry(
+            @McpToolParam(value = "org_id", description = "Organization ID", required = true) Long orgId,
+            @McpToolParam(value = "sync_type", description = "Sync type to retry") String syncType) {
         log.info("Triggering organization sync retry for org ID: {}, sync type: {}", orgId, syncType);
         
         // In a real implementation, this would trigger the retry mechanism
@@ -109,10 +210,63 @@ public class SyncService {
                 orgId, syncType != null ? " (type: " + syncType + ")" : "");
     }
     
-    public Map<String, Object> getSyncMetrics(Map<String, Object> arguments) {
-        String timeRange = (String) arguments.getOrDefault("time_range", "24h");
-        String metricType = (String) arguments.get("metric_type");
+    /**
+     * Start a background job re-driving the users that have retry entries in
+     * {@code status}. Returns the job at once; follow it with
+     * {@code get_bulk_retry_job}. A dry run only returns the selection.
+     */
+    @McpToolHandler(name = "retry_failed_user_syncs", description = "Re-sync users with failed sync retry entries as a background job",
+            destructive = true)
+    public Map<String, Object> retryFailedUserSyncs(
+            @McpToolParam(value = "status", description = "Retry entry status to select", defaultValue = "FAILED") String status,
+            @McpToolParam(value = "since", description = "Only entries created within this duration, e.g. 24h") String since,
+            @McpToolParam(value = "limit", description = "Maximum number of users", defaultValue = "1000") Integer limit,
+            @McpToolParam(value = "dry_run", description = "Only return the users that would be retried", defaultValue = "false") Boolean dryRun) {
+        log.info("Retrying failed user syncs - status: {}, since: {}, limit: {}, dryRun: {}", status, since, limit, dryRun);
+        
+        int maxEntities = mcpServerConfig.getTools().getBulkRetry().getMaxEntities();
+        Timestamp from = since == null || since.isBlank()
+                ? null
+                : new Timestamp(System.currentTimeMillis() - parseDuration("since", since).toMillis());
+        List<String> uids = bulkSyncRetry.selectUsers(status, from, Math.min(Math.max(1, limit), maxEntities));
         
+        if (Boolean.TRUE.equals(dryRun)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("dryRun", true);
+            result.put("total", uids.size());
+            result.put("uids", uids);
+            return result;
+        }
+        
+        String description = "users with " + status + " retry entries" + (from != null ? " since " + since : "");
+        return bulkSyncRetry.start(uids, description).describe(0);
+    }
+    
+    /**
+     * Progress and failures of a bulk retry job, or a summary of all known
+     * jobs when no ID is given.
+     */
+    @McpToolHandler(name = "get_bulk_retry_job", description = "Progress and failed entities of bulk sync retry jobs")
+    public Object getBulkRetryJob(
+            @McpToolParam(value = "job_id", description = "Job ID; omit to list all jobs") String jobId,
+            @McpToolParam(value = "max_failures", description = "Maximum failed entities to list", defaultValue = "100") Integer maxFailures) {
+        if (jobId == null || jobId.isBlank()) {
+            return bulkSyncRetry.list().stream().map(job -> job.describe(0)).toList();
+        }
+        return bulkSyncRetry.get(jobId.trim()).describe(Math.max(0, maxFailures));
+    }
+    
+    @McpToolHandler(name = "cancel_bulk_retry_job", description = "Stop a running bulk sync retry job")
+    public Map<String, Object> cancelBulkRetryJob(
+            @McpToolParam(value = "job_id", description = "Job ID", required = true) String jobId) {
+        log.info("Cancelling bulk retry job {}", jobId);
+        return bulkSyncRetry.cancel(jobId.trim()).describe(0);
+    }
+    
+    @McpToolHandler(name = "get_sync_metrics", description = "Retrieve synchronization performance metrics")
+    public Map<String, Object> getSyncMetrics(
+            @McpToolParam(value = "time_range", description = "One of 1h, 24h, 7d, 30d", defaultValue = "24h") String timeRange,
+            @McpToolParam(value = "metric_type", description = "Metric type") String metricType) {
         log.info("Getting sync metrics for time range: {}, metric type: {}", timeRange, metricType);
         
         // Convert time range to hours for SQL
@@ -124,6 +278,21 @@ public class SyncService {
             default -> 24;
         };
         
+        Duration window = Duration.ofHours(hours);
+        if (syncRollups.covers(window)) {
+            List<Map<String, Object>> metrics = syncRollups.totals(window).stream()
+                    .sorted(Comparator.comparing(SyncRollups.Totals::series, SERIES_ORDER))
+                    .map(totals -> metric(totals.series().entityType(), totals.series().syncType(),
+                            totals.series().status(), Math.toIntExact(totals.entries()), totals.avgRetryCount()))
+                    .toList();
+            
+            return Map.of(
+                "timeRange", timeRange,
+                "metrics", metrics,
+                "summary", calculateSummary(metrics)
+            );
+        }
+        
         String sql = """
             SELECT 
                 entity_type,
@@ -141,13 +310,8 @@ public class SyncService {
         params.addValue("hours", hours);
         
         List<Map<String, Object>> metrics = jdbcTemplate.query(sql, params, (rs, rowNum) -> 
-            Map.of(
-                "entityType", rs.getString("entity_type"),
-                "syncType", rs.getString("sync_type"),
-                "status", rs.getString("status"),
-                "count", rs.getInt("count"),
-                "avgRetryCount", rs.getDouble("avg_retry_count")
-            )
+            metric(rs.getString("entity_type"), rs.getString("sync_type"), rs.getString("status"),
+                    rs.getInt("count"), rs.getDouble("avg_retry_count"))
         );
         
         return Map.of(
@@ -157,10 +321,104 @@ public class SyncService {
         );
     }
     
-    public String clearRetryQueue(Map<String, Object> arguments) {
-        String entityId = (String) arguments.get("entity_id");
-        String entityType = (String) arguments.get("entity_type");
+    /**
+     * Entries created per step over the window, with a breakdown by status.
+     * Answered from the in-memory rollups when they cover the window,
+     * otherwise aggregated by the database in buckets of one step.
+     */
+    @McpToolHandler(name = "get_sync_trend", description = "Sync retry entries over time, for trend charts")
+    public Map<String, Object> getSyncTrend(
+            @McpToolParam(value = "window", description = "How far back to look, e.g. 6h, 7d", defaultValue = "24h") String window,
+            @McpToolParam(value = "step", description = "Width of each point in whole minutes, e.g. 5m, 1h", defaultValue = "1h") String step,
+            @McpToolParam(value = "entity_type", description = "Only entries of this entity type") String entityType,
+            @McpToolParam(value = "sync_type", description = "Only entries of this sync type") String syncType,
+            @McpToolParam(value = "status", description = "Only entries with this status") String status) {
+        log.info("Getting sync trend - window: {}, step: {}, entityType: {}, syncType: {}, status: {}",
+                window, step, entityType, syncType, status);
+        
+        Duration windowDuration = parseDuration("window", window);
+        Duration stepDuration = parseDuration("step", step);
+        if (stepDuration.toMillis() < 60_000 || stepDuration.toMillis() % 60_000 != 0) {
+            throw new IllegalArgumentException("step must be a whole number of minutes: " + step);
+        }
+        if (windowDuration.compareTo(stepDuration) < 0) {
+            throw new IllegalArgumentException("window must be at least one step: " + window);
+        }
+        if (windowDuration.toMillis() / stepDuration.toMillis() > MAX_TREND_POINTS) {
+            throw new IllegalArgumentException("At most " + MAX_TREND_POINTS + " points per trend, use a larger step");
+        }
         
+        boolean fromRollups = syncRollups.covers(windowDuration, stepDuration);
+        List<SyncRollups.Point> points = syncRollups.trend(windowDuration, stepDuration, series ->
+                matches(entityType, series.entityType())
+                        && matches(syncType, series.syncType())
+                        && matches(status, series.status()));
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window);
+        result.put("step", step);
+        result.put("source", fromRollups ? "rollups" : "database");
+        result.put("points", points);
+        return result;
+    }
+    
+    /**
+     * Group error messages of matching retry entries into templates and return
+     * the most frequent ones. Rows are streamed once through a Space-Saving
+     * sketch of {@code mcp.server.tools.error-summary.capacity} templates, so
+     * memory does not grow with the table. While no more templates than that
+     * are seen the counts are exact; otherwise each count may overestimate by
+     * up to its {@code maxOverestimate}.
+     */
+    @McpToolHandler(name = "get_sync_error_summary", description = "Most frequent sync retry errors, grouped into templates")
+    public Map<String, Object> getSyncErrorSummary(
+            @McpToolParam(value = "top_n", description = "Number of error templates to return", defaultValue = "10") Integer topN,
+            @McpToolParam(value = "entity_type", description = "Only entries of this entity type") String entityType,
+            @McpToolParam(value = "status", description = "Only entries with this status") String status,
+            @McpToolParam(value = "since", description = "Only entries created within this duration, e.g. 24h, 7d") String since,
+            ToolOutputSink sink) {
+        log.info("Getting sync error summary - topN: {}, entityType: {}, status: {}, since: {}", topN, entityType, status, since);
+        
+        McpServerConfig.Tools.ErrorSummary config = mcpServerConfig.getTools().getErrorSummary();
+        int limit = Math.min(Math.max(1, topN), config.getMaxTopN());
+        Timestamp from = since == null || since.isBlank()
+                ? null
+                : new Timestamp(System.currentTimeMillis() - parseDuration("since", since).toMillis());
+        
+        SpaceSaving<String, ErrorCluster> sketch = new SpaceSaving<>(config.getCapacity(), template -> new ErrorCluster());
+        long[] scanned = {0};
+        retryTableScanner.scan("entity_id, entity_type, error_message",
+                new RetryTableScanner.Filter(entityType, status, from, null), null, rs -> {
+            ErrorCluster cluster = sketch.offer(ErrorTemplates.of(rs.getString("error_message")));
+            cluster.add(rs.getString("entity_type"), rs.getString("entity_id"), config.getSamplesPerCluster());
+            if (++scanned[0] % SCAN_PROGRESS_INTERVAL == 0) {
+                sink.progress(scanned[0], null, "Scanned " + scanned[0] + " retry entries");
+            }
+        });
+        
+        List<Map<String, Object>> clusters = new ArrayList<>();
+        for (SpaceSaving.Counter<String, ErrorCluster> counter : sketch.top(limit)) {
+            Map<String, Object> cluster = new LinkedHashMap<>();
+            cluster.put("template", counter.key());
+            cluster.put("count", counter.count());
+            cluster.put("maxOverestimate", counter.error());
+            cluster.put("entityTypes", counter.payload().entityTypes);
+            cluster.put("sampleEntityIds", counter.payload().sampleEntityIds);
+            clusters.add(cluster);
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scanned", scanned[0]);
+        result.put("exactCounts", sketch.isExact());
+        result.put("clusters", clusters);
+        return result;
+    }
+    
+    // @McpToolHandler(name = "clear_retry_queue", description = "Clear specific retry entries",
+    //         invalidates = "get_sync_retry_status")
+    public String clearRetryQueue(
+            @McpToolParam(value = "entity_id", description = "Entity ID", required = true) String entityId,
+            @McpToolParam(value = "entity_type", description = "Entity type", required = true) String entityType) {
         log.info("Clearing retry queue for entity ID: {}, type: {}", entityId, entityType);
         
         String sql = """
@@ -178,6 +436,155 @@ public class SyncService {
                 deletedRows, entityId, entityType);
     }
     
+    /**
+     * Delete every retry entry matching the filters, in primary-key chunks on
+     * a background thread so the sync pipeline keeps writing meanwhile. A dry
+     * run, the default, only counts the matching entries per entity type and
+     * status. Follow a started purge with {@code get_purge_status}.
+     */
+    @McpToolHandler(name = "purge_retry_queue", description = "Delete retry entries matching filters in small chunks",
+            destructive = true)
+    public Map<String, Object> purgeRetryQueue(
+            @McpToolParam(value = "entity_type", description = "Entity type (USER, ORGANIZATION)") String entityType,
+            @McpToolParam(value = "status", description = "Retry entry status") String status,
+            @McpToolParam(value = "older_than", description = "Only entries created longer ago than this duration, e.g. 30d") String olderThan,
+            @McpToolParam(value = "error_pattern", description = "SQL LIKE pattern on the error message, e.g. %timeout%") String errorPattern,
+            @McpToolParam(value = "max_rows", description = "Maximum entries to delete") Long maxRows,
+            @McpToolParam(value = "dry_run", description = "Only count the entries that would be deleted", defaultValue = "true") Boolean dryRun) {
+        log.info("Purging retry queue - entityType: {}, status: {}, olderThan: {}, errorPattern: {}, maxRows: {}, dryRun: {}",
+                entityType, status, olderThan, errorPattern, maxRows, dryRun);
+        
+        Timestamp createdBefore = olderThan == null || olderThan.isBlank()
+                ? null
+                : new Timestamp(System.currentTimeMillis() - parseDuration("older_than", olderThan).toMillis());
+        RetryQueuePurge.Criteria criteria = new RetryQueuePurge.Criteria(entityType, status, createdBefore, errorPattern);
+        long limit = mcpServerConfig.getTools().getPurge().getMaxRows();
+        if (maxRows != null) {
+            limit = Math.min(Math.max(1, maxRows), limit);
+        }
+        
+        if (!Boolean.FALSE.equals(dryRun)) {
+            return retryQueuePurge.dryRun(criteria, limit);
+        }
+        // The include_total counts are only stale once rows are gone
+        return retryQueuePurge.start(criteria, limit, retryCounts::invalidateAll).describe();
+    }
+    
+    /**
+     * Progress of the running purge, or the outcome of the last one.
+     */
+    @McpToolHandler(name = "get_purge_status", description = "Progress of the running or last retry queue purge")
+    public Map<String, Object> getPurgeStatus() {
+        RetryQueuePurge.Job job = retryQueuePurge.lastJob();
+        return job == null ? Map.of("state", "NONE") : job.describe();
+    }
+    
+    @McpToolHandler(name = "cancel_purge", description = "Stop the running retry queue purge after its current chunk")
+    public Map<String, Object> cancelPurge() {
+        log.info("Cancelling retry queue purge");
+        return retryQueuePurge.cancel().describe();
+    }
+    
+    private SyncStatusDto mapSyncStatus(ResultSet rs, int rowNum) throws SQLException {
+        return SyncStatusDto.builder()
+                .entityId(rs.getString("entity_id"))
+                .entityType(rs.getString("entity_type"))
+                .syncType(rs.getString("sync_type"))
+                .status(rs.getString("status"))
+                .errorMessage(rs.getString("error_message"))
+                .retryCount(rs.getInt("retry_count"))
+                .maxRetries(rs.getInt("max_retries"))
+                .lastAttempt(rs.getTimestamp("last_attempt") != null ? 
+                        rs.getTimestamp("last_attempt").toLocalDateTime() : null)
+                .nextRetry(rs.getTimestamp("next_retry") != null ? 
+                        rs.getTimestamp("next_retry").toLocalDateTime() : null)
+                .createTime(rs.getTimestamp("create_time") != null ? 
+                        rs.getTimestamp("create_time").toLocalDateTime() : null)
+                .updateTime(rs.getTimestamp("update_time") != null ? 
+                        rs.getTimestamp("update_time").toLocalDateTime() : null)
+                .build();
+    }
+    
+    /**
+     * Passes up to {@code limit} rows on and remembers the cursor of the last
+     * one; a further row only marks that there is a next page.
+     */
+    private static final class RetryPage implements RowCallbackHandler {
+        
+        private final int limit;
+        private final RowCallbackHandler rows;
+        private int count;
+        private RetryCursor last;
+        private boolean hasMore;
+        
+        RetryPage(int limit, RowCallbackHandler rows) {
+            this.limit = limit;
+            this.rows = rows;
+        }
+        
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (count == limit) {
+                hasMore = true;
+                return;
+            }
+            count++;
+            last = RetryCursor.of(rs);
+            rows.processRow(rs);
+        }
+        
+        String nextCursor() {
+            return hasMore ? last.encode() : null;
+        }
+    }
+    
+    /**
+     * Entity types and a few entity IDs seen under one error template since
+     * the sketch assigned it a counter.
+     */
+    private static final class ErrorCluster {
+        
+        // Bounded by the number of entity types
+        private final Set<String> entityTypes = new TreeSet<>();
+        private final List<String> sampleEntityIds = new ArrayList<>();
+        
+        void add(String entityType, String entityId, int maxSamples) {
+            if (entityType != null) {
+                entityTypes.add(entityType);
+            }
+            if (sampleEntityIds.size() < maxSamples) {
+                sampleEntityIds.add(entityId);
+            }
+        }
+    }
+    
+    private static Duration parseDuration(String name, String value) {
+        try {
+            return DurationStyle.detectAndParse(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    /**
+     * One get_sync_metrics row. Entity type, sync type and status are
+     * nullable columns, so the row is not an immutable {@code Map.of}.
+     */
+    private static Map<String, Object> metric(String entityType, String syncType, String status, int count,
+            double avgRetryCount) {
+        Map<String, Object> metric = new LinkedHashMap<>();
+        metric.put("entityType", entityType);
+        metric.put("syncType", syncType);
+        metric.put("status", status);
+        metric.put("count", count);
+        metric.put("avgRetryCount", avgRetryCount);
+        return metric;
+    }
+    
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.isEmpty() || filter.equals(value);
+    }
+    
     private Map<String, Object> calculateSummary(List<Map<String, Object>> metrics) {
         int totalOperations = metrics.stream()
                 .mapToInt(m -> (Integer) m.get("count"))
@@ -196,26 +603,4 @@ public class SyncService {
             "successRate", Math.round(successRate * 100.0) / 100.0
         );
     }
-    
-    private Long getLongArgument(Map<String, Object> arguments, String key) {
-        Object value = arguments.get(key);
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        return Long.parseLong(value.toString());
-    }
-    
-    private Integer getIntegerArgument(Map<String, Object> arguments, String key, Integer defaultValue) {
-        Object value = arguments.get(key);
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        return Integer.parseInt(value.toString());
-    }
 }
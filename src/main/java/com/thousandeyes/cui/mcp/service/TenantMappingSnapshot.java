@@ -0,0 +1,175 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Resident copy of {@code tb_organization_cui_tenant_mapping}, indexed by
+ * org ID. Holds the latest mapping per org.
+ *
+ * The table is loaded at startup and polled every
+ * {@code mcp.server.tenant-mappings.poll-interval} for rows whose
+ * {@code updated_at} is at or past the watermark (rows sharing the watermark
+ * timestamp are read again, which is harmless). Deleted rows are not visible
+ * to the poll, so the table is reloaded in full every
+ * {@code full-reload-interval}.
+ *
+ * Each change publishes a new immutable snapshot, so readers never lock.
+ * Lookups return {@code null} on a miss and when the last
+ * successful sync is older than {@code max-staleness}; callers then go to the
+ * database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TenantMappingSnapshot implements SmartInitializingSingleton {
+
+    private static final String SELECT_SQL = """
+        SELECT org_id, cui_tenant_id, cui_org_id, cui_cluster_url, status, created_at, updated_at
+        FROM te_admin.tb_organization_cui_tenant_mapping
+    """;
+
+    private static final String DELTA_SQL = SELECT_SQL + """
+        WHERE updated_at >= :watermark
+    """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastSyncMillis;
+    private long lastFullLoadMillis;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!mcpServerConfig.getTenantMappings().isEnabled()) {
+            log.info("Tenant mapping snapshot disabled, lookups query the database");
+            return;
+        }
+        sync();
+    }
+
+    /**
+     * Apply rows changed since the watermark, or reload the table when the
+     * full reload is due. Failures keep the current snapshot, which goes
+     * stale after {@code max-staleness}.
+     */
+    @Scheduled(initialDelayString = "#{@mcpServerConfig.tenantMappings.pollInterval.toMillis()}",
+            fixedDelayString = "#{@mcpServerConfig.tenantMappings.pollInterval.toMillis()}")
+    public synchronized void sync() {
+        McpServerConfig.TenantMappings config = mcpServerConfig.getTenantMappings();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            Snapshot current = snapshot;
+            if (current == null || now - lastFullLoadMillis >= config.getFullReloadInterval().toMillis()) {
+                List<TenantMapping> rows = jdbcTemplate.query(SELECT_SQL, new MapSqlParameterSource(), TenantMappingSnapshot::mapRow);
+                this.snapshot = Snapshot.EMPTY.apply(rows);
+                lastFullLoadMillis = now;
+                log.info("Tenant mapping snapshot loaded: {} orgs, watermark {}", snapshot.byOrgId.size(), snapshot.watermark);
+            } else {
+                List<TenantMapping> rows = jdbcTemplate.query(DELTA_SQL,
+                        new MapSqlParameterSource("watermark", current.watermark), TenantMappingSnapshot::mapRow);
+                // Rows at the watermark itself come back on every poll
+                rows.removeIf(current::isCurrent);
+                if (!rows.isEmpty()) {
+                    this.snapshot = current.apply(rows);
+                    log.debug("Tenant mapping snapshot applied {} changed rows, watermark {}", rows.size(), snapshot.watermark);
+                }
+            }
+            lastSyncMillis = now;
+        } catch (Exception e) {
+            log.warn("Tenant mapping sync failed, snapshot is {} ms old: {}",
+                    snapshot == null ? -1 : now - lastSyncMillis, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the snapshot is loaded and synced within {@code max-staleness}.
+     */
+    public boolean isFresh() {
+        return snapshot != null
+                && System.currentTimeMillis() - lastSyncMillis <= mcpServerConfig.getTenantMappings().getMaxStaleness().toMillis();
+    }
+
+    /**
+     * The latest mapping of the org, or {@code null} on a miss or when the
+     * snapshot is stale.
+     */
+    public TenantMapping byOrgId(long orgId) {
+        return isFresh() ? snapshot.byOrgId.get(orgId) : null;
+    }
+
+    static TenantMapping mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new TenantMapping(
+                rs.getLong("org_id"),
+                rs.getString("cui_tenant_id"),
+                rs.getString("cui_org_id"),
+                rs.getString("cui_cluster_url"),
+                rs.getString("status"),
+                rs.getLong("created_at"),
+                rs.getLong("updated_at"));
+    }
+
+    public record TenantMapping(long orgId, String cuiTenantId, String cuiOrgId, String cuiClusterUrl,
+            String status, long createdAt, long updatedAt) {
+    }
+
+    /**
+     * The org index and the highest {@code updated_at} seen. Never
+     * modified once published; {@link #apply} returns a modified copy.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new Long2ObjectOpenHashMap<>(), 0);
+
+        private final Long2ObjectMap<TenantMapping> byOrgId;
+        private final long watermark;
+
+        private Snapshot(Long2ObjectMap<TenantMapping> byOrgId, long watermark) {
+            this.byOrgId = byOrgId;
+            this.watermark = watermark;
+        }
+
+        /**
+         * Whether applying the row would leave this snapshot unchanged.
+         */
+        boolean isCurrent(TenantMapping row) {
+            TenantMapping existing = byOrgId.get(row.orgId());
+            return existing != null && (existing.equals(row) || existing.createdAt() > row.createdAt());
+        }
+
+        Snapshot apply(List<TenantMapping> rows) {
+            Long2ObjectOpenHashMap<TenantMapping> orgs = new Long2ObjectOpenHashMap<>(byOrgId);
+            long newWatermark = watermark;
+
+            for (TenantMapping row : rows) {
+                newWatermark = Math.max(newWatermark, row.updatedAt());
+                TenantMapping existing = orgs.get(row.orgId());
+                // Keep the most recently created mapping per org
+                if (existing != null && existing.createdAt() > row.createdAt()) {
+                    continue;
+                }
+                orgs.put(row.orgId(), row);
+            }
+
+            orgs.trim();
+            return new Snapshot(orgs, newWatermark);
+        }
+    }
+}
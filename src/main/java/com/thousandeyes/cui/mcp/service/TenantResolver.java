@@ -0,0 +1,153 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.google.common.collect.Lists;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.dto.OrganizationDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves CUI tenant IDs and CUI org IDs back to TE organizations.
+ *
+ * IDs are resolved against the mapping table with chunked {@code IN (...)}
+ * queries, so an ID matches every org ever mapped to it, including orgs that
+ * have since moved to another tenant; the {@link TenantMappingSnapshot} only
+ * holds current mappings. An ID can resolve to several orgs. The orgs and
+ * their full mapping history are then loaded with one query each per chunk.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TenantResolver {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final McpServerConfig mcpServerConfig;
+
+    /**
+     * Which mapping column an ID refers to.
+     */
+    public enum Key {
+        CUI_TENANT_ID("cui_tenant_id", "CUI tenant"),
+        CUI_ORG_ID("cui_org_id", "CUI org");
+
+        private final String column;
+        private final String label;
+
+        Key(String column, String label) {
+            this.column = column;
+            this.label = label;
+        }
+    }
+
+    /**
+     * Resolve each ID to {@code {"organizations": [{"org": ..., "mappingHistory": [...]}, ...]}},
+     * keyed by the ID as given. IDs that match no mapping map to an error
+     * entry; {@code null} IDs are ignored.
+     */
+    public Map<String, Object> resolve(Key key, List<String> ids) {
+        McpServerConfig.Tools.Bulk bulk = mcpServerConfig.getTools().getBulk();
+        if (ids.size() > bulk.getMaxIdentifiers()) {
+            throw new IllegalArgumentException("At most " + bulk.getMaxIdentifiers() + " identifiers per call, got " + ids.size());
+        }
+
+        Set<String> distinct = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).map(String::trim).filter(id -> !id.isEmpty()).forEach(distinct::add);
+
+        Map<String, Set<Long>> orgIds = new HashMap<>();
+        String idSql = """
+            SELECT DISTINCT %1$s, org_id FROM te_admin.tb_organization_cui_tenant_mapping
+            WHERE %1$s IN (:ids)
+        """.formatted(key.column);
+        for (List<String> chunk : Lists.partition(new ArrayList<>(distinct), bulk.getChunkSize())) {
+            jdbcTemplate.query(idSql, new MapSqlParameterSource("ids", chunk),
+                    rs -> { orgIds.computeIfAbsent(rs.getString(key.column), k -> new LinkedHashSet<>()).add(rs.getLong("org_id")); });
+        }
+        log.info("Resolved {} of {} {} IDs", orgIds.size(), distinct.size(), key.label);
+
+        Map<Long, OrganizationDto> organizations = new HashMap<>();
+        Map<Long, List<TenantMappingSnapshot.TenantMapping>> histories = new HashMap<>();
+        Set<Long> allOrgIds = new LinkedHashSet<>();
+        orgIds.values().forEach(allOrgIds::addAll);
+        for (List<Long> chunk : Lists.partition(new ArrayList<>(allOrgIds), bulk.getChunkSize())) {
+            loadOrganizations(chunk, organizations);
+            loadHistories(chunk, histories);
+        }
+        histories.forEach((orgId, history) -> {
+            OrganizationDto organization = organizations.get(orgId);
+            if (organization != null) {
+                TenantMappingSnapshot.TenantMapping current = history.get(0);
+                organization.setCuiTenantId(current.cuiTenantId());
+                organization.setCuiOrgId(current.cuiOrgId());
+                organization.setCuiClusterUrl(current.cuiClusterUrl());
+                organization.setMappingStatus(current.status());
+                organization.setMappingCreateTime(current.createdAt());
+            }
+        });
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (id == null) {
+                continue;
+            }
+            Set<Long> mapped = orgIds.get(id.trim());
+            if (mapped == null) {
+                results.put(id, Map.of("error", "No organization mapped to " + key.label + " " + id));
+                continue;
+            }
+
+            List<Map<String, Object>> matches = new ArrayList<>(mapped.size());
+            for (Long orgId : mapped) {
+                OrganizationDto organization = organizations.get(orgId);
+                Map<String, Object> match = new LinkedHashMap<>();
+                match.put("org", organization != null ? organization : OrganizationDto.builder().orgId(orgId).build());
+                match.put("mappingHistory", histories.getOrDefault(orgId, List.of()));
+                matches.add(match);
+            }
+            results.put(id, Map.of("organizations", matches));
+        }
+        return results;
+    }
+
+    private void loadOrganizations(List<Long> orgIds, Map<Long, OrganizationDto> organizations) {
+        String sql = """
+            SELECT o.org_id, o.organization_name, o.flag_cui_migrated, o.date_create, o.delete_time
+            FROM te_admin.tb_organizations o
+            WHERE o.org_id IN (:orgIds)
+        """;
+
+        jdbcTemplate.query(sql, new MapSqlParameterSource("orgIds", orgIds), rs -> {
+            OrganizationDto organization = OrganizationDto.builder()
+                    .orgId(rs.getLong("org_id"))
+                    .orgName(rs.getString("organization_name"))
+                    .cuiMigrationFlag(rs.getBoolean("flag_cui_migrated"))
+                    .createTime(rs.getLong("date_create"))
+                    .deleteTime(rs.getLong("delete_time"))
+                    .build();
+            organizations.put(organization.getOrgId(), organization);
+        });
+    }
+
+    private void loadHistories(List<Long> orgIds, Map<Long, List<TenantMappingSnapshot.TenantMapping>> histories) {
+        String sql = """
+            SELECT org_id, cui_tenant_id, cui_org_id, cui_cluster_url, status, created_at, updated_at
+            FROM te_admin.tb_organization_cui_tenant_mapping
+            WHERE org_id IN (:orgIds)
+            ORDER BY org_id, created_at DESC
+        """;
+
+        jdbcTemplate.query(sql, new MapSqlParameterSource("orgIds", orgIds), TenantMappingSnapshot::mapRow)
+                .forEach(mapping -> histories.computeIfAbsent(mapping.orgId(), orgId -> new ArrayList<>()).add(mapping));
+    }
+}
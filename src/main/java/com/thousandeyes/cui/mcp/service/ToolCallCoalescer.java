@@ -0,0 +1,68 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.tool.RegisteredTool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent calls of the same tool with the same
+ * normalized arguments share one execution and all receive its result.
+ *
+ * The shared execution keeps running while any caller is still subscribed
+ * and is forgotten before its result is delivered, so a call made once a
+ * result has been received runs afresh.
+ * Write tools (those declaring {@code invalidates} or marked destructive)
+ * and streaming calls, whose partial output belongs to one client, always
+ * run on their own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ToolCallCoalescer {
+
+    private final McpServerConfig mcpServerConfig;
+    private final ToolMetrics toolMetrics;
+
+    private final Map<Key, Mono<McpResponse.ToolResult>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<McpResponse.ToolResult> execute(RegisteredTool tool, Map<String, Object> arguments, ToolOutputSink sink,
+            Supplier<Mono<McpResponse.ToolResult>> call) {
+        if (!mcpServerConfig.getTools().isCoalesce() || !tool.invalidates().isEmpty() || tool.isDestructive()
+                || sink.isStreaming()) {
+            return call.get();
+        }
+
+        Key key = new Key(tool.name(), tool.normalize(arguments));
+        AtomicReference<Mono<McpResponse.ToolResult>> created = new AtomicReference<>();
+        Mono<McpResponse.ToolResult> shared = inFlight.computeIfAbsent(key, k -> {
+            // Forget the execution before its result reaches anyone: share() replays it to late subscribers
+            Mono<McpResponse.ToolResult> execution = Mono.defer(call)
+                    .doOnSuccess(result -> inFlight.remove(k, created.get()))
+                    .doOnError(e -> inFlight.remove(k, created.get()))
+                    .doFinally(signal -> inFlight.remove(k, created.get()))
+                    .share();
+            created.set(execution);
+            return execution;
+        });
+
+        if (shared != created.get()) {
+            log.debug("Joining in-flight call of {} {}", key.tool(), key.arguments());
+            toolMetrics.recordCoalesced(key.tool());
+        }
+        return shared;
+    }
+
+    private record Key(String tool, List<Object> arguments) {
+    }
+}
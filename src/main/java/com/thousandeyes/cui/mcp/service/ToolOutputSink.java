@@ -0,0 +1,39 @@
+package com.thousandeyes.cui.mcp.service;
+
+/**
+ * Receives incremental output while a tool is still running.
+ *
+ * Services call {@link #partial(Object)} with each chunk of rows as it is read
+ * and {@link #progress(long, Long, String)} as work advances. McpToolService
+ * renders each chunk once and forwards it to the transport as a
+ * {@code McpResponse.ToolResult.Content}.
+ */
+public interface ToolOutputSink {
+    
+    ToolOutputSink NONE = new ToolOutputSink() {
+        @Override
+        public void progress(long progress, Long total, String message) {
+        }
+        
+        @Override
+        public void partial(Object chunk) {
+        }
+        
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    };
+    
+    void progress(long progress, Long total, String message);
+    
+    void partial(Object chunk);
+    
+    /**
+     * Whether the client asked for partial output. Services only split results
+     * into chunks, and leave them out of the final result, when it did.
+     */
+    default boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.DatabaseConfig;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limits for tool calls, expressed as permits rather than thread
+ * counts so they hold regardless of which threads run the tools.
+ *
+ * JDBC permits match the connection pool size, so callers queue here instead
+ * of inside Hikari. Downstream permits cap in-flight calls to the CUI
+ * Integration Service and Account Management; a call waits up to the tool
+ * timeout for one. Exports hold a JDBC permit for as long as they stream and
+ * are capped separately, so they cannot take every connection.
+ */
+@Component
+@Slf4j
+public class ToolPermits {
+
+    private static final int WAITING = 0;
+    private static final int HELD = 1;
+    private static final int DONE = 2;
+
+    private final Semaphore jdbc;
+    private final Semaphore downstream;
+    private final Semaphore exports;
+    private final long timeout;
+    private final Scheduler waiters;
+
+    public ToolPermits(DatabaseConfig databaseConfig, McpServerConfig mcpServerConfig, Environment environment) {
+        this.jdbc = new Semaphore(databaseConfig.getConnectionPool().getMaximumPoolSize(), true);
+        this.downstream = new Semaphore(mcpServerConfig.getTools().getExecutor().getDownstreamPermits(), true);
+        this.exports = new Semaphore(mcpServerConfig.getStreaming().getMaxConcurrentExports());
+        this.timeout = mcpServerConfig.getTools().getTimeout();
+        // Parking a virtual thread is cheap; on platform threads waits take bounded-elastic workers
+        this.waiters = Threading.VIRTUAL.isActive(environment)
+                ? Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "mcp-permits")
+                : Schedulers.boundedElastic();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (waiters != Schedulers.boundedElastic()) {
+            waiters.dispose();
+        }
+    }
+
+    /**
+     * Run blocking JDBC work once a connection permit is available, waiting
+     * at most the tool timeout.
+     */
+    public <T> T withJdbc(Callable<T> work) throws Exception {
+        if (!jdbc.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Timed out waiting for a database connection permit");
+        }
+        try {
+            return work.call();
+        } finally {
+            jdbc.release();
+        }
+    }
+
+    /**
+     * Take an export slot and a JDBC permit without waiting. Returns whether
+     * both were free; on success the caller must {@link #releaseExport()}.
+     */
+    public boolean tryAcquireExport() {
+        if (!exports.tryAcquire()) {
+            return false;
+        }
+        if (!jdbc.tryAcquire()) {
+            exports.release();
+            return false;
+        }
+        return true;
+    }
+
+    public void releaseExport() {
+        jdbc.release();
+        exports.release();
+    }
+
+    /**
+     * Subscribe to a downstream call once a permit is available, waiting up
+     * to the tool timeout, as calls were throttled by the thread pools before
+     * permits existed. The wait parks a virtual thread, or a bounded-elastic
+     * worker on platform threads, rather than the subscribing thread, which
+     * may be a Netty event loop.
+     */
+    public <T> Mono<T> withDownstream(Mono<T> call) {
+        return Mono.defer(() -> {
+            // WAITING -> HELD -> DONE; a permit acquired after the caller gave up is handed back
+            AtomicInteger state = new AtomicInteger(WAITING);
+            return Mono.fromCallable(() -> {
+                        if (!downstream.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                            log.warn("Timed out waiting for a downstream call permit");
+                            throw new IllegalStateException("Timed out waiting for a downstream call permit");
+                        }
+                        if (!state.compareAndSet(WAITING, HELD)) {
+                            downstream.release();
+                        }
+                        return true;
+                    })
+                    .subscribeOn(waiters)
+                    .flatMap(acquired -> call)
+                    .doFinally(signal -> {
+                        if (state.getAndSet(DONE) == HELD) {
+                            downstream.release();
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.tool.RegisteredTool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches successful results of read-only tools, keyed by the normalized
+ * arguments, with a TTL, size bound and expiry mode per tool.
+ *
+ * Each cache is registered with Micrometer under the tool name
+ * ({@code cache.gets}, {@code cache.size}, {@code cache.evictions}, ...).
+ */
+@Component
+@Slf4j
+public class ToolResultCache {
+
+    private final Map<String, ToolCache> caches = new HashMap<>();
+
+    public ToolResultCache(McpServerConfig mcpServerConfig, MeterRegistry meterRegistry) {
+        McpServerConfig.Tools.Cache config = mcpServerConfig.getTools().getCache();
+        if (!config.isEnabled()) {
+            log.info("MCP tool result cache disabled");
+            return;
+        }
+
+        config.getPolicies().forEach((tool, policy) -> {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .maximumSize(policy.getMaxSize())
+                    .recordStats();
+            if ("access".equalsIgnoreCase(policy.getExpireAfter())) {
+                builder.expireAfterAccess(policy.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                builder.expireAfterWrite(policy.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            Cache<List<Object>, McpResponse.ToolResult> cache = builder.build();
+            GuavaCacheMetrics.monitor(meterRegistry, cache, tool);
+            caches.put(tool, new ToolCache(cache, new AtomicLong()));
+            log.info("Caching results of {} (ttl {}, max {} entries)", tool, policy.getTtl(), policy.getMaxSize());
+        });
+    }
+
+    public boolean isCached(String tool) {
+        return caches.containsKey(tool);
+    }
+
+    /**
+     * The cached result for these arguments, or the result of {@code loader},
+     * which is stored unless the tool was invalidated while it ran.
+     */
+    public Mono<McpResponse.ToolResult> get(RegisteredTool tool, Map<String, Object> arguments,
+            Supplier<Mono<McpResponse.ToolResult>> loader) {
+        ToolCache toolCache = caches.get(tool.name());
+        if (toolCache == null) {
+            return loader.get();
+        }
+
+        List<Object> key = tool.normalize(arguments);
+        McpResponse.ToolResult cached = toolCache.cache().getIfPresent(key);
+        if (cached != null) {
+            log.debug("Cache hit for {} {}", tool.name(), key);
+            return Mono.just(cached);
+        }
+
+        long generation = toolCache.generation().get();
+        return loader.get().doOnNext(result -> {
+            if (!result.isError() && toolCache.generation().get() == generation) {
+                toolCache.cache().put(key, result);
+            }
+        });
+    }
+
+    /**
+     * Drop every cached result of the tools {@code writer} declares as affected.
+     */
+    public void invalidate(RegisteredTool writer) {
+        invalidate(writer.invalidates(), writer.name());
+    }
+
+    /**
+     * Drop every cached result of {@code tools}, for background work that
+     * changes state after its tool call has returned.
+     */
+    public void invalidate(Collection<String> tools, String cause) {
+        for (String tool : tools) {
+            ToolCache toolCache = caches.get(tool);
+            if (toolCache != null) {
+                toolCache.generation().incrementAndGet();
+                toolCache.cache().invalidateAll();
+                log.info("Invalidated cached {} results after {}", tool, cause);
+            }
+        }
+    }
+
+    private record ToolCache(Cache<List<Object>, McpResponse.ToolResult> cache, AtomicLong generation) {
+    }
+}
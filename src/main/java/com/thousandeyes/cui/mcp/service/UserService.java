@@ -1,16 +1,34 @@
 package com.thousandeyes.cui.mcp.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
 import com.thousandeyes.cui.mcp.model.dto.UserDto;
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for user-related MCP operations.
@@ -22,36 +40,134 @@ public class UserService {
     
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final WebClient cuiIntegrationServiceClient;
+    private final McpServerConfig mcpServerConfig;
+    private final ObjectMapper objectMapper;
+    private final TenantMappingSnapshot tenantMappingSnapshot;
     
-    public UserDto getUserById(Map<String, Object> arguments) {
-        String identifier = (String) arguments.get("identifier");
-        Boolean includeCuiMetadata = (Boolean) arguments.getOrDefault("include_cui_metadata", true);
-        
+    @McpToolHandler(name = "get_user_by_id", description = "Retrieve user details by UID or email")
+    public UserDto getUserById(
+            @McpToolParam(value = "identifier", description = "User ID (numeric) or email address", required = true) String identifier,
+            @McpToolParam(value = "include_cui_metadata", description = "Include CUI user metadata", defaultValue = "true") Boolean includeCuiMetadata) {
         log.info("Getting user by identifier: {}", identifier);
         
-        // Try to parse as UID first, then treat as email
-        try {
-            Long uid = Long.parseLong(identifier);
-            return getUserByUid(uid, includeCuiMetadata);
-        } catch (NumberFormatException e) {
-            return getUserByEmail(identifier, includeCuiMetadata);
-        }
+        // Numeric identifiers are UIDs, anything else an email
+        Long uid = parseUid(identifier);
+        return uid != null
+                ? getUser("uid", uid, includeCuiMetadata)
+                : getUser("email", identifier.trim(), includeCuiMetadata);
     }
     
-    public List<UserDto.OrganizationDto> getUserOrganizations(Map<String, Object> arguments) {
-        // Support both 'user_email' and 'identifier' parameter names for flexibility
-        String userEmail = (String) arguments.get("user_email");
-        if (userEmail == null) {
-            userEmail = (String) arguments.get("identifier");
+    /**
+     * Bulk variant of {@link #getUserById}. UIDs and emails are resolved with
+     * chunked {@code IN (...)} queries that join the CUI metadata, so each
+     * chunk is one round trip. Results are keyed by the identifier as given;
+     * identifiers that match no user map to an error entry.
+     */
+    @McpToolHandler(name = "get_users_by_ids", description = "Retrieve many users at once by UID or email")
+    public Map<String, Object> getUsersByIds(
+            @McpToolParam(value = "identifiers", description = "User IDs and/or email addresses", required = true) List<String> identifiers,
+            @McpToolParam(value = "include_cui_metadata", description = "Include CUI user metadata", defaultValue = "true") Boolean includeCuiMetadata) {
+        McpServerConfig.Tools.Bulk bulk = mcpServerConfig.getTools().getBulk();
+        if (identifiers.size() > bulk.getMaxIdentifiers()) {
+            throw new IllegalArgumentException("At most " + bulk.getMaxIdentifiers() + " identifiers per call, got " + identifiers.size());
+        }
+        log.info("Getting {} users by identifier", identifiers.size());
+        
+        Set<Long> uids = new LinkedHashSet<>();
+        Set<String> emails = new LinkedHashSet<>();
+        for (String identifier : identifiers) {
+            Long uid = parseUid(identifier);
+            if (uid != null) {
+                uids.add(uid);
+            } else if (!identifier.isBlank()) {
+                emails.add(identifier.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        
+        Map<Long, UserDto> byUid = new HashMap<>();
+        Map<String, UserDto> byEmail = new HashMap<>();
+        for (List<Long> chunk : Lists.partition(new ArrayList<>(uids), bulk.getChunkSize())) {
+            findUsers("uid", chunk, includeCuiMetadata).forEach(user -> byUid.put(user.getUid(), user));
+        }
+        for (List<String> chunk : Lists.partition(new ArrayList<>(emails), bulk.getChunkSize())) {
+            findUsers("email", chunk, includeCuiMetadata).forEach(user ->
+                    byEmail.put(user.getEmail().toLowerCase(Locale.ROOT), user));
         }
         
-        if (userEmail == null) {
-            throw new IllegalArgumentException("Either 'user_email' or 'identifier' parameter is required");
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String identifier : identifiers) {
+            Long uid = parseUid(identifier);
+            UserDto user = uid != null ? byUid.get(uid) : byEmail.get(identifier.trim().toLowerCase(Locale.ROOT));
+            results.put(identifier, user != null ? user : Map.of("error", "User not found"));
         }
+        return results;
+    }
+    
+    private List<UserDto> findUsers(String column, List<?> values, boolean includeCuiMetadata) {
+        String sql = includeCuiMetadata ? """
+            SELECT u.uid, u.name, u.email, u.flag_registered, m.value AS cui_metadata
+            FROM te_admin.tb_users u
+            LEFT JOIN te_admin.tb_users_metadata m ON m.uid = u.uid AND m.property = 'cuiUserMetadata'
+            WHERE u.%s IN (:values) AND u.delete_time IS NULL
+        """.formatted(column) : """
+            SELECT u.uid, u.name, u.email, u.flag_registered, NULL AS cui_metadata
+            FROM te_admin.tb_users u
+            WHERE u.%s IN (:values) AND u.delete_time IS NULL
+        """.formatted(column);
+        
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("values", values);
         
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            UserDto user = UserDto.builder()
+                    .uid(rs.getLong("uid"))
+                    .name(rs.getString("name"))
+                    .email(rs.getString("email"))
+                    .flagRegistered(rs.getBoolean("flag_registered"))
+                    .build();
+            applyCuiMetadata(user, rs.getString("cui_metadata"));
+            return user;
+        });
+    }
+    
+    private static Long parseUid(String identifier) {
+        try {
+            return Long.parseLong(identifier.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    public List<UserDto.OrganizationDto> getUserOrganizations(String userEmail) {
+        return getUserOrganizations(userEmail, ToolOutputSink.NONE);
+    }
+    
+    /**
+     * Get the organizations of a user. When the sink is streaming, organizations
+     * are sent to it in chunks as they are read and an empty list is returned.
+     * 
+     * While the tenant mapping snapshot is fresh the CUI IDs come from it and
+     * the mapping table is left out of the query; an org missing from a fresh
+     * snapshot has no mapping as of the last poll.
+     */
+    @McpToolHandler(name = "get_user_organizations", description = "Get all organizations a user belongs to")
+    public List<UserDto.OrganizationDto> getUserOrganizations(
+            @McpToolParam(value = "identifier", aliases = "user_email", description = "User's email address", required = true) String userEmail,
+            ToolOutputSink sink) {
         log.info("Getting organizations for user: {}", userEmail);
         
-        String sql = """
+        boolean fromSnapshot = tenantMappingSnapshot.isFresh();
+        String sql = fromSnapshot ? """
+            SELECT DISTINCT o.org_id, o.organization_name
+            FROM te_admin.tb_users u
+            JOIN te_admin.tb_users_accounts ua ON u.uid = ua.uid
+            JOIN te_admin.tb_accounts a ON ua.aid = a.aid
+            JOIN te_admin.tb_organizations o ON a.org_id = o.org_id
+            WHERE u.email = :email
+            AND u.delete_time IS NULL 
+            AND a.delete_time IS NULL
+            AND o.delete_time IS NULL
+        """ : """
             SELECT DISTINCT o.org_id, o.organization_name, octm.cui_tenant_id, octm.cui_org_id
             FROM te_admin.tb_users u
             JOIN te_admin.tb_users_accounts ua ON u.uid = ua.uid
@@ -63,45 +179,46 @@ public class UserService {
             AND a.delete_time IS NULL
             AND o.delete_time IS NULL
         """;
+        RowMapper<UserDto.OrganizationDto> rowMapper = fromSnapshot ? this::mapOrganizationWithSnapshot : this::mapOrganization;
         
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("email", userEmail);
         
-        return jdbcTemplate.query(sql, params, (rs, rowNum) -> 
-            UserDto.OrganizationDto.builder()
-                    .orgId(rs.getLong("org_id"))
-                    .orgName(rs.getString("organization_name"))
-                    .cuiTenantId(rs.getString("cui_tenant_id"))
-                    .cuiOrgId(rs.getString("cui_org_id"))
-                    .build()
-        );
+        if (sink.isStreaming()) {
+            RowChunker<UserDto.OrganizationDto> chunker = new RowChunker<>(rowMapper, sink,
+                    mcpServerConfig.getStreaming().getChunkSize(), "organizations");
+            jdbcTemplate.query(sql, params, chunker);
+            chunker.finish();
+            return List.of();
+        }
+        
+        return jdbcTemplate.query(sql, params, rowMapper);
     }
     
-    public String syncUserProfile(Map<String, Object> arguments) {
-        Long uid = getLongArgument(arguments, "uid");
-        
+    // @McpToolHandler(name = "sync_user_profile", description = "Synchronize user profile information",
+    //         invalidates = {"get_user_by_id", "get_user_cui_metadata"})
+    public Mono<String> syncUserProfile(
+            @McpToolParam(value = "identifier", aliases = "uid", description = "User ID", required = true) Long uid) {
         log.info("Syncing user profile for UID: {}", uid);
         
-        try {
-            // Call the CUI Integration Service API
-            String response = cuiIntegrationServiceClient
-                    .patch()
-                    .uri("/api/v1/users/{uid}", uid)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            return "User profile sync initiated successfully for UID: " + uid;
-        } catch (Exception e) {
-            log.error("Error syncing user profile for UID: {}", uid, e);
-            throw new RuntimeException("Failed to sync user profile: " + e.getMessage());
-        }
+        // Call the CUI Integration Service API
+        return cuiIntegrationServiceClient
+                .patch()
+                .uri("/api/v1/users/{uid}", uid)
+                .retrieve()
+                .bodyToMono(String.class)
+                .then(Mono.just("User profile sync initiated successfully for UID: " + uid))
+                .onErrorMap(e -> {
+                    log.error("Error syncing user profile for UID: {}", uid, e);
+                    return new RuntimeException("Failed to sync user profile: " + e.getMessage());
+                });
     }
     
-    public Object createUserInTenant(Map<String, Object> arguments) {
-        Long uid = getLongArgument(arguments, "uid");
-        Long aid = getLongArgument(arguments, "aid");
-        
+    // @McpToolHandler(name = "create_user_in_tenant", description = "Create user in CUI tenant",
+    //         invalidates = {"get_user_by_id", "get_user_organizations"})
+    public Object createUserInTenant(
+            @McpToolParam(value = "identifier", aliases = "uid", description = "User ID") Long uid,
+            @McpToolParam(value = "aid", description = "Account group ID", required = true) Long aid) {
         log.info("Creating user in tenant - UID: {}, AID: {}", uid, aid);
         
         try {
@@ -122,9 +239,10 @@ public class UserService {
         }
     }
     
-    public String syncUserTenants(Map<String, Object> arguments) {
-        Long uid = getLongArgument(arguments, "uid");
-        
+    // @McpToolHandler(name = "sync_user_tenants", description = "Sync user across all their tenants",
+    //         invalidates = {"get_user_organizations", "get_tenant_mapping_status"})
+    public String syncUserTenants(
+            @McpToolParam(value = "identifier", aliases = "uid", description = "User ID", required = true) Long uid) {
         log.info("Syncing user tenants for UID: {}", uid);
         
         try {
@@ -143,139 +261,85 @@ public class UserService {
         }
     }
     
-    public UserDto getUserCuiMetadata(Map<String, Object> arguments) {
-        log.info("getUserCuiMetadata called with arguments: {}", arguments);
-        Long uid = getLongArgument(arguments, "uid");
-        if(uid == null) {
-            log.info("uid is null, getting uid from identifier");
-            uid = getLongArgument(arguments, "identifier");
-        }
+    @McpToolHandler(name = "get_user_cui_metadata", description = "Retrieve CUI-specific user metadata")
+    public UserDto getUserCuiMetadata(
+            @McpToolParam(value = "identifier", aliases = "uid", description = "User ID", required = true) Long uid) {
         log.info("Getting CUI metadata for UID: {}", uid);
-        
-        String sql = """
-            SELECT u.uid, u.name, u.email, NULL as cui_user_id, NULL as cui_org_id
-            FROM te_admin.tb_users u
-            WHERE u.uid = :uid AND u.delete_time IS NULL
-        """;
-        
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("uid", uid);
-        
-        UserDto user = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> 
-            UserDto.builder()
-                    .uid(rs.getLong("uid"))
-                    .name(rs.getString("name"))
-                    .email(rs.getString("email"))
-                    .cuiUserId(rs.getString("cui_user_id"))
-                    .cuiOrgId(rs.getString("cui_org_id"))
-                    .build()
-        );
-        if (user != null) {
-            // Add CUI metadata
-            enrichWithCuiMetadata(user);
-        }
-        return user;
+        return getUser("uid", uid, true);
     }
     
-    private UserDto getUserByUid(Long uid, Boolean includeCuiMetadata) {
-        String sql = """
-            SELECT u.uid, u.name, u.email, u.flag_registered
-            FROM te_admin.tb_users u
-            WHERE u.uid = :uid AND u.delete_time IS NULL
-        """;
-        
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("uid", uid);
-        
-        UserDto user = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> 
-            UserDto.builder()
-                    .uid(rs.getLong("uid"))
-                    .name(rs.getString("name"))
-                    .email(rs.getString("email"))
-                    .flagRegistered(rs.getBoolean("flag_registered"))
-                    .build()
-        );
-        
-        if (includeCuiMetadata && user != null) {
-            // Add CUI metadata
-            enrichWithCuiMetadata(user);
+    /**
+     * Single-user lookup in one round trip: the user row and, if requested,
+     * its CUI metadata through the same LEFT JOIN as the bulk lookup.
+     */
+    private UserDto getUser(String column, Object value, boolean includeCuiMetadata) {
+        List<UserDto> users = findUsers(column, List.of(value), includeCuiMetadata);
+        if (users.isEmpty()) {
+            throw new IllegalArgumentException("User not found: " + value);
         }
-        
-        return user;
+        return users.get(0);
     }
     
-    private UserDto getUserByEmail(String email, Boolean includeCuiMetadata) {
-        String sql = """
-            SELECT u.uid, u.name, u.email, u.flag_registered
-            FROM te_admin.tb_users u
-            WHERE u.email = :email AND u.delete_time IS NULL
-        """;
-        
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("email", email);
-        
-        UserDto user = jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> 
-            UserDto.builder()
-                    .uid(rs.getLong("uid"))
-                    .name(rs.getString("name"))
-                    .email(rs.getString("email"))
-                    .flagRegistered(rs.getBoolean("flag_registered"))
-                    .build()
-        );
+    private UserDto.OrganizationDto mapOrganization(ResultSet rs, int rowNum) throws SQLException {
+        return UserDto.OrganizationDto.builder()
+                .orgId(rs.getLong("org_id"))
+                .orgName(rs.getString("organization_name"))
+                .cuiTenantId(rs.getString("cui_tenant_id"))
+                .cuiOrgId(rs.getString("cui_org_id"))
+                .build();
+    }
+    
+    private UserDto.OrganizationDto mapOrganizationWithSnapshot(ResultSet rs, int rowNum) throws SQLException {
+        UserDto.OrganizationDto organization = UserDto.OrganizationDto.builder()
+                .orgId(rs.getLong("org_id"))
+                .orgName(rs.getString("organization_name"))
+                .build();
         
-        if (includeCuiMetadata && user != null) {
-            enrichWithCuiMetadata(user);
+        TenantMappingSnapshot.TenantMapping mapping = tenantMappingSnapshot.byOrgId(organization.getOrgId());
+        if (mapping != null && "SUCCESS".equals(mapping.status())) {
+            organization.setCuiTenantId(mapping.cuiTenantId());
+            organization.setCuiOrgId(mapping.cuiOrgId());
         }
-        
-        return user;
+        return organization;
     }
     
-    private void enrichWithCuiMetadata(UserDto user) {
-        log.info("Enriching user with CUI metadata: {}", user);
-        try {
-            String sql = """
-                SELECT value
-                FROM te_admin.tb_users_metadata
-                WHERE uid = :uid AND property = 'cuiUserMetadata'
-            """;
-            
-            MapSqlParameterSource params = new MapSqlParameterSource();
-            params.addValue("uid", user.getUid());
-            
-            String cuiMetadata = jdbcTemplate.queryForObject(sql, params, String.class);
-            log.info("CUI metadata: {}", cuiMetadata);
-            
-            // Parse CUI metadata JSON and set fields
-            if (cuiMetadata != null && !cuiMetadata.trim().isEmpty()) {
-                try {
-                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    com.fasterxml.jackson.databind.JsonNode jsonNode = mapper.readTree(cuiMetadata);
-                    
-                    String cuiUserId = jsonNode.has("cuiUserId") ? jsonNode.get("cuiUserId").asText() : null;
-                    String cuiOrgId = jsonNode.has("cuiOrgId") ? jsonNode.get("cuiOrgId").asText() : null;
-                    
-                    user.setCuiUserId(cuiUserId);
-                    user.setCuiOrgId(cuiOrgId);
-                    
-                    log.info("Parsed CUI metadata - UserId: {}, OrgId: {}", cuiUserId, cuiOrgId);
-                } catch (Exception jsonEx) {
-                    log.error("Error parsing CUI metadata JSON: {}", jsonEx.getMessage());
+    /**
+     * Set the CUI fields from the {@code cuiUserMetadata} JSON value.
+     * 
+     * The value is read with a streaming parser that stops as soon as both
+     * ids are found and skips any other nested content without building a
+     * tree. A missing or empty value leaves the fields unset.
+     */
+    private void applyCuiMetadata(UserDto user, String cuiMetadata) {
+        if (cuiMetadata == null || cuiMetadata.isBlank()) {
+            return;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(cuiMetadata)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME
+                    && (user.getCuiUserId() == null || user.getCuiOrgId() == null)) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("cuiUserId".equals(field)) {
+                    user.setCuiUserId(scalarText(parser, token));
+                } else if ("cuiOrgId".equals(field)) {
+                    user.setCuiOrgId(scalarText(parser, token));
+                } else {
+                    parser.skipChildren();
                 }
             }
-        } catch (Exception e) {
-            log.error("Error enriching user with CUI metadata: {}", e);
+        } catch (IOException e) {
+            log.error("Error parsing CUI metadata JSON for UID {}: {}", user.getUid(), e.getMessage());
         }
     }
     
-    private Long getLongArgument(Map<String, Object> arguments, String key) {
-        Object value = arguments.get(key);
-        log.info("getLongArgument: key='{}', value='{}', valueType='{}'", key, value, value != null ? value.getClass().getSimpleName() : "null");
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
+    private static String scalarText(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+            return parser.getText();
         }
-        return Long.parseLong(value.toString());
+        parser.skipChildren();
+        return null;
     }
 }
@@ -0,0 +1,219 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpTool;
+import com.thousandeyes.cui.mcp.service.ToolOutputSink;
+
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Produces the value of one handler parameter from the raw tool arguments.
+ *
+ * Binders are built once per parameter at startup, with the argument names,
+ * converter and default already resolved, so binding a call is a few map
+ * lookups and no reflection.
+ */
+interface ArgumentBinder {
+
+    Object bind(Map<String, Object> arguments, ToolOutputSink sink);
+
+    /**
+     * Schema property for this parameter, or {@code null} if it is not a
+     * client-supplied argument.
+     */
+    default McpTool.InputSchema.Property property() {
+        return null;
+    }
+
+    default String name() {
+        return null;
+    }
+
+    default boolean required() {
+        return false;
+    }
+
+    static ArgumentBinder forParameter(Parameter parameter) {
+        if (ToolOutputSink.class.equals(parameter.getType())) {
+            return (arguments, sink) -> sink;
+        }
+
+        McpToolParam annotation = parameter.getAnnotation(McpToolParam.class);
+        if (annotation == null) {
+            throw new IllegalStateException("Parameter '" + parameter.getName() + "' of "
+                    + parameter.getDeclaringExecutable() + " is missing @McpToolParam");
+        }
+        return new NamedArgument(annotation, parameter.getType(), parameter.getParameterizedType());
+    }
+
+    final class NamedArgument implements ArgumentBinder {
+
+        private final String name;
+        private final String[] keys;
+        private final boolean required;
+        private final Function<Object, Object> converter;
+        private final Object defaultValue;
+        private final McpTool.InputSchema.Property property;
+
+        NamedArgument(McpToolParam annotation, Class<?> type, Type genericType) {
+            this.name = annotation.value();
+            this.keys = new String[annotation.aliases().length + 1];
+            this.keys[0] = annotation.value();
+            System.arraycopy(annotation.aliases(), 0, this.keys, 1, annotation.aliases().length);
+            this.required = annotation.required();
+            this.converter = List.class.equals(type)
+                    ? listConverter(elementType(genericType, annotation.value()), annotation.value())
+                    : converterFor(type, annotation.value());
+            this.defaultValue = annotation.defaultValue().isEmpty() ? null : converter.apply(annotation.defaultValue());
+
+            if (defaultValue == null && type.isPrimitive() && !required) {
+                throw new IllegalStateException("Primitive argument '" + name + "' needs a default value or required = true");
+            }
+
+            this.property = McpTool.InputSchema.Property.builder()
+                    .type(schemaType(type))
+                    .description(annotation.description().isEmpty() ? null : annotation.description())
+                    .defaultValue(defaultValue)
+                    .items(List.class.equals(type)
+                            ? Map.of("type", schemaType(elementType(genericType, annotation.value())))
+                            : null)
+                    .build();
+        }
+
+        @Override
+        public Object bind(Map<String, Object> arguments, ToolOutputSink sink) {
+            for (String key : keys) {
+                if (arguments.containsKey(key)) {
+                    Object value = arguments.get(key);
+                    if (value != null) {
+                        return converter.apply(value);
+                    }
+                    break;
+                }
+            }
+            if (required) {
+                throw new IllegalArgumentException("Required argument '" + name + "' is missing");
+            }
+            return defaultValue;
+        }
+
+        @Override
+        public McpTool.InputSchema.Property property() {
+            return property;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean required() {
+            return required;
+        }
+
+        private static Function<Object, Object> converterFor(Class<?> type, String name) {
+            if (String.class.equals(type)) {
+                return Object::toString;
+            }
+            if (Long.class.equals(type) || long.class.equals(type)) {
+                return value -> value instanceof Number number ? number.longValue() : parse(name, value, Long::valueOf);
+            }
+            if (Integer.class.equals(type) || int.class.equals(type)) {
+                return value -> value instanceof Number number ? number.intValue() : parse(name, value, Integer::valueOf);
+            }
+            if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+                return value -> value instanceof Boolean bool ? bool : parseBoolean(name, value);
+            }
+            if (Map.class.equals(type)) {
+                return value -> {
+                    if (value instanceof Map<?, ?> map) {
+                        return map;
+                    }
+                    throw new IllegalArgumentException("Argument '" + name + "' must be an object");
+                };
+            }
+            throw new IllegalStateException("Unsupported type " + type.getName() + " for tool argument '" + name + "'");
+        }
+
+        /**
+         * Lists accept a JSON array or, for scalar elements, a comma-separated
+         * string; each element is converted like a scalar argument.
+         */
+        private static Function<Object, Object> listConverter(Class<?> elementType, String name) {
+            Function<Object, Object> element = converterFor(elementType, name);
+            return value -> {
+                List<?> raw;
+                if (value instanceof List<?> list) {
+                    raw = list;
+                } else if (!Map.class.equals(elementType) && value instanceof String text) {
+                    raw = text.isBlank() ? List.of() : List.of(text.split("\\s*,\\s*"));
+                } else {
+                    throw new IllegalArgumentException("Argument '" + name + "' must be an array");
+                }
+
+                List<Object> converted = new ArrayList<>(raw.size());
+                for (Object item : raw) {
+                    if (item == null) {
+                        throw new IllegalArgumentException("Argument '" + name + "' must not contain nulls");
+                    }
+                    converted.add(element.apply(item));
+                }
+                return converted;
+            };
+        }
+
+        private static Class<?> elementType(Type genericType, String name) {
+            if (genericType instanceof ParameterizedType parameterized) {
+                Type argument = parameterized.getActualTypeArguments()[0];
+                if (argument instanceof Class<?> element) {
+                    return element;
+                }
+                if (argument instanceof ParameterizedType nested && nested.getRawType() instanceof Class<?> raw) {
+                    return raw;
+                }
+            }
+            throw new IllegalStateException("List argument '" + name + "' needs a concrete element type");
+        }
+
+        private static Object parse(String name, Object value, Function<String, Object> parser) {
+            try {
+                return parser.apply(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Argument '" + name + "' must be an integer, got: " + value);
+            }
+        }
+
+        private static Boolean parseBoolean(String name, Object value) {
+            String text = value.toString().trim();
+            if ("true".equalsIgnoreCase(text)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(text)) {
+                return false;
+            }
+            throw new IllegalArgumentException("Argument '" + name + "' must be true or false, got: " + value);
+        }
+
+        private static String schemaType(Class<?> type) {
+            if (String.class.equals(type)) {
+                return "string";
+            }
+            if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+                return "boolean";
+            }
+            if (List.class.equals(type)) {
+                return "array";
+            }
+            if (Map.class.equals(type)) {
+                return "object";
+            }
+            return "integer";
+        }
+    }
+}
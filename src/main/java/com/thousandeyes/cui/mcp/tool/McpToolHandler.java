@@ -0,0 +1,49 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method as the handler of an MCP tool.
+ *
+ * Handlers are discovered on {@code @Service} beans at startup by
+ * {@link ToolRegistry}. Every parameter is either annotated with
+ * {@link McpToolParam} or is a {@code ToolOutputSink}; the input schema is
+ * derived from the parameters. Handlers returning {@code Mono} are composed
+ * without blocking, all others run on the JDBC scheduler.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface McpToolHandler {
+
+    /**
+     * Tool name as exposed in {@code tools/list} and {@code tools/call}.
+     */
+    String name();
+
+    String description();
+
+    /**
+     * Tools whose cached results are dropped after this tool succeeds,
+     * for handlers that change state read by those tools.
+     */
+    String[] invalidates() default {};
+
+    /**
+     * Whether the tool changes or deletes data in bulk. Destructive tools can
+     * be disabled at runtime but only enabled through configuration.
+     */
+    boolean destructive() default false;
+
+    /**
+     * Whether the tool only runs other tools through {@code McpToolService}.
+     * Composite tools take no downstream permit and are not bounded by
+     * {@code mcp.server.tools.timeout}, since every call they make is; they
+     * enforce their own deadline.
+     */
+    boolean composite() default false;
+}
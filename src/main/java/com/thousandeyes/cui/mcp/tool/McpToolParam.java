@@ -0,0 +1,46 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a tool argument to a parameter of an {@link McpToolHandler} method.
+ *
+ * Supported parameter types are {@code String}, {@code Long}, {@code Integer},
+ * {@code Boolean} and their primitives, {@code List} and {@code Map}. Numbers
+ * are converted from JSON numbers and strings alike; booleans from JSON
+ * booleans and the strings {@code true} and {@code false}, anything else is
+ * rejected. A {@code List<T>} takes a JSON array, or for scalar {@code T} a
+ * comma-separated string, and converts each element like a {@code T}
+ * argument. A {@code Map} takes a JSON object as is.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface McpToolParam {
+
+    /**
+     * Argument name advertised in the input schema.
+     */
+    String value();
+
+    /**
+     * Other argument names accepted for backwards compatibility, checked in
+     * order after {@link #value()}. The first name present in the arguments
+     * is used, even if its value is null.
+     */
+    String[] aliases() default {};
+
+    String description() default "";
+
+    boolean required() default false;
+
+    /**
+     * Value used when the argument is absent, in its string form. Empty means
+     * no default.
+     */
+    String defaultValue() default "";
+}
@@ -0,0 +1,61 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the MCP tool catalog.
+ *
+ * {@code GET /actuator/mcptools} lists every tool and whether it is enabled;
+ * {@code POST /actuator/mcptools/{name}} with {@code {"enabled": false}}
+ * disables one. Connected clients are sent
+ * {@code notifications/tools/list_changed}.
+ *
+ * The endpoint is not authenticated, so it is not exposed unless added to
+ * {@code management.endpoints.web.exposure.include}, and it refuses to
+ * enable tools marked {@link McpToolHandler#destructive()}; those are
+ * enabled by removing them from {@code mcp.server.tools.disabled} and
+ * restarting.
+ */
+@Component
+@Endpoint(id = "mcptools")
+@RequiredArgsConstructor
+public class McpToolsEndpoint {
+
+    private final ToolRegistry toolRegistry;
+
+    @ReadOperation
+    public Map<String, Object> tools() {
+        return Map.of(
+            "etag", toolRegistry.catalog().etag(),
+            "tools", toolRegistry.states()
+        );
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> setEnabled(@Selector String name, boolean enabled) {
+        if (!toolRegistry.states().containsKey(name)) {
+            return new WebEndpointResponse<>(Map.of("error", "Unknown tool: " + name), WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (enabled && toolRegistry.isDestructive(name) && !toolRegistry.states().get(name)) {
+            return new WebEndpointResponse<>(Map.of("error", name + " is destructive and can only be enabled by "
+                    + "removing it from mcp.server.tools.disabled"), HttpStatus.FORBIDDEN.value());
+        }
+
+        boolean changed = toolRegistry.setEnabled(name, enabled);
+        return new WebEndpointResponse<>(Map.of(
+            "name", name,
+            "enabled", enabled,
+            "changed", changed,
+            "etag", toolRegistry.catalog().etag()
+        ));
+    }
+}
@@ -0,0 +1,116 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpTool;
+import com.thousandeyes.cui.mcp.service.ToolOutputSink;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tool handler resolved at startup: its descriptor, a method handle bound
+ * to the service bean, and one binder per parameter.
+ */
+public final class RegisteredTool {
+
+    private final McpTool descriptor;
+    private final MethodHandle invoker;
+    private final ArgumentBinder[] binders;
+    private final boolean async;
+    private final List<String> invalidates;
+    private final boolean destructive;
+    private final boolean composite;
+
+    RegisteredTool(McpTool descriptor, MethodHandle invoker, ArgumentBinder[] binders, boolean async,
+            List<String> invalidates, boolean destructive, boolean composite) {
+        this.descriptor = descriptor;
+        this.invoker = invoker;
+        this.binders = binders;
+        this.async = async;
+        this.invalidates = invalidates;
+        this.destructive = destructive;
+        this.composite = composite;
+    }
+
+    public String name() {
+        return descriptor.getName();
+    }
+
+    public McpTool descriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Whether the handler returns a {@code Mono} and must not be run on a
+     * blocking scheduler.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Tools whose cached results this tool makes stale.
+     */
+    public List<String> invalidates() {
+        return invalidates;
+    }
+
+    /**
+     * Whether the tool is marked {@link McpToolHandler#destructive()}.
+     */
+    public boolean isDestructive() {
+        return destructive;
+    }
+
+    /**
+     * Whether the tool is marked {@link McpToolHandler#composite()}.
+     */
+    public boolean isComposite() {
+        return composite;
+    }
+
+    /**
+     * The client-supplied arguments after alias resolution, conversion and
+     * defaults, in parameter order. Calls that bind to the same handler
+     * arguments produce equal lists, e.g. {@code {"org_id": "42"}} and
+     * {@code {"identifier": 42}}.
+     */
+    public List<Object> normalize(Map<String, Object> arguments) {
+        List<Object> values = new ArrayList<>(binders.length);
+        for (ArgumentBinder binder : binders) {
+            if (binder.property() != null) {
+                values.add(binder.bind(arguments, null));
+            }
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Bind the arguments and invoke the handler. Exceptions thrown by the
+     * handler propagate unchanged.
+     */
+    public Object invoke(Map<String, Object> arguments, ToolOutputSink sink) throws Exception {
+        Object[] values = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            values[i] = binders[i].bind(arguments, sink);
+        }
+
+        try {
+            return invoker.invokeExact(values);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Invoke an async handler.
+     */
+    public Mono<?> invokeAsync(Map<String, Object> arguments, ToolOutputSink sink) throws Exception {
+        return (Mono<?>) invoke(arguments, sink);
+    }
+}
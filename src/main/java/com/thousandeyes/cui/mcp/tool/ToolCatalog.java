@@ -0,0 +1,59 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.thousandeyes.cui.mcp.model.mcp.McpTool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the enabled tools: the descriptors, their JSON
+ * encoding and an ETag over that encoding. Replaced as a whole whenever a
+ * tool is enabled or disabled.
+ */
+public final class ToolCatalog {
+
+    private final List<McpTool> tools;
+    private final RawValue json;
+    private final String etag;
+
+    ToolCatalog(List<McpTool> tools, byte[] json, String etag) {
+        this.tools = tools;
+        this.json = new RawValue(new String(json, StandardCharsets.UTF_8));
+        this.etag = etag;
+    }
+
+    public List<McpTool> tools() {
+        return tools;
+    }
+
+    /**
+     * The encoded descriptor array, embedded as-is when Jackson writes it.
+     */
+    public RawValue json() {
+        return json;
+    }
+
+    /**
+     * Strong ETag (quoted) identifying this catalog.
+     */
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header value matches this catalog.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
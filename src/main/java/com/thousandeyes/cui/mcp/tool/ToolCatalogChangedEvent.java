@@ -0,0 +1,7 @@
+package com.thousandeyes.cui.mcp.tool;
+
+/**
+ * Published when the set of enabled tools changes.
+ */
+public record ToolCatalogChangedEvent(ToolCatalog catalog) {
+}
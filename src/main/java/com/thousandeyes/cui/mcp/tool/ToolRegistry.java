@@ -0,0 +1,203 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpTool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of MCP tools, built once at startup from {@link McpToolHandler}
+ * methods on {@code @Service} beans.
+ *
+ * Lookups are a single map access. The tool list, its JSON encoding and ETag
+ * are computed once per catalog change and shared by every {@code tools/list}
+ * call. Tools can be disabled at startup ({@code mcp.server.tools.disabled})
+ * or at runtime; each change publishes a {@link ToolCatalogChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ToolRegistry implements SmartInitializingSingleton {
+
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+    private final McpServerConfig mcpServerConfig;
+
+    private final Set<String> disabled = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, RegisteredTool> tools = Map.of();
+    private volatile ToolCatalog catalog;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, RegisteredTool> registered = new HashMap<>();
+
+        for (Object bean : applicationContext.getBeansWithAnnotation(Service.class).values()) {
+            Class<?> targetClass = AopUtils.getTargetClass(bean);
+            Map<Method, McpToolHandler> handlers = MethodIntrospector.selectMethods(targetClass,
+                    (MethodIntrospector.MetadataLookup<McpToolHandler>) method ->
+                            AnnotatedElementUtils.findMergedAnnotation(method, McpToolHandler.class));
+
+            handlers.forEach((method, handler) -> {
+                RegisteredTool tool = register(bean, method, handler);
+                RegisteredTool existing = registered.putIfAbsent(tool.name(), tool);
+                if (existing != null) {
+                    throw new IllegalStateException("Duplicate MCP tool name: " + tool.name());
+                }
+            });
+        }
+
+        this.tools = Map.copyOf(registered);
+        for (String name : mcpServerConfig.getTools().getDisabled()) {
+            if (!tools.containsKey(name)) {
+                log.warn("Ignoring unknown tool in mcp.server.tools.disabled: {}", name);
+                continue;
+            }
+            disabled.add(name);
+        }
+        this.catalog = buildCatalog();
+
+        log.info("Registered {} MCP tools ({} disabled)", tools.size(), disabled.size());
+    }
+
+    /**
+     * The enabled tool with the given name, or {@code null}.
+     */
+    public RegisteredTool get(String name) {
+        return disabled.contains(name) ? null : tools.get(name);
+    }
+
+    /**
+     * The current catalog of enabled tools.
+     */
+    public ToolCatalog catalog() {
+        return catalog;
+    }
+
+    /**
+     * Names of all registered tools, mapped to whether they are enabled.
+     */
+    public Map<String, Boolean> states() {
+        Map<String, Boolean> states = new TreeMap<>();
+        tools.keySet().forEach(name -> states.put(name, !disabled.contains(name)));
+        return states;
+    }
+
+    /**
+     * Whether the named tool is registered and marked destructive.
+     */
+    public boolean isDestructive(String name) {
+        RegisteredTool tool = tools.get(name);
+        return tool != null && tool.isDestructive();
+    }
+
+    /**
+     * Enable or disable a tool. Rebuilds the catalog and publishes a
+     * {@link ToolCatalogChangedEvent} when the state actually changes.
+     *
+     * @return whether the catalog changed
+     */
+    public synchronized boolean setEnabled(String name, boolean enabled) {
+        if (!tools.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown tool: " + name);
+        }
+
+        boolean changed = enabled ? disabled.remove(name) : disabled.add(name);
+        if (!changed) {
+            return false;
+        }
+
+        ToolCatalog updated = buildCatalog();
+        this.catalog = updated;
+        log.info("MCP tool {} {}, catalog ETag now {}", name, enabled ? "enabled" : "disabled", updated.etag());
+        applicationContext.publishEvent(new ToolCatalogChangedEvent(updated));
+        return true;
+    }
+
+    private ToolCatalog buildCatalog() {
+        List<McpTool> list = tools.values().stream()
+                .filter(tool -> !disabled.contains(tool.name()))
+                .map(RegisteredTool::descriptor)
+                .sorted(Comparator.comparing(McpTool::getName))
+                .toList();
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(list);
+            return new ToolCatalog(list, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode MCP tool list", e);
+        }
+    }
+
+    private RegisteredTool register(Object bean, Method method, McpToolHandler handler) {
+        Parameter[] parameters = method.getParameters();
+        ArgumentBinder[] binders = new ArgumentBinder[parameters.length];
+        Map<String, McpTool.InputSchema.Property> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+
+        for (int i = 0; i < parameters.length; i++) {
+            binders[i] = ArgumentBinder.forParameter(parameters[i]);
+            if (binders[i].property() != null) {
+                properties.put(binders[i].name(), binders[i].property());
+                if (binders[i].required()) {
+                    required.add(binders[i].name());
+                }
+            }
+        }
+
+        McpTool descriptor = McpTool.builder()
+                .name(handler.name())
+                .description(handler.description())
+                .inputSchema(McpTool.InputSchema.builder()
+                        .type("object")
+                        .properties(properties)
+                        .required(List.copyOf(required))
+                        .build())
+                .build();
+
+        return new RegisteredTool(descriptor, invoker(bean, method), binders,
+                Mono.class.isAssignableFrom(method.getReturnType()), List.of(handler.invalidates()), handler.destructive(),
+                handler.composite());
+    }
+
+    /**
+     * A handle taking the bound arguments as one {@code Object[]} and
+     * returning {@code Object}, so every call goes through invokeExact.
+     */
+    private static MethodHandle invoker(Object bean, Method method) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method)
+                    .bindTo(bean)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access MCP tool handler " + method, e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.thousandeyes.cui.mcp.transport;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+import com.thousandeyes.cui.mcp.tool.ToolCatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Clients that can currently receive server-initiated notifications: the
+ * stdio client, and HTTP clients holding a {@code GET /mcp} event stream.
+ */
+@Component
+@Slf4j
+public class McpSessionRegistry {
+
+    private final Map<String, McpSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Register a session. {@code sender} must throw if the client is gone so
+     * the session can be dropped.
+     */
+    public McpSession open(Consumer<McpNotification> sender) {
+        McpSession session = new McpSession(UUID.randomUUID().toString(), sender);
+        sessions.put(session.id(), session);
+        log.debug("MCP session {} opened ({} active)", session.id(), sessions.size());
+        return session;
+    }
+
+    public void close(String id) {
+        if (sessions.remove(id) != null) {
+            log.debug("MCP session {} closed ({} active)", id, sessions.size());
+        }
+    }
+
+    public McpSession get(String id) {
+        return id == null ? null : sessions.get(id);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Send a notification to every open session, dropping sessions whose
+     * client has gone away.
+     */
+    public void broadcast(McpNotification notification) {
+        sessions.values().forEach(session -> send(session, notification));
+    }
+
+    /**
+     * Send a notification to one session. Returns {@code false} when the
+     * session is unknown or its client has gone away, in which case it is
+     * dropped.
+     */
+    public boolean send(String id, McpNotification notification) {
+        McpSession session = get(id);
+        return session != null && send(session, notification);
+    }
+
+    private boolean send(McpSession session, McpNotification notification) {
+        try {
+            session.sender().accept(notification);
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Dropping MCP session {}: {}", session.id(), e.getMessage());
+            close(session.id());
+            return false;
+        }
+    }
+
+    @EventListener
+    public void onToolCatalogChanged(ToolCatalogChangedEvent event) {
+        log.info("Tool catalog changed, notifying {} sessions", sessions.size());
+        broadcast(McpNotification.of("notifications/tools/list_changed", null));
+    }
+
+    public record McpSession(String id, Consumer<McpNotification> sender) {
+    }
+}
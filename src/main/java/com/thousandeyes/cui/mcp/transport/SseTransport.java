@@ -0,0 +1,109 @@
+package com.thousandeyes.cui.mcp.transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.service.McpRequestDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Server-Sent Events response mode of the streamable HTTP transport.
+ *
+ * The request is dispatched on the stream executor and every message produced
+ * while it runs (progress, partial tool output, and finally the JSON-RPC
+ * response) is written as its own {@code message} event, so the first rows of
+ * a large result reach the client before the query has finished.
+ *
+ * {@link #listen()} opens a long-lived stream for server-initiated
+ * notifications such as {@code notifications/tools/list_changed}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SseTransport {
+    
+    public static final String SESSION_ID_HEADER = "Mcp-Session-Id";
+    
+    private final McpRequestDispatcher mcpRequestDispatcher;
+    private final McpServerConfig mcpServerConfig;
+    private final AsyncTaskExecutor mcpStreamExecutor;
+    private final McpSessionRegistry mcpSessionRegistry;
+    
+    /**
+     * Dispatch on the stream executor, writing each message as an event.
+     * {@code sessionId} is the client's {@code Mcp-Session-Id}, if any.
+     */
+    public SseEmitter stream(JsonNode body, String sessionId) {
+        SseEmitter emitter = new SseEmitter(mcpServerConfig.getStreaming().getEmitterTimeout());
+        
+        try {
+            mcpStreamExecutor.execute(() -> {
+                try {
+                    Object response = mcpRequestDispatcher.dispatchMessage(body, sessionId, notification -> send(emitter, notification));
+                    if (response != null) {
+                        send(emitter, response);
+                    }
+                    emitter.complete();
+                } catch (UncheckedIOException e) {
+                    log.debug("SSE client disconnected: {}", e.getMessage());
+                    emitter.completeWithError(e.getCause());
+                } catch (Exception e) {
+                    log.error("Error streaming MCP response", e);
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Too many concurrent MCP streams, rejecting request");
+            send(emitter, McpResponse.error(null, McpResponse.McpError.INTERNAL_ERROR, "Server busy, retry later"));
+            emitter.complete();
+        }
+        
+        return emitter;
+    }
+    
+    /**
+     * Open a notification stream and register it as a session. The session
+     * ends when the client disconnects or the stream times out.
+     */
+    public ResponseEntity<SseEmitter> listen() {
+        SseEmitter emitter = new SseEmitter(mcpServerConfig.getStreaming().getSessionTimeout());
+        McpSessionRegistry.McpSession session = mcpSessionRegistry.open(notification -> send(emitter, notification));
+        emitter.onCompletion(() -> mcpSessionRegistry.close(session.id()));
+        emitter.onTimeout(() -> mcpSessionRegistry.close(session.id()));
+        emitter.onError(e -> mcpSessionRegistry.close(session.id()));
+        
+        // Opening comment commits the response headers before the first notification
+        try {
+            emitter.send(SseEmitter.event().comment("session " + session.id()));
+        } catch (IOException e) {
+            mcpSessionRegistry.close(session.id());
+            throw new UncheckedIOException(e);
+        }
+        
+        return ResponseEntity.ok()
+                .header(SESSION_ID_HEADER, session.id())
+                .body(emitter);
+    }
+    
+    /**
+     * Send one JSON-RPC message as an SSE event. A failed write means the
+     * client is gone; it is rethrown so the running tool stops early.
+     */
+    private void send(SseEmitter emitter, Object message) {
+        try {
+            emitter.send(SseEmitter.event().name("message").data(message, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.thousandeyes.cui.mcp.transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.service.McpRequestDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MCP stdio transport: newline-delimited JSON-RPC over stdin/stdout.
+ *
+ * Each line is dispatched on its own worker so slow tool calls do not hold up
+ * the rest of the stream; responses are written as soon as they are ready and
+ * may therefore arrive out of order. Clients correlate them by id.
+ *
+ * With virtual threads enabled each line gets its own virtual thread and
+ * {@code mcp.server.stdio.workers} becomes a cap on in-flight messages.
+ *
+ * Enabled with {@code mcp.server.transport=stdio} (the {@code --stdio} flag).
+ * Logging is redirected to stderr at startup so stdout only ever carries
+ * protocol messages.
+ */
+@Component
+@ConditionalOnProperty(prefix = "mcp.server", name = "transport", havingValue = "stdio")
+@RequiredArgsConstructor
+@Slf4j
+public class StdioTransport implements ApplicationRunner {
+
+    private final McpRequestDispatcher mcpRequestDispatcher;
+    private final McpServerConfig mcpServerConfig;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+    private final Environment environment;
+    private final McpSessionRegistry mcpSessionRegistry;
+
+    private final OutputStream stdout = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+
+    // The stdio client's notification session, for resources/subscribe
+    private volatile String sessionId;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ExecutorService workers = createWorkers();
+        Semaphore inFlight = Threading.VIRTUAL.isActive(environment)
+                ? new Semaphore(mcpServerConfig.getStdio().getWorkers()) : null;
+        McpSessionRegistry.McpSession session = mcpSessionRegistry.open(this::send);
+        sessionId = session.id();
+        log.info("MCP stdio transport started");
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String message = line;
+                if (inFlight == null) {
+                    workers.execute(() -> handle(message));
+                    continue;
+                }
+                // Back-pressure the reader once the in-flight limit is reached
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        handle(message);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            log.info("MCP stdio input closed, shutting down");
+            mcpSessionRegistry.close(session.id());
+            workers.shutdown();
+            workers.awaitTermination(mcpServerConfig.getTools().getTimeout(), TimeUnit.MILLISECONDS);
+        }
+
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+
+    /**
+     * Write a message to the client. Used for responses as well as
+     * server-initiated notifications.
+     */
+    public void send(Object message) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(message);
+            synchronized (stdout) {
+                stdout.write(payload);
+                stdout.write('\n');
+                stdout.flush();
+            }
+        } catch (IOException e) {
+            log.error("Failed to write MCP message to stdout", e);
+        }
+    }
+
+    private void handle(String line) {
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(line);
+        } catch (IOException e) {
+            log.warn("Invalid JSON on stdin: {}", e.getMessage());
+            send(McpResponse.error(null, McpResponse.McpError.PARSE_ERROR, "Parse error"));
+            return;
+        }
+
+        try {
+            Object response = mcpRequestDispatcher.dispatchMessage(body, sessionId, this::send);
+            if (response != null) {
+                send(response);
+            }
+        } catch (Exception e) {
+            log.error("Error handling stdio message", e);
+            Object id = body.isObject() ? objectMapper.convertValue(body.get("id"), Object.class) : null;
+            send(McpResponse.error(id, McpResponse.McpError.INTERNAL_ERROR, "Internal error: " + e.getMessage()));
+        }
+    }
+
+    private ExecutorService createWorkers() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-stdio-", 1).factory());
+        }
+
+        McpServerConfig.Stdio stdio = mcpServerConfig.getStdio();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(stdio.getWorkers(), stdio.getWorkers(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(stdio.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-stdio-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Back-pressure the reader instead of dropping messages
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,97 @@
+package com.thousandeyes.cui.mcp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSON-RPC batches and notifications over {@code POST /mcp}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "database.url=jdbc:h2:mem:mcp-controller;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.health-probe.enabled=false"
+})
+@ActiveProfiles("test")
+class McpControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void mixedBatchAnswersOnlyRequestsWithIds() throws Exception {
+        ResponseEntity<String> response = post("""
+            [{"jsonrpc":"2.0","id":1,"method":"ping"},
+             {"jsonrpc":"2.0","method":"notifications/initialized"},
+             {"jsonrpc":"2.0","method":"ping"},
+             {"jsonrpc":"2.0","method":"tools/call","params":{"name":"no_such_tool"}},
+             {"jsonrpc":"2.0","method":"no/such/method"},
+             {"jsonrpc":"2.0","id":"b","method":"no/such/method"},
+             {"jsonrpc":"2.0","id":3,"method":"ping"}]
+        """);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode body = objectMapper.readTree(response.getBody());
+        assertTrue(body.isArray(), response.getBody());
+        assertEquals(3, body.size(), response.getBody());
+        assertEquals(List.of("1", "b", "3"), body.findValuesAsText("id"));
+        assertEquals(-32601, body.get(1).path("error").path("code").asInt());
+    }
+
+    @Test
+    void batchOfNotificationsIsAcceptedWithoutBody() {
+        ResponseEntity<String> response = post("""
+            [{"jsonrpc":"2.0","method":"notifications/initialized"},
+             {"jsonrpc":"2.0","method":"ping"},
+             {"jsonrpc":"2.0","method":"tools/call","params":{"name":"no_such_tool"}}]
+        """);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void singleNotificationIsAcceptedWithoutBody() {
+        ResponseEntity<String> response = post("""
+            {"jsonrpc":"2.0","method":"no/such/method"}
+        """);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void emptyBatchIsAnInvalidRequest() throws Exception {
+        ResponseEntity<String> response = post("[]");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode body = objectMapper.readTree(response.getBody());
+        assertTrue(body.isObject(), response.getBody());
+        assertEquals(-32600, body.path("error").path("code").asInt());
+        assertTrue(body.path("id").isMissingNode() || body.path("id").isNull());
+    }
+
+    private ResponseEntity<String> post(String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        return restTemplate.postForEntity("/mcp", new HttpEntity<>(body, headers), String.class);
+    }
+}
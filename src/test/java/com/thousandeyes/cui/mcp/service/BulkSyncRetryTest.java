@@ -0,0 +1,159 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Runs a bulk retry job against a local stand-in for the CUI Integration
+ * Service that answers {@code PATCH /api/v1/users/{uid}/sync-tenants}.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:bulk-retry;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.tools.bulk-retry.max-concurrency=3",
+    "mcp.server.tools.bulk-retry.rate-per-second=100",
+    "external-services.cui-integration-service.retry.backoff-delay=10"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkSyncRetryTest {
+
+    private static final HttpServer STAND_IN = startStandIn();
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    private static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+    private static final Map<String, AtomicInteger> CALLS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private BulkSyncRetry bulkSyncRetry;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private ToolResultCache toolResultCache;
+
+    @DynamicPropertySource
+    static void standInUrl(DynamicPropertyRegistry registry) {
+        registry.add("external-services.cui-integration-service.base-url",
+                () -> "http://localhost:" + STAND_IN.getAddress().getPort());
+    }
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_cui_entity_sync_retry_status (entity_id VARCHAR(50), "
+                + "entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), error_message VARCHAR(500), "
+                + "retry_count INT, max_retries INT, last_attempt TIMESTAMP, next_retry TIMESTAMP, "
+                + "create_time TIMESTAMP, update_time TIMESTAMP)");
+        for (int uid = 1; uid <= 30; uid++) {
+            jdbc.update("INSERT INTO te_admin.tb_cui_entity_sync_retry_status VALUES "
+                    + "(?, 'USER', 'TENANT_MIRROR', 'FAILED', 'timeout', 3, 3, NULL, NULL, CURRENT_TIMESTAMP, NULL)", String.valueOf(uid));
+        }
+        jdbc.update("INSERT INTO te_admin.tb_cui_entity_sync_retry_status VALUES "
+                + "('99', 'USER', 'TENANT_MIRROR', 'SUCCESS', NULL, 0, 3, NULL, NULL, CURRENT_TIMESTAMP, NULL)");
+        jdbc.update("INSERT INTO te_admin.tb_cui_entity_sync_retry_status VALUES "
+                + "('5', 'ORGANIZATION', 'TENANT_MIRROR', 'FAILED', 'timeout', 3, 3, NULL, NULL, CURRENT_TIMESTAMP, NULL)");
+    }
+
+    @AfterAll
+    void stopStandIn() {
+        STAND_IN.stop(0);
+    }
+
+    @Test
+    void retriesFailedUsersWithinLimits() throws InterruptedException {
+        List<String> uids = bulkSyncRetry.selectUsers("FAILED", null, 100);
+        assertEquals(30, uids.size());
+        // The job state seen when the affected tools are invalidated
+        AtomicReference<BulkSyncRetry.State> stateAtInvalidation = new AtomicReference<>();
+        doAnswer(invocation -> {
+            stateAtInvalidation.set(bulkSyncRetry.list().get(0).state());
+            return invocation.callRealMethod();
+        }).when(toolResultCache).invalidate(eq(List.of("get_user_by_id", "get_tenant_mapping_status")), anyString());
+
+        long start = System.nanoTime();
+        BulkSyncRetry.Job job = bulkSyncRetry.start(uids, "test");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.state() == BulkSyncRetry.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(BulkSyncRetry.State.COMPLETED, job.state());
+        assertEquals(BulkSyncRetry.State.RUNNING, stateAtInvalidation.get());
+        assertEquals(30, job.outcomes().size());
+        assertTrue(MAX_IN_FLIGHT.get() <= 3, "in flight: " + MAX_IN_FLIGHT.get());
+        // 30 calls at 100 per second
+        assertTrue(elapsedMillis >= 290, "elapsed: " + elapsedMillis);
+
+        // 503 is retried, 404 is final
+        assertEquals(new BulkSyncRetry.Outcome(true, 204, null, 2), job.outcomes().get("7"));
+        BulkSyncRetry.Outcome notFound = job.outcomes().get("13");
+        assertEquals(404, notFound.httpStatus());
+        assertEquals(1, notFound.attempts());
+        assertEquals(1, CALLS.get("13").get());
+        assertNull(job.outcomes().get("99"));
+
+        Map<String, Object> summary = job.describe(10);
+        assertEquals(29, summary.get("succeeded"));
+        assertEquals(1, summary.get("failed"));
+        assertEquals(List.of("13"), List.copyOf(((Map<?, ?>) summary.get("failures")).keySet()));
+    }
+
+    private static HttpServer startStandIn() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newFixedThreadPool(16));
+            server.createContext("/api/v1/users/", exchange -> {
+                String uid = exchange.getRequestURI().getPath().split("/")[4];
+                int call = CALLS.computeIfAbsent(uid, key -> new AtomicInteger()).incrementAndGet();
+                MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(40);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                IN_FLIGHT.decrementAndGet();
+
+                int status = !"PATCH".equals(exchange.getRequestMethod()) ? 405
+                        : "13".equals(uid) ? 404
+                        : "7".equals(uid) && call == 1 ? 503
+                        : 204;
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ErrorTemplatesTest {
+
+    @Test
+    void occurrencesOfTheSameErrorShareATemplate() {
+        String first = ErrorTemplates.of("User 12345 not found in tenant 3f2a9c1e-1b2c-4d5e-8f90-123456789abc at 2024-03-01T12:30:45.123Z");
+        String second = ErrorTemplates.of("User 7 not found in tenant 00000000-aaaa-bbbb-cccc-000000000001 at 2025-11-30 08:00:00+01:00");
+
+        assertEquals("User <n> not found in tenant <uuid> at <time>", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void replacesVariableParts() {
+        assertEquals("Duplicate email <email> for org <n>", ErrorTemplates.of("Duplicate email jane.doe+x@example.com for org 42"));
+        assertEquals("Invalid value '<value>' for field '<value>'", ErrorTemplates.of("Invalid value 'abc 123' for field \"name\""));
+        assertEquals("Request <hex> failed: <hex>, status <n>", ErrorTemplates.of("Request deadbeef01 failed: 0x1f2e3d4c5b, status 503"));
+        // Words that happen to be hex digits stay
+        assertEquals("Connection to cafebabe refused", ErrorTemplates.of("Connection to cafebabe refused"));
+    }
+
+    @Test
+    void collapsesWhitespaceAndTruncates() {
+        assertEquals("Timeout after <n>s", ErrorTemplates.of("  Timeout  after\n\t30s "));
+
+        String truncated = ErrorTemplates.of("x".repeat(400));
+        assertEquals(303, truncated.length());
+        assertTrue(truncated.endsWith("..."));
+
+        // Only the start of long messages is looked at
+        String stackTrace = ErrorTemplates.of("Failed\n" + "  at Frame.call\n".repeat(200) + "Caused by: tail");
+        assertFalse(stackTrace.contains("tail"));
+    }
+
+    @Test
+    void missingMessages() {
+        assertEquals(ErrorTemplates.NO_MESSAGE, ErrorTemplates.of(null));
+        assertEquals(ErrorTemplates.NO_MESSAGE, ErrorTemplates.of(" \n"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls {@code get_sync_retry_status} on five rows with a chunk size of two,
+ * collecting the notifications a transport would send.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:dispatcher;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.streaming.chunk-size=2",
+    "mcp.server.sync-rollups.enabled=false",
+    "mcp.server.change-feed.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class McpRequestDispatcherTest {
+
+    @Autowired
+    private McpRequestDispatcher mcpRequestDispatcher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_cui_entity_sync_retry_status (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_id VARCHAR(50), entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), "
+                + "error_message VARCHAR(500), retry_count INT, max_retries INT, last_attempt TIMESTAMP, "
+                + "next_retry TIMESTAMP, create_time TIMESTAMP, update_time TIMESTAMP)");
+        for (int i = 1; i <= 5; i++) {
+            jdbc.update("INSERT INTO te_admin.tb_cui_entity_sync_retry_status (entity_id, entity_type, sync_type, status, "
+                    + "retry_count, max_retries, create_time) VALUES (?, 'USER', 'TENANT_MIRROR', 'FAILED', 1, 3, CURRENT_TIMESTAMP)",
+                    String.valueOf(i));
+        }
+    }
+
+    @Test
+    void rowsStayInTheResultUnlessTheClientOptsIn() {
+        List<McpNotification> notifications = new ArrayList<>();
+        JsonNode result = call(null, notifications);
+
+        assertTrue(notifications.stream().noneMatch(n -> n.getMethod().equals(NotifyingToolOutputSink.TOOL_OUTPUT)),
+                String.valueOf(notifications));
+        assertEquals(5, result.path("retryStatuses").size(), result.toString());
+    }
+
+    @Test
+    void rowsAreSentAsPartialOutputOnOptIn() {
+        List<McpNotification> notifications = new ArrayList<>();
+        JsonNode result = call(Map.of("partialOutput", true, "progressToken", "p"), notifications);
+
+        assertEquals(3, notifications.stream().filter(n -> n.getMethod().equals(NotifyingToolOutputSink.TOOL_OUTPUT)).count());
+        assertEquals(3, notifications.stream().filter(n -> n.getMethod().equals(NotifyingToolOutputSink.PROGRESS)).count());
+        assertFalse(result.has("retryStatuses"), result.toString());
+        assertEquals(5, result.path("pagination").path("returned").asInt(), result.toString());
+    }
+
+    private JsonNode call(Map<String, Object> meta, List<McpNotification> notifications) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("name", "get_sync_retry_status");
+        params.put("arguments", Map.of("size", 10));
+        if (meta != null) {
+            params.put("_meta", meta);
+        }
+        JsonNode request = objectMapper.valueToTree(Map.of("jsonrpc", "2.0", "id", 1, "method", "tools/call", "params", params));
+
+        McpResponse response = (McpResponse) mcpRequestDispatcher.dispatchMessage(request, notifications::add);
+        McpResponse.ToolResult toolResult = (McpResponse.ToolResult) response.getResult();
+        assertFalse(toolResult.isError(), String.valueOf(toolResult.getContent()));
+        return objectMapper.valueToTree(toolResult.getValue());
+    }
+}
@@ -0,0 +1,172 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs pipelines of {@code check_tenant_control_enabled} steps against a local
+ * stand-in for the CUI Integration Service. Org 1 has children 11, 12 and 13;
+ * org 99 answers after a second. A single downstream permit means a pipeline
+ * that held one itself could not run any step.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:pipeline;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.health-probe.enabled=false",
+    "mcp.server.tools.executor.downstream-permits=1"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PipelineServiceTest {
+
+    private static final String TOOL = "check_tenant_control_enabled";
+    private static final HttpServer STAND_IN = startStandIn();
+
+    @Autowired
+    private McpToolService mcpToolService;
+
+    @Autowired
+    private McpServerConfig mcpServerConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void standInUrl(DynamicPropertyRegistry registry) {
+        registry.add("external-services.cui-integration-service.base-url",
+                () -> "http://localhost:" + STAND_IN.getAddress().getPort());
+    }
+
+    @AfterAll
+    void stopStandIn() {
+        STAND_IN.stop(0);
+    }
+
+    @Test
+    void resolvesReferencesAndFansOut() {
+        Map<String, Object> results = run(
+                step("root", Map.of("identifier", 1)),
+                // A whole-value reference keeps its type, a partial one is interpolated
+                step("second", Map.of("identifier", "${root.details.children.1}")),
+                step("joined", Map.of("identifier", "9${root.details.children.0}")),
+                Map.of("id", "children", "tool", TOOL, "for_each", "${root.details.children}",
+                        "arguments", Map.of("identifier", "${item}")));
+
+        assertEquals(List.of("root", "second", "joined", "children"), List.copyOf(results.keySet()));
+        assertEquals(12L, field(results.get("second"), "orgId"));
+        assertEquals(911L, field(results.get("joined"), "orgId"));
+        List<?> children = (List<?>) results.get("children");
+        assertEquals(List.of(11L, 12L, 13L), children.stream().map(child -> field(child, "orgId")).toList());
+    }
+
+    @Test
+    void skipsDependentsOfFailedSteps() {
+        Map<String, Object> results = run(
+                step("root", Map.of("identifier", 1)),
+                step("broken", Map.of("identifier", "${root.details.missing}")),
+                step("after", Map.of("identifier", "${broken.orgId}")),
+                step("independent", Map.of("identifier", 2)));
+
+        assertTrue(String.valueOf(field(results.get("broken"), "error")).contains("did not resolve"), results.toString());
+        assertEquals(Map.of("skipped", "Depends on failed step 'broken'"), results.get("after"));
+        assertEquals(2L, field(results.get("independent"), "orgId"));
+    }
+
+    @Test
+    void rejectsCyclesAndUnknownSteps() {
+        assertError("cycle", step("a", Map.of("identifier", "${b.orgId}")), step("b", Map.of("identifier", "${a.orgId}")));
+        assertError("unknown step 'nope'", step("a", Map.of("identifier", "${nope.orgId}")));
+        assertError("Duplicate step id", step("a", Map.of("identifier", 1)), step("a", Map.of("identifier", 2)));
+    }
+
+    @Test
+    void hasItsOwnDeadline() {
+        McpServerConfig.Tools.Pipeline limits = mcpServerConfig.getTools().getPipeline();
+        Duration timeout = limits.getTimeout();
+        limits.setTimeout(Duration.ofMillis(300));
+        try {
+            McpResponse.ToolResult result = call(step("slow", Map.of("identifier", 99)));
+            assertTrue(result.isError());
+            assertTrue(result.getContent().get(0).getText().contains("did not finish within"),
+                    result.getContent().get(0).getText());
+        } finally {
+            limits.setTimeout(timeout);
+        }
+    }
+
+    private Map<String, Object> run(Map<?, ?>... steps) {
+        McpResponse.ToolResult result = call(steps);
+        assertFalse(result.isError(), String.valueOf(result.getContent()));
+        // Step results are JSON trees
+        return objectMapper.convertValue(result.getValue(), new TypeReference<Map<String, Object>>() { });
+    }
+
+    private void assertError(String message, Map<?, ?>... steps) {
+        McpResponse.ToolResult result = call(steps);
+        assertTrue(result.isError());
+        assertTrue(result.getContent().get(0).getText().contains(message), result.getContent().get(0).getText());
+    }
+
+    private McpResponse.ToolResult call(Map<?, ?>... steps) {
+        return mcpToolService.executeTool(PipelineService.TOOL_NAME, Map.of("steps", List.of(steps)));
+    }
+
+    private static Map<String, Object> step(String id, Map<String, Object> arguments) {
+        return Map.of("id", id, "tool", TOOL, "arguments", arguments);
+    }
+
+    private static Object field(Object result, String name) {
+        return ((Map<?, ?>) result).get(name);
+    }
+
+    private static HttpServer startStandIn() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.createContext("/api/v1/cui/tenant-control-enabled", exchange -> {
+                String orgId = exchange.getRequestURI().getQuery().replace("orgId=", "");
+                if ("99".equals(orgId)) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                String json = "1".equals(orgId) ? "{\"name\":\"root\",\"children\":[11,12,13]}" : "{\"name\":\"org-" + orgId + "\"}";
+                byte[] body = json.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
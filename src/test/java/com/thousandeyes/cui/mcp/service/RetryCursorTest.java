@@ -0,0 +1,80 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetryCursorTest {
+
+    @Test
+    void roundTrips() throws SQLException {
+        RetryCursor cursor = RetryCursor.of(row(Timestamp.valueOf("2024-03-01 12:30:45.123"), "42", "USER", 9001));
+
+        assertEquals(new RetryCursor(LocalDateTime.parse("2024-03-01T12:30:45.123"), "42", "USER", 9001), cursor);
+        assertEquals(cursor, RetryCursor.decode(cursor.encode()));
+        assertFalse(cursor.encode().contains("="), "unpadded: " + cursor.encode());
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        assertTrue(cursor.seekCondition(params).contains("create_time < :cursorTime"));
+        assertEquals(Timestamp.valueOf("2024-03-01 12:30:45.123"), params.getValue("cursorTime"));
+        assertEquals("42", params.getValue("cursorEntityId"));
+        assertEquals("USER", params.getValue("cursorEntityType"));
+        assertEquals(9001L, params.getValue("cursorId"));
+    }
+
+    @Test
+    void roundTripsRowsWithoutCreateTime() throws SQLException {
+        RetryCursor cursor = RetryCursor.of(row(null, "7", "ORGANIZATION", 3));
+
+        assertNull(cursor.createTime());
+        assertEquals(cursor, RetryCursor.decode(cursor.encode()));
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        assertTrue(cursor.seekCondition(params).contains("create_time IS NULL"));
+        assertFalse(params.hasValue("cursorTime"));
+        assertEquals("7", params.getValue("cursorEntityId"));
+        assertEquals(3L, params.getValue("cursorId"));
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertInvalid("not base64!");
+        assertInvalid(encode("2024-03-01T00:00\n42\nUSER"));
+        assertInvalid(encode("2024-03-01T00:00\n42\nUSER\n1\nextra"));
+        assertInvalid(encode("2024-03-01T00:00\n42\nUSER\nlast"));
+        assertInvalid(encode("yesterday\n42\nUSER\n1"));
+        assertInvalid("");
+    }
+
+    private static void assertInvalid(String cursor) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> RetryCursor.decode(cursor));
+        assertTrue(e.getMessage().startsWith("Invalid cursor"), e.getMessage());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResultSet row(Timestamp createTime, String entityId, String entityType, long id) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getTimestamp("create_time")).thenReturn(createTime);
+        when(rs.getString("entity_id")).thenReturn(entityId);
+        when(rs.getString("entity_type")).thenReturn(entityType);
+        when(rs.getLong("id")).thenReturn(id);
+        return rs;
+    }
+}
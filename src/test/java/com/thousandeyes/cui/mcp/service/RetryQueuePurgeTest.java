@@ -0,0 +1,188 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.config.McpServerConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Purges an in-memory retry table in chunks of 10. The chunk query can be
+ * intercepted to change rows between selecting and deleting them.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:retry-purge;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.tools.purge.chunk-size=10",
+    "mcp.server.tools.purge.pause=1ms",
+    "mcp.server.sync-rollups.enabled=false",
+    "mcp.server.change-feed.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RetryQueuePurgeTest {
+
+    private static final String TABLE = "te_admin.tb_cui_entity_sync_retry_status";
+    private static final Timestamp OLD = Timestamp.from(Instant.now().minus(Duration.ofDays(40)));
+
+    @Autowired
+    private RetryQueuePurge retryQueuePurge;
+
+    @Autowired
+    private McpServerConfig mcpServerConfig;
+
+    @SpyBean
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE " + TABLE + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_id VARCHAR(50), entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), "
+                + "error_message VARCHAR(500), retry_count INT, max_retries INT, last_attempt TIMESTAMP, "
+                + "next_retry TIMESTAMP, create_time TIMESTAMP, update_time TIMESTAMP)");
+    }
+
+    @BeforeEach
+    void clear() {
+        reset(jdbcTemplate);
+        mcpServerConfig.getTools().getPurge().setPause(Duration.ofMillis(1));
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM " + TABLE);
+    }
+
+    @Test
+    void deletesMatchingRowsInChunks() throws InterruptedException {
+        // 35 matching rows interleaved with rows that differ in one predicate each
+        for (int i = 0; i < 35; i++) {
+            insert("USER", "FAILED", OLD, "connect timeout");
+            insert("ORGANIZATION", "FAILED", OLD, "connect timeout");
+            insert("USER", "SUCCESS", OLD, "connect timeout");
+            insert("USER", "FAILED", new Timestamp(System.currentTimeMillis()), "connect timeout");
+            insert("USER", "FAILED", OLD, "404 not found");
+        }
+        AtomicInteger afterDelete = new AtomicInteger();
+
+        RetryQueuePurge.Job job = retryQueuePurge.start(criteria(), 1000, afterDelete::incrementAndGet);
+        Map<String, Object> result = await(job);
+
+        assertEquals(RetryQueuePurge.State.COMPLETED, result.get("state"));
+        assertEquals(35L, result.get("deleted"));
+        assertEquals(4L, result.get("chunks"));
+        assertEquals(0L, count("entity_type = 'USER' AND status = 'FAILED' AND error_message LIKE '%timeout%' "
+                + "AND create_time < DATEADD('DAY', -30, CURRENT_TIMESTAMP)"));
+        assertEquals(4 * 35L, count("1=1"));
+        assertEquals(1, afterDelete.get());
+    }
+
+    @Test
+    void stopsAtMaxRowsInIdOrder() throws InterruptedException {
+        for (int i = 0; i < 30; i++) {
+            insert("USER", "FAILED", OLD, "timeout " + i);
+        }
+        long firstId = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MIN(id) FROM " + TABLE, Long.class);
+
+        Map<String, Object> result = await(retryQueuePurge.start(criteria(), 12, () -> { }));
+
+        assertEquals(12L, result.get("deleted"));
+        assertEquals(2L, result.get("chunks"));
+        assertEquals(firstId + 11, result.get("lastId"));
+        assertEquals(18L, count("id > " + (firstId + 11)));
+    }
+
+    @Test
+    void leavesRowsChangedBetweenSelectAndDelete() throws InterruptedException {
+        for (int i = 0; i < 25; i++) {
+            insert("USER", "FAILED", OLD, "timeout");
+        }
+        // The pipeline picks up the first row of every chunk before it is deleted
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<Long> ids = (List<Long>) invocation.callRealMethod();
+            if (!ids.isEmpty()) {
+                jdbcTemplate.getJdbcTemplate().update("UPDATE " + TABLE + " SET status = 'RETRYING' WHERE id = ?", ids.get(0));
+            }
+            return ids;
+        }).when(jdbcTemplate).queryForList(startsWith("SELECT id FROM"), any(SqlParameterSource.class), eq(Long.class));
+
+        Map<String, Object> result = await(retryQueuePurge.start(criteria(), 1000, () -> { }));
+
+        assertEquals(RetryQueuePurge.State.COMPLETED, result.get("state"));
+        assertEquals(22L, result.get("deleted"));
+        assertEquals(3L, result.get("chunks"));
+        assertEquals(3L, count("status = 'RETRYING'"));
+        assertEquals(3L, count("1=1"));
+    }
+
+    @Test
+    void runsOnePurgeAtATimeAndCancelsBetweenChunks() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            insert("USER", "FAILED", OLD, "timeout");
+        }
+        mcpServerConfig.getTools().getPurge().setPause(Duration.ofMillis(200));
+        AtomicInteger afterDelete = new AtomicInteger();
+
+        RetryQueuePurge.Job job = retryQueuePurge.start(criteria(), 1000, afterDelete::incrementAndGet);
+        assertThrows(IllegalStateException.class, () -> retryQueuePurge.start(criteria(), 1000, () -> { }));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((long) job.describe().get("chunks") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        retryQueuePurge.cancel();
+        Map<String, Object> result = await(job);
+
+        assertEquals(RetryQueuePurge.State.CANCELLED, result.get("state"));
+        assertEquals(10L, result.get("deleted"));
+        assertEquals(40L, count("1=1"));
+        assertEquals(1, afterDelete.get());
+    }
+
+    @Test
+    void requiresAPredicate() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryQueuePurge.Criteria(null, " ", null, ""));
+    }
+
+    private static RetryQueuePurge.Criteria criteria() {
+        return new RetryQueuePurge.Criteria("USER", "FAILED",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(30))), "%timeout%");
+    }
+
+    private Map<String, Object> await(RetryQueuePurge.Job job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.describe().get("state") == RetryQueuePurge.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.describe();
+    }
+
+    private void insert(String entityType, String status, Timestamp created, String error) {
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO " + TABLE + " (entity_id, entity_type, sync_type, status, "
+                + "error_message, retry_count, max_retries, create_time) VALUES ('1', ?, 'TENANT_MIRROR', ?, ?, 1, 3, ?)",
+                entityType, status, error, created);
+    }
+
+    private long count(String where) {
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE " + where, Long.class);
+    }
+}
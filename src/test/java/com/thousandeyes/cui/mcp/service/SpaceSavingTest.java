@@ -0,0 +1,86 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWithinCapacity() {
+        SpaceSaving<String, AtomicInteger> sketch = new SpaceSaving<>(3, key -> new AtomicInteger());
+        for (String key : List.of("a", "b", "a", "c", "a", "b")) {
+            sketch.offer(key).incrementAndGet();
+        }
+
+        assertTrue(sketch.isExact());
+        assertEquals(3, sketch.size());
+        List<SpaceSaving.Counter<String, AtomicInteger>> top = sketch.top(2);
+        assertEquals(List.of("a", "b"), top.stream().map(SpaceSaving.Counter::key).toList());
+        assertEquals(3, top.get(0).count());
+        assertEquals(0, top.get(0).error());
+        assertEquals(3, top.get(0).payload().get());
+        assertEquals(3, sketch.top(10).size());
+    }
+
+    @Test
+    void newKeyTakesOverTheSmallestCounter() {
+        AtomicInteger created = new AtomicInteger();
+        SpaceSaving<String, Integer> sketch = new SpaceSaving<>(2, key -> created.incrementAndGet());
+        sketch.offer("a");
+        sketch.offer("a");
+        Integer bPayload = sketch.offer("b");
+
+        Integer cPayload = sketch.offer("c");
+
+        assertFalse(sketch.isExact());
+        assertEquals(2, sketch.size());
+        assertNotSame(bPayload, cPayload);
+        assertEquals(3, created.get());
+        SpaceSaving.Counter<String, Integer> c = sketch.top(2).stream().filter(counter -> counter.key().equals("c")).findFirst().orElseThrow();
+        // Inherits b's count as its error bound
+        assertEquals(2, c.count());
+        assertEquals(1, c.error());
+        assertSame(cPayload, c.payload());
+    }
+
+    @Test
+    void boundsCountsAndKeepsHeavyHitters() {
+        int capacity = 50;
+        SpaceSaving<Integer, Object> sketch = new SpaceSaving<>(capacity, key -> null);
+        Map<Integer, Integer> exact = new HashMap<>();
+        Random random = new Random(42);
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            // Ten heavy keys take half the stream, the rest is spread over 10000 keys
+            int key = random.nextBoolean() ? random.nextInt(10) : 10 + random.nextInt(10_000);
+            exact.merge(key, 1, Integer::sum);
+            sketch.offer(key);
+        }
+
+        for (SpaceSaving.Counter<Integer, Object> counter : sketch.top(capacity)) {
+            int actual = exact.get(counter.key());
+            assertTrue(counter.count() >= actual, counter.key() + ": " + counter.count() + " < " + actual);
+            assertTrue(counter.count() - counter.error() <= actual, counter.key() + " error too small");
+        }
+
+        List<Integer> tracked = sketch.top(capacity).stream().map(SpaceSaving.Counter::key).toList();
+        exact.forEach((key, count) -> {
+            if (count > n / capacity) {
+                assertTrue(tracked.contains(key), "heavy key " + key + " (" + count + ") not tracked");
+            }
+        });
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9),
+                sketch.top(10).stream().map(SpaceSaving.Counter::key).sorted().toList());
+    }
+}
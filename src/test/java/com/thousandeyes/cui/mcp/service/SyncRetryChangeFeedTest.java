@@ -0,0 +1,106 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpNotification;
+import com.thousandeyes.cui.mcp.transport.McpSessionRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Polls the change feed by hand against an in-memory retry table. The
+ * scheduled poll is pushed out of the way.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:change-feed;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.change-feed.poll-interval=1h"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SyncRetryChangeFeedTest {
+
+    @Autowired
+    private SyncRetryChangeFeed changeFeed;
+
+    @SpyBean
+    private McpSessionRegistry sessionRegistry;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_cui_entity_sync_retry_status (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_id VARCHAR(50), entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), "
+                + "error_message VARCHAR(500), retry_count INT, max_retries INT, last_attempt TIMESTAMP, "
+                + "next_retry TIMESTAMP, create_time TIMESTAMP, update_time TIMESTAMP)");
+    }
+
+    @Test
+    void failedBatchIsSentAgainOnTheNextPoll() {
+        List<McpNotification> received = new CopyOnWriteArrayList<>();
+        String sessionId = sessionRegistry.open(received::add).id();
+        changeFeed.subscribe(sessionId, SyncRetryChangeFeed.URI + "?entity_type=USER");
+
+        insert("1", "USER");
+        insert("2", "ORGANIZATION");
+        insert("3", "USER");
+
+        // The batch fails after it was read
+        doThrow(new IllegalStateException("send failed")).doCallRealMethod()
+                .when(sessionRegistry).send(eq(sessionId), any());
+        changeFeed.poll();
+        assertTrue(received.isEmpty());
+
+        changeFeed.poll();
+        assertEquals(List.of("1", "3"), entityIds(received.get(0)));
+
+        // Nothing is sent twice once the batch went out
+        changeFeed.poll();
+        assertEquals(1, received.size());
+
+        insert("4", "USER");
+        jdbcTemplate.getJdbcTemplate().update("UPDATE te_admin.tb_cui_entity_sync_retry_status "
+                + "SET status = 'SUCCESS', update_time = DATEADD('SECOND', 1, CURRENT_TIMESTAMP) WHERE entity_id = '1'");
+        changeFeed.poll();
+        assertEquals(2, received.size());
+        assertEquals(List.of("4", "1"), entityIds(received.get(1)));
+        assertEquals("UPDATED", changes(received.get(1)).get(1).change());
+
+        changeFeed.unsubscribe(sessionId, SyncRetryChangeFeed.URI + "?entity_type=USER");
+        sessionRegistry.close(sessionId);
+    }
+
+    private void insert(String entityId, String entityType) {
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO te_admin.tb_cui_entity_sync_retry_status "
+                + "(entity_id, entity_type, sync_type, status, error_message, retry_count, max_retries, create_time) "
+                + "VALUES (?, ?, 'TENANT_MIRROR', 'FAILED', 'timeout', 1, 3, CURRENT_TIMESTAMP)", entityId, entityType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SyncRetryChangeFeed.Change> changes(McpNotification notification) {
+        return (List<SyncRetryChangeFeed.Change>) ((Map<String, Object>) notification.getParams()).get("changes");
+    }
+
+    private static List<String> entityIds(McpNotification notification) {
+        return changes(notification).stream().map(SyncRetryChangeFeed.Change::entityId).toList();
+    }
+}
@@ -0,0 +1,207 @@
+package com.thousandeyes.cui.mcp.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads rollups of an in-memory retry table with a two hour minute ring and
+ * a two day hour ring. Rows are placed relative to the current minute and
+ * hour, so each test first waits until it is not about to cross a minute.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:sync-rollups;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.sync-rollups.poll-interval=1h",
+    "mcp.server.sync-rollups.minute-retention=2h",
+    "mcp.server.sync-rollups.hour-retention=2d",
+    "mcp.server.change-feed.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SyncRollupsTest {
+
+    private static final String TABLE = "te_admin.tb_cui_entity_sync_retry_status";
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private static final SyncRollups.Series USER_FAILED = new SyncRollups.Series("USER", "TENANT_MIRROR", "FAILED");
+    private static final SyncRollups.Series USER_SUCCESS = new SyncRollups.Series("USER", "TENANT_MIRROR", "SUCCESS");
+    private static final SyncRollups.Series ORG_FAILED = new SyncRollups.Series("ORGANIZATION", "TENANT_MIRROR", "FAILED");
+
+    @Autowired
+    private SyncRollups syncRollups;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private long minute;
+    private long hour;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_id VARCHAR(50), entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), "
+                + "error_message VARCHAR(500), retry_count INT, max_retries INT, last_attempt TIMESTAMP, "
+                + "next_retry TIMESTAMP, create_time TIMESTAMP, update_time TIMESTAMP)");
+    }
+
+    @BeforeEach
+    void clear() throws InterruptedException {
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM " + TABLE);
+        // Leave at least 10 seconds before the next minute, and so before the next hour
+        long now = System.currentTimeMillis();
+        if (now % MINUTE > 50_000) {
+            Thread.sleep(MINUTE - now % MINUTE + 100);
+            now = System.currentTimeMillis();
+        }
+        minute = now / MINUTE;
+        hour = now / HOUR;
+    }
+
+    @Test
+    void bucketsByCreateTimeAndSeries() {
+        insertInMinute(minute - 10, USER_FAILED, 3);
+        insertInMinute(minute - 10, USER_FAILED, 3);
+        insertInMinute(minute - 10, USER_SUCCESS, 0);
+        insertInMinute(minute - 70, ORG_FAILED, 1);
+        // Only in the hour ring
+        for (int i = 0; i < 4; i++) {
+            insertInHour(hour - 5, USER_FAILED, 2);
+        }
+        rebuild();
+
+        Map<SyncRollups.Series, SyncRollups.Totals> halfHour = totals(Duration.ofMinutes(30));
+        assertEquals(2, halfHour.size(), halfHour.toString());
+        assertEquals(new SyncRollups.Totals(USER_FAILED, 2, 6), halfHour.get(USER_FAILED));
+        assertEquals(new SyncRollups.Totals(USER_SUCCESS, 1, 0), halfHour.get(USER_SUCCESS));
+        assertEquals(3.0, halfHour.get(USER_FAILED).avgRetryCount());
+
+        assertEquals(new SyncRollups.Totals(ORG_FAILED, 1, 1), totals(Duration.ofMinutes(90)).get(ORG_FAILED));
+
+        Map<SyncRollups.Series, SyncRollups.Totals> day = totals(Duration.ofHours(24));
+        assertEquals(new SyncRollups.Totals(USER_FAILED, 6, 14), day.get(USER_FAILED));
+        assertEquals(new SyncRollups.Totals(USER_SUCCESS, 1, 0), day.get(USER_SUCCESS));
+        assertEquals(new SyncRollups.Totals(ORG_FAILED, 1, 1), day.get(ORG_FAILED));
+    }
+
+    @Test
+    void windowSkipsTheBucketHoldingItsStart() {
+        // The window start falls in minute - 10 and hour - 6
+        insertInMinute(minute - 10, USER_FAILED, 1);
+        insertInMinute(minute - 9, USER_SUCCESS, 1);
+        insertInMinute(minute, USER_SUCCESS, 1);
+        insertInHour(hour - 6, ORG_FAILED, 1);
+        insertInHour(hour - 5, ORG_FAILED, 1);
+        rebuild();
+
+        Map<SyncRollups.Series, SyncRollups.Totals> tenMinutes = totals(Duration.ofMinutes(10));
+        assertNull(tenMinutes.get(USER_FAILED));
+        assertEquals(2, tenMinutes.get(USER_SUCCESS).entries());
+        assertEquals(1, totals(Duration.ofMinutes(11)).get(USER_FAILED).entries());
+
+        // Beyond the minute ring, hours are counted whole
+        Map<SyncRollups.Series, SyncRollups.Totals> sixHours = totals(Duration.ofHours(6));
+        assertEquals(1, sixHours.get(ORG_FAILED).entries());
+        assertEquals(2, totals(Duration.ofHours(7)).get(ORG_FAILED).entries());
+
+        assertTrue(syncRollups.covers(Duration.ofDays(2)));
+        assertFalse(syncRollups.covers(Duration.ofDays(3)));
+        assertTrue(syncRollups.covers(Duration.ofHours(1), Duration.ofMinutes(5)));
+        assertFalse(syncRollups.covers(Duration.ofHours(12), Duration.ofMinutes(5)));
+        assertTrue(syncRollups.covers(Duration.ofHours(12), Duration.ofHours(1)));
+    }
+
+    @Test
+    void trendPointsAreAlignedToTheStep() {
+        insertInMinute(minute - 10, USER_FAILED, 2);
+        insertInMinute(minute - 10, USER_SUCCESS, 0);
+        insertInMinute(minute - 40, ORG_FAILED, 1);
+        rebuild();
+
+        Duration step = Duration.ofMinutes(15);
+        List<SyncRollups.Point> trend = syncRollups.trend(Duration.ofHours(1), step,
+                series -> series.entityType().equals("USER"));
+        long firstPoint = (minute * MINUTE - HOUR) / step.toMillis();
+        assertEquals(firstPoint * step.toMillis(), trend.get(0).start().toEpochMilli());
+        trend.forEach(point -> assertEquals(0, point.start().toEpochMilli() % step.toMillis()));
+
+        SyncRollups.Point point = trend.get((int) ((minute - 10) * MINUTE / step.toMillis() - firstPoint));
+        assertEquals(2, point.entries());
+        assertEquals(2, point.retrySum());
+        assertEquals(Map.of("FAILED", 1L, "SUCCESS", 1L), point.byStatus());
+        assertEquals(2, trend.stream().mapToLong(SyncRollups.Point::entries).sum());
+    }
+
+    @Test
+    void appliesChangesAndSeesDeletesOnRebuild() {
+        insertInMinute(minute - 10, USER_FAILED, 1);
+        insertInHour(hour - 5, USER_FAILED, 1);
+        rebuild();
+
+        // A status change in the minute ring and one only in the hour ring
+        jdbcTemplate.getJdbcTemplate().update("UPDATE " + TABLE + " SET status = 'SUCCESS', update_time = CURRENT_TIMESTAMP");
+        // A new row is created now, after the watermark
+        insert(System.currentTimeMillis(), ORG_FAILED, 4);
+        syncRollups.sync();
+
+        Map<SyncRollups.Series, SyncRollups.Totals> day = totals(Duration.ofHours(24));
+        assertNull(day.get(USER_FAILED), day.toString());
+        assertEquals(new SyncRollups.Totals(USER_SUCCESS, 2, 2), day.get(USER_SUCCESS));
+        assertEquals(new SyncRollups.Totals(ORG_FAILED, 1, 4), day.get(ORG_FAILED));
+        assertEquals(new SyncRollups.Totals(USER_SUCCESS, 1, 1), totals(Duration.ofMinutes(30)).get(USER_SUCCESS));
+
+        // Deleted rows are only seen by a rebuild
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM " + TABLE + " WHERE entity_type = 'ORGANIZATION'");
+        syncRollups.sync();
+        assertEquals(1, totals(Duration.ofHours(24)).get(ORG_FAILED).entries());
+        rebuild();
+        assertNull(totals(Duration.ofHours(24)).get(ORG_FAILED));
+    }
+
+    private void rebuild() {
+        syncRollups.requestRebuild();
+        syncRollups.sync();
+        assertTrue(syncRollups.isFresh());
+    }
+
+    private Map<SyncRollups.Series, SyncRollups.Totals> totals(Duration window) {
+        return syncRollups.totals(window).stream()
+                .collect(Collectors.toMap(SyncRollups.Totals::series, totals -> totals));
+    }
+
+    private void insertInMinute(long bucket, SyncRollups.Series series, int retryCount) {
+        insert(bucket * MINUTE + MINUTE / 2, series, retryCount);
+    }
+
+    private void insertInHour(long bucket, SyncRollups.Series series, int retryCount) {
+        insert(bucket * HOUR + HOUR / 2, series, retryCount);
+    }
+
+    private void insert(long createdMillis, SyncRollups.Series series, int retryCount) {
+        // Rows in the current minute may not be in the future
+        Timestamp created = Timestamp.from(Instant.ofEpochMilli(Math.min(createdMillis, System.currentTimeMillis())));
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO " + TABLE + " (entity_id, entity_type, sync_type, status, "
+                + "error_message, retry_count, max_retries, create_time) VALUES ('1', ?, ?, ?, 'timeout', ?, 3, ?)",
+                series.entityType(), series.syncType(), series.status(), retryCount, created);
+    }
+}
@@ -0,0 +1,94 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.model.dto.SyncStatusDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages through an in-memory retry table whose rows tie on everything but
+ * the primary key: one entity with several sync types, created in the same
+ * second.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:sync-service;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.sync-rollups.enabled=false",
+    "mcp.server.change-feed.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SyncServiceTest {
+
+    private static final String TABLE = "te_admin.tb_cui_entity_sync_retry_status";
+    private static final List<String> SYNC_TYPES = List.of("TENANT_MIRROR", "PROFILE", "ROLES", "REGIONS", "ACCOUNTS");
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE " + TABLE + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entity_id VARCHAR(50), entity_type VARCHAR(20), sync_type VARCHAR(20), status VARCHAR(20), "
+                + "error_message VARCHAR(500), retry_count INT, max_retries INT, last_attempt TIMESTAMP, "
+                + "next_retry TIMESTAMP, create_time TIMESTAMP(0), update_time TIMESTAMP)");
+        Timestamp second = Timestamp.valueOf("2024-03-01 12:00:00");
+        for (String entityId : List.of("1", "2")) {
+            for (String syncType : SYNC_TYPES) {
+                insert(entityId, syncType, second);
+                insert(entityId, syncType, null);
+            }
+        }
+        insert("3", "TENANT_MIRROR", Timestamp.valueOf("2024-03-01 12:00:01"));
+    }
+
+    @Test
+    void pagesThroughTiedRowsWithoutLosingAny() {
+        for (int size = 1; size <= 4; size++) {
+            List<SyncStatusDto> rows = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                Map<String, Object> page = syncService.getSyncRetryStatus(cursor, size, "USER");
+                @SuppressWarnings("unchecked")
+                List<SyncStatusDto> retryStatuses = (List<SyncStatusDto>) page.get("retryStatuses");
+                rows.addAll(retryStatuses);
+                cursor = (String) page.get("nextCursor");
+                pages++;
+            } while (cursor != null && pages < 100);
+
+            assertEquals(21, rows.size(), "page size " + size);
+            Set<String> keys = new HashSet<>();
+            for (SyncStatusDto row : rows) {
+                assertTrue(keys.add(row.getEntityId() + "/" + row.getSyncType() + "/" + row.getCreateTime()),
+                        "page size " + size + " repeated " + row);
+            }
+            assertEquals("3", rows.get(0).getEntityId());
+        }
+    }
+
+    private void insert(String entityId, String syncType, Timestamp created) {
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO " + TABLE + " (entity_id, entity_type, sync_type, status, "
+                + "retry_count, max_retries, create_time) VALUES (?, 'USER', ?, 'FAILED', 1, 3, ?)",
+                entityId, syncType, created);
+    }
+}
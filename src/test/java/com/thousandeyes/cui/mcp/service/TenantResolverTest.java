@@ -0,0 +1,83 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.model.dto.OrganizationDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resolves CUI tenant IDs against an in-memory mapping table where org 1
+ * moved from tenant {@code t-a} to {@code t-b} and org 2 is on {@code t-a}.
+ * The snapshot is loaded, so it holds only the current mapping of each org.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:tenant-resolver;MODE=MySQL;NON_KEYWORDS=VALUE"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TenantResolverTest {
+
+    @Autowired
+    private TenantResolver tenantResolver;
+
+    @Autowired
+    private TenantMappingSnapshot tenantMappingSnapshot;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS te_admin.tb_organizations (org_id BIGINT PRIMARY KEY, "
+                + "organization_name VARCHAR(100), flag_cui_migrated BOOLEAN, date_create BIGINT, delete_time BIGINT)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS te_admin.tb_organization_cui_tenant_mapping (org_id BIGINT, "
+                + "cui_tenant_id VARCHAR(50), cui_org_id VARCHAR(50), cui_cluster_url VARCHAR(200), status VARCHAR(20), "
+                + "created_at BIGINT, updated_at BIGINT)");
+        jdbc.update("INSERT INTO te_admin.tb_organizations VALUES (1, 'Moved', TRUE, 0, 0), (2, 'Stayed', TRUE, 0, 0)");
+        jdbc.update("INSERT INTO te_admin.tb_organization_cui_tenant_mapping VALUES "
+                + "(1, 't-a', 'o-1', 'https://cui', 'SUCCESS', 100, 100), "
+                + "(1, 't-b', 'o-1', 'https://cui', 'SUCCESS', 200, 200), "
+                + "(2, 't-a', 'o-2', 'https://cui', 'SUCCESS', 150, 150)");
+        tenantMappingSnapshot.sync();
+    }
+
+    @Test
+    void resolvesEveryOrgEverMappedToTheTenant() {
+        assertTrue(tenantMappingSnapshot.isFresh());
+        Map<String, Object> results = tenantResolver.resolve(TenantResolver.Key.CUI_TENANT_ID, List.of("t-a", "t-b"));
+
+        assertEquals(List.of(1L, 2L), orgIds(results.get("t-a")));
+        assertEquals(List.of(1L), orgIds(results.get("t-b")));
+    }
+
+    @Test
+    void reportsUnknownIdsAndSkipsNulls() {
+        Map<String, Object> results = tenantResolver.resolve(TenantResolver.Key.CUI_ORG_ID, Arrays.asList("o-2", null, "o-9"));
+
+        assertEquals(List.of("o-2", "o-9"), List.copyOf(results.keySet()));
+        assertEquals(List.of(2L), orgIds(results.get("o-2")));
+        assertEquals(Map.of("error", "No organization mapped to CUI org o-9"), results.get("o-9"));
+    }
+
+    private static List<Long> orgIds(Object result) {
+        List<?> organizations = (List<?>) ((Map<?, ?>) result).get("organizations");
+        return organizations.stream()
+                .map(match -> ((OrganizationDto) ((Map<?, ?>) match).get("org")).getOrgId())
+                .sorted()
+                .toList();
+    }
+}
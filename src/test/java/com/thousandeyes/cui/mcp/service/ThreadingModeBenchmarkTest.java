@@ -0,0 +1,177 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.thousandeyes.cui.mcp.McpServerApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares tool call throughput over {@code POST /mcp} with request handling
+ * and tool work on platform threads and on virtual threads. Half the calls
+ * are JDBC tools ({@code get_user_by_id} on an in-memory database), half wait
+ * on a CUI Integration Service stand-in that answers after
+ * {@link #DOWNSTREAM_LATENCY_MS}.
+ *
+ * Run with {@code ./gradlew benchmark}. Calls rejected for want of a
+ * downstream permit are counted separately; both modes wait for one, so none
+ * are expected.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ThreadingModeBenchmarkTest {
+
+    private static final int DOWNSTREAM_LATENCY_MS = 20;
+    private static final int USERS = 500;
+    private static final int CALLS_PER_CLIENT = 20;
+    private static final int[] CLIENTS = {32, 256};
+
+    private final HttpServer standIn = startStandIn();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @AfterAll
+    void stopStandIn() {
+        standIn.stop(0);
+    }
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[] {false, true}) {
+            try (ConfigurableApplicationContext context = start(virtualThreads)) {
+                createSchema(context.getBean(JdbcTemplate.class));
+                int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+                run(port, 16, CALLS_PER_CLIENT);
+
+                for (int clients : CLIENTS) {
+                    Result result = run(port, clients, CALLS_PER_CLIENT);
+                    report.add(String.format("%-8s %4d clients: %7.0f calls/s, p99 %5d ms, %4d rejected",
+                            virtualThreads ? "virtual" : "platform", clients, result.callsPerSecond(),
+                            result.p99Millis(), result.rejected()));
+                    assertEquals(0, result.rejected(), "calls wait for downstream permits");
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext start(boolean virtualThreads) {
+        String mode = virtualThreads ? "virtual" : "platform";
+        return new SpringApplicationBuilder(McpServerApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--database.url=jdbc:h2:mem:threading-" + mode + ";MODE=MySQL;NON_KEYWORDS=VALUE",
+                        "--external-services.cui-integration-service.base-url=http://localhost:" + standIn.getAddress().getPort(),
+                        "--mcp.server.tools.cache.enabled=false",
+                        "--mcp.server.tools.coalesce=false",
+                        "--mcp.server.health-probe.enabled=false",
+                        "--logging.level.com.thousandeyes.cui.mcp=WARN",
+                        "--logging.level.org.springframework.jdbc=WARN");
+    }
+
+    private static void createSchema(JdbcTemplate jdbc) {
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_users (uid BIGINT PRIMARY KEY, name VARCHAR(100), "
+                + "email VARCHAR(100), flag_registered BOOLEAN, delete_time TIMESTAMP)");
+        jdbc.execute("CREATE TABLE te_admin.tb_users_metadata (uid BIGINT, property VARCHAR(64), value TEXT, "
+                + "PRIMARY KEY (uid, property))");
+        for (int uid = 1; uid <= USERS; uid++) {
+            jdbc.update("INSERT INTO te_admin.tb_users VALUES (?, ?, ?, TRUE, NULL)", uid, "User " + uid, "user" + uid + "@example.com");
+        }
+    }
+
+    private Result run(int port, int clients, int callsPerClient) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int clientId = client;
+                futures.add(executor.submit(() -> {
+                    for (int call = 0; call < callsPerClient; call++) {
+                        long callStart = System.nanoTime();
+                        String body = call(port, clientId * callsPerClient + call);
+                        latencies.add((System.nanoTime() - callStart) / 1_000_000);
+                        if (body.contains("\"isError\":true")) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(sorted.size() * 0.99) - 1));
+        return new Result(latencies.size() / seconds, p99, rejected.get());
+    }
+
+    private String call(int port, int id) throws IOException, InterruptedException {
+        String tool = id % 2 == 0
+                ? "\"name\":\"check_tenant_control_enabled\",\"arguments\":{\"org_id\":" + id + "}"
+                : "\"name\":\"get_user_by_id\",\"arguments\":{\"identifier\":\"" + (1 + id % USERS) + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/mcp"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{" + tool + "}}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+    }
+
+    private static HttpServer startStandIn() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/api/v1/cui/", exchange -> {
+                try {
+                    Thread.sleep(DOWNSTREAM_LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = "{\"enabled\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Result(double callsPerSecond, long p99Millis, int rejected) {
+    }
+}
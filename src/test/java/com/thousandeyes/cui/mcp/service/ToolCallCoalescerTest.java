@@ -0,0 +1,166 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls {@code check_tenant_control_enabled} against a local stand-in for the
+ * CUI Integration Service that holds every answer until the test releases it,
+ * so all callers are subscribed while the first call is in flight.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:coalescer;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.health-probe.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ToolCallCoalescerTest {
+
+    private static final String TOOL = "check_tenant_control_enabled";
+    private static final HttpServer STAND_IN = startStandIn();
+    private static final Map<String, AtomicInteger> CALLS = new ConcurrentHashMap<>();
+    private static volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Autowired
+    private McpToolService mcpToolService;
+
+    @DynamicPropertySource
+    static void standInUrl(DynamicPropertyRegistry registry) {
+        registry.add("external-services.cui-integration-service.base-url",
+                () -> "http://localhost:" + STAND_IN.getAddress().getPort());
+    }
+
+    @BeforeEach
+    void reset() {
+        CALLS.clear();
+    }
+
+    @AfterAll
+    void stopStandIn() {
+        STAND_IN.stop(0);
+    }
+
+    @Test
+    void identicalConcurrentCallsShareOneExecution() throws InterruptedException {
+        release = new CountDownLatch(1);
+        List<CountDownLatch> done = new ArrayList<>();
+        List<McpResponse.ToolResult> results = new ArrayList<>();
+        // Aliases and numeric strings normalize to the same arguments
+        for (Map<String, Object> arguments : List.<Map<String, Object>>of(
+                Map.of("identifier", 42), Map.of("org_id", "42"), Map.of("identifier", "42"), Map.of("org_id", 43))) {
+            done.add(subscribe(arguments, results));
+        }
+
+        awaitCalls(2);
+        release.countDown();
+        for (CountDownLatch latch : done) {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, CALLS.get("42").get());
+        assertEquals(1, CALLS.get("43").get());
+        assertEquals(4, results.size());
+        results.forEach(result -> assertFalse(result.isError(), String.valueOf(result.getContent())));
+    }
+
+    @Test
+    void completedCallsAreNotShared() {
+        release = new CountDownLatch(0);
+        mcpToolService.executeTool(TOOL, Map.of("identifier", 7));
+        mcpToolService.executeTool(TOOL, Map.of("identifier", 7));
+
+        assertEquals(2, CALLS.get("7").get());
+    }
+
+    @Test
+    void aCallerLeavingEarlyDoesNotCancelTheOthers() throws InterruptedException {
+        release = new CountDownLatch(1);
+        List<McpResponse.ToolResult> results = new ArrayList<>();
+        var first = mcpToolService.executeToolAsync(TOOL, Map.of("identifier", 8)).subscribe();
+        CountDownLatch second = subscribe(Map.of("identifier", 8), results);
+
+        awaitCalls(1);
+        first.dispose();
+        release.countDown();
+
+        assertTrue(second.await(10, TimeUnit.SECONDS));
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isError(), String.valueOf(results.get(0).getContent()));
+        assertEquals(1, CALLS.get("8").get());
+    }
+
+    private CountDownLatch subscribe(Map<String, Object> arguments, List<McpResponse.ToolResult> results) {
+        CountDownLatch done = new CountDownLatch(1);
+        mcpToolService.executeToolAsync(TOOL, arguments)
+                .doOnNext(result -> {
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                })
+                .doFinally(signal -> done.countDown())
+                .onErrorResume(e -> Mono.empty())
+                .subscribe();
+        return done;
+    }
+
+    private static void awaitCalls(int distinct) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (CALLS.size() < distinct && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(distinct, CALLS.size());
+    }
+
+    private static HttpServer startStandIn() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.createContext("/api/v1/cui/tenant-control-enabled", exchange -> {
+                String orgId = exchange.getRequestURI().getQuery().replace("orgId=", "");
+                CALLS.computeIfAbsent(orgId, key -> new AtomicInteger()).incrementAndGet();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                byte[] body = ("{\"orgId\":" + orgId + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
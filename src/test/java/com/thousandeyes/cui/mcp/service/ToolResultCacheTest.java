@@ -0,0 +1,148 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.thousandeyes.cui.mcp.model.mcp.McpResponse;
+import com.thousandeyes.cui.mcp.tool.McpToolHandler;
+import com.thousandeyes.cui.mcp.tool.McpToolParam;
+import com.thousandeyes.cui.mcp.tool.RegisteredTool;
+import com.thousandeyes.cui.mcp.tool.ToolRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Caches {@code get_user_by_id} results read from an in-memory user table and
+ * drops them when {@code rename_user}, a test writer tool, succeeds.
+ */
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:tool-cache;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.health-probe.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(ToolResultCacheTest.UserRenamer.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ToolResultCacheTest {
+
+    private static final String TOOL = "get_user_by_id";
+    private static final String WRITER = "rename_user";
+
+    @Autowired
+    private McpToolService mcpToolService;
+
+    @Autowired
+    private ToolResultCache toolResultCache;
+
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_users (uid BIGINT PRIMARY KEY, name VARCHAR(100), "
+                + "email VARCHAR(100), flag_registered BOOLEAN, delete_time TIMESTAMP)");
+        jdbc.execute("CREATE TABLE te_admin.tb_users_metadata (uid BIGINT, property VARCHAR(64), value TEXT)");
+        jdbc.update("INSERT INTO te_admin.tb_users VALUES (1, 'Ada', 'ada@example.com', TRUE, NULL)");
+        jdbc.update("INSERT INTO te_admin.tb_users VALUES (2, 'Grace', 'grace@example.com', TRUE, NULL)");
+    }
+
+    @Test
+    void servesCachedResultsUntilInvalidated() {
+        assertTrue(text(call("1")).contains("Ada"));
+        rename(1, "Ada Lovelace");
+
+        // Same normalized arguments, so the cached result
+        assertTrue(text(mcpToolService.executeTool(TOOL, Map.of("identifier", 1, "include_cui_metadata", "true")))
+                .contains("\"Ada\""));
+
+        // The writer goes through the tool service, which invalidates on success
+        assertFalse(mcpToolService.executeTool(WRITER, Map.of("uid", 1, "name", "Ada King")).isError());
+        assertTrue(text(call("1")).contains("Ada King"));
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        assertTrue(call("404").isError());
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO te_admin.tb_users VALUES (404, 'Late', 'late@example.com', TRUE, NULL)");
+        String late = text(call("404"));
+        assertTrue(late.contains("Late"), late);
+    }
+
+    @Test
+    void resultLoadedAcrossAnInvalidationIsNotStored() {
+        RegisteredTool tool = toolRegistry.get(TOOL);
+        Map<String, Object> arguments = Map.of("identifier", "2");
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<McpResponse.ToolResult> inFlight = Sinks.one();
+
+        var pending = toolResultCache.get(tool, arguments, () -> {
+            loads.incrementAndGet();
+            return inFlight.asMono();
+        }).subscribe();
+        toolResultCache.invalidate(toolRegistry.get(WRITER));
+        inFlight.tryEmitValue(McpResponse.ToolResult.builder().content(List.of()).build());
+        pending.dispose();
+
+        toolResultCache.get(tool, arguments, () -> {
+            loads.incrementAndGet();
+            return Mono.just(McpResponse.ToolResult.builder().content(List.of()).build());
+        }).block();
+        assertEquals(2, loads.get());
+
+        // The second result was stored
+        toolResultCache.get(tool, arguments, () -> {
+            loads.incrementAndGet();
+            return Mono.empty();
+        }).block();
+        assertEquals(2, loads.get());
+    }
+
+    private McpResponse.ToolResult call(String identifier) {
+        return mcpToolService.executeTool(TOOL, Map.of("identifier", identifier));
+    }
+
+    private void rename(long uid, String name) {
+        jdbcTemplate.getJdbcTemplate().update("UPDATE te_admin.tb_users SET name = ? WHERE uid = ?", name, uid);
+    }
+
+    private static String text(McpResponse.ToolResult result) {
+        return result.getContent().get(0).getText();
+    }
+
+    @Service
+    static class UserRenamer {
+
+        private final NamedParameterJdbcTemplate jdbcTemplate;
+
+        UserRenamer(NamedParameterJdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @McpToolHandler(name = WRITER, description = "Rename a user", invalidates = {TOOL, "not_cached"})
+        public Map<String, Object> renameUser(
+                @McpToolParam(value = "uid", required = true) Long uid,
+                @McpToolParam(value = "name", required = true) String name) {
+            jdbcTemplate.getJdbcTemplate().update("UPDATE te_admin.tb_users SET name = ? WHERE uid = ?", name, uid);
+            return Map.of("uid", uid, "name", name);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.thousandeyes.cui.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thousandeyes.cui.mcp.metrics.ToolMetrics;
+import com.thousandeyes.cui.mcp.model.dto.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the single-query user lookup against the previous two-query path
+ * (user row, then metadata row parsed with readTree) on an in-memory database.
+ *
+ * Run with {@code ./gradlew benchmark}. H2 has no network round trip, so the
+ * printed latencies understate the gain against MySQL; the statement count
+ * per lookup is what is asserted.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "database.url=jdbc:h2:mem:user-benchmark;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.tools.cache.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserLookupBenchmarkTest {
+
+    private static final int USERS = 2000;
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 20000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    void createSchema() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS te_admin");
+        jdbc.execute("CREATE TABLE te_admin.tb_users (uid BIGINT PRIMARY KEY, name VARCHAR(100), "
+                + "email VARCHAR(100), flag_registered BOOLEAN, delete_time TIMESTAMP)");
+        jdbc.execute("CREATE TABLE te_admin.tb_users_metadata (uid BIGINT, property VARCHAR(64), value TEXT, "
+                + "PRIMARY KEY (uid, property))");
+
+        for (int uid = 1; uid <= USERS; uid++) {
+            jdbc.update("INSERT INTO te_admin.tb_users VALUES (?, ?, ?, TRUE, NULL)", uid, "User " + uid, "user" + uid + "@example.com");
+            // Every other user has metadata, the rest exercise the no-row case
+            if (uid % 2 == 0) {
+                jdbc.update("INSERT INTO te_admin.tb_users_metadata VALUES (?, 'cuiUserMetadata', ?)", uid,
+                        "{\"tenants\":[{\"id\":\"t-" + uid + "\",\"roles\":[\"admin\",\"viewer\"]}],"
+                                + "\"cuiUserId\":\"cu-" + uid + "\",\"cuiOrgId\":\"co-" + uid + "\"}");
+            }
+        }
+    }
+
+    @Test
+    void singleQueryLookup() {
+        for (int uid = 1; uid <= 10; uid++) {
+            UserDto expected = twoQueryLookup((long) uid);
+            UserDto actual = userService.getUserById(String.valueOf(uid), true);
+            assertEquals(expected, actual);
+        }
+
+        assertEquals(2.0, statementsPerLookup(() -> twoQueryLookup(42L)));
+        assertEquals(1.0, statementsPerLookup(() -> userService.getUserById("42", true)));
+
+        double before = measure("two queries + readTree", () -> twoQueryLookup(randomUid()));
+        double after = measure("single joined query + streaming parser", () -> userService.getUserById(String.valueOf(randomUid()), true));
+        System.out.printf("get_user_by_id: %.1f us -> %.1f us per lookup (%.0f%%)%n",
+                before, after, 100.0 * (after - before) / before);
+    }
+
+    /**
+     * The lookup as it was before: one query for the user, a second for the
+     * metadata, an exception when there is no metadata row, and a full tree.
+     */
+    private UserDto twoQueryLookup(Long uid) {
+        MapSqlParameterSource params = new MapSqlParameterSource("uid", uid);
+        UserDto user = jdbcTemplate.queryForObject("""
+                SELECT u.uid, u.name, u.email, u.flag_registered
+                FROM te_admin.tb_users u
+                WHERE u.uid = :uid AND u.delete_time IS NULL
+                """, params, (rs, rowNum) -> UserDto.builder()
+                .uid(rs.getLong("uid"))
+                .name(rs.getString("name"))
+                .email(rs.getString("email"))
+                .flagRegistered(rs.getBoolean("flag_registered"))
+                .build());
+
+        try {
+            String metadata = jdbcTemplate.queryForObject("""
+                    SELECT value FROM te_admin.tb_users_metadata
+                    WHERE uid = :uid AND property = 'cuiUserMetadata'
+                    """, params, String.class);
+            JsonNode node = objectMapper.readTree(metadata);
+            user.setCuiUserId(node.has("cuiUserId") ? node.get("cuiUserId").asText() : null);
+            user.setCuiOrgId(node.has("cuiOrgId") ? node.get("cuiOrgId").asText() : null);
+        } catch (EmptyResultDataAccessException e) {
+            // no metadata
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return user;
+    }
+
+    private double statementsPerLookup(Runnable lookup) {
+        long before = jdbcStatements();
+        lookup.run();
+        return jdbcStatements() - before;
+    }
+
+    private long jdbcStatements() {
+        return meterRegistry.find(ToolMetrics.DEPENDENCY).tag("type", "jdbc").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    private static double measure(String name, Runnable lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.run();
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+        System.out.printf("%-40s %8.1f us/lookup%n", name, micros);
+        return micros;
+    }
+
+    private static long randomUid() {
+        return 1 + (long) (Math.random() * USERS);
+    }
+}
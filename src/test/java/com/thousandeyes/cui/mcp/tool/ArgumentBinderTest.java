@@ -0,0 +1,77 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArgumentBinderTest {
+
+    @SuppressWarnings("unused")
+    private static void handler(
+            @McpToolParam(value = "identifier", aliases = "org_id") Long orgId,
+            @McpToolParam(value = "enabled", defaultValue = "true") Boolean enabled,
+            @McpToolParam(value = "ids") List<Long> ids,
+            @McpToolParam(value = "filter") Map<String, Object> filter) {
+    }
+
+    private final ArgumentBinder[] binders = binders();
+
+    @Test
+    void primaryNameTakesPrecedenceOverAliases() {
+        assertEquals(1L, bind(0, Map.of("identifier", "1", "org_id", 2)));
+        assertEquals(2L, bind(0, Map.of("org_id", 2)));
+
+        Map<String, Object> explicitNull = new HashMap<>();
+        explicitNull.put("identifier", null);
+        explicitNull.put("org_id", 2);
+        assertNull(bind(0, explicitNull));
+    }
+
+    @Test
+    void bindsOnlyTrueOrFalseAsBooleans() {
+        assertEquals(true, bind(1, Map.of()));
+        assertEquals(false, bind(1, Map.of("enabled", false)));
+        assertEquals(false, bind(1, Map.of("enabled", " FALSE ")));
+        assertEquals(true, bind(1, Map.of("enabled", "true")));
+
+        for (Object invalid : List.of("yes", "0", 1, "")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> bind(1, Map.of("enabled", invalid)));
+            assertTrue(e.getMessage().contains("must be true or false"), e.getMessage());
+        }
+    }
+
+    @Test
+    void bindsListsAndMaps() {
+        assertEquals(List.of(1L, 2L), bind(2, Map.of("ids", List.of(1, "2"))));
+        assertEquals(List.of(1L, 2L, 3L), bind(2, Map.of("ids", "1, 2,3")));
+        assertEquals(List.of(), bind(2, Map.of("ids", " ")));
+        assertThrows(IllegalArgumentException.class, () -> bind(2, Map.of("ids", Map.of())));
+
+        assertEquals(Map.of("status", "FAILED"), bind(3, Map.of("filter", Map.of("status", "FAILED"))));
+        assertThrows(IllegalArgumentException.class, () -> bind(3, Map.of("filter", "status=FAILED")));
+    }
+
+    private Object bind(int parameter, Map<String, Object> arguments) {
+        return binders[parameter].bind(arguments, null);
+    }
+
+    private static ArgumentBinder[] binders() {
+        Method method = Arrays.stream(ArgumentBinderTest.class.getDeclaredMethods())
+                .filter(m -> m.getName().equals("handler"))
+                .findFirst()
+                .orElseThrow();
+        return Arrays.stream(method.getParameters())
+                .map(ArgumentBinder::forParameter)
+                .toArray(ArgumentBinder[]::new);
+    }
+}
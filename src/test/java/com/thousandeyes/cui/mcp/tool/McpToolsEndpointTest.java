@@ -0,0 +1,44 @@
+package com.thousandeyes.cui.mcp.tool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The unauthenticated tool toggle endpoint with the default actuator exposure.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "database.url=jdbc:h2:mem:mcp-tools-endpoint;MODE=MySQL;NON_KEYWORDS=VALUE",
+    "mcp.server.health-probe.enabled=false"
+})
+@ActiveProfiles("test")
+class McpToolsEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Test
+    void isNotExposedByDefault() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response = restTemplate.postForEntity("/actuator/mcptools/get_user_by_id",
+                new HttpEntity<>("{\"enabled\": false}", headers), String.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertTrue(toolRegistry.states().get("get_user_by_id"));
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/actuator/mcptools", String.class).getStatusCode());
+    }
+}